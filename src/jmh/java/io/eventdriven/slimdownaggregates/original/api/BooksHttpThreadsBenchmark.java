@@ -0,0 +1,117 @@
+package io.eventdriven.slimdownaggregates.original.api;
+
+import io.eventdriven.slimdownaggregates.original.application.books.BooksService;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CreateDraftCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.testing.BenchmarkApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries a page of book summaries over HTTP from many client threads at once, with requests served
+ * on the Tomcat worker pool and on virtual threads limited by runtime.max-concurrent-requests.
+ * Reports throughput and the latency distribution, p0.99 of SampleTime is the p99.
+ * <p>
+ * The virtual threads mode needs the benchmark to run on JDK 21, e.g. JAVA_HOME pointing to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(400)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class BooksHttpThreadsBenchmark {
+  @Param({"false", "true"})
+  public boolean virtualThreads;
+
+  @Param({"50"})
+  public int booksCount;
+
+  private ConfigurableApplicationContext context;
+  private HttpClient client;
+  private HttpRequest request;
+
+  @Setup(Level.Trial)
+  public void start() {
+    context = BenchmarkApplication.start(
+      WebApplicationType.SERVLET,
+      "server.port=0",
+      // The default user's password is checked with BCrypt on every request, it would outweigh the query
+      "spring.autoconfigure.exclude="
+        + "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration,"
+        + "org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration,"
+        + "org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration,"
+        + "org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration",
+      "runtime.virtual-threads.enabled=" + virtualThreads,
+      // Summaries are read from the book details projection
+      "outbox.relay.enabled=true"
+    );
+
+    var publisherId = BenchmarkApplication.createPublisher(context);
+    var booksService = context.getBean(BooksService.class);
+    for (int i = 0; i < booksCount; i++) {
+      var bookId = new BookId(UUID.randomUUID());
+      booksService.createDraft(new CreateDraftCommand(
+        bookId,
+        new Title("Benchmark book " + i),
+        new AuthorIdOrData(null, new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+        new PublisherId(publisherId),
+        new PositiveInt(1),
+        new Genre("Fiction")
+      ));
+    }
+
+    awaitProjected(publisherId);
+
+    var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books?limit=50&publisherId=" + publisherId))
+      .header("Accept", "application/json")
+      .GET()
+      .build();
+  }
+
+  @Benchmark
+  public int findSummaries() throws IOException, InterruptedException {
+    var response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    if (response.statusCode() != 200)
+      throw new IllegalStateException("Request failed with " + response.statusCode());
+    return response.body().length;
+  }
+
+  private void awaitProjected(UUID publisherId) {
+    var jdbcTemplate = context.getBean(JdbcTemplate.class);
+    var deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+
+    while (jdbcTemplate.queryForObject("SELECT count(*) FROM book_details WHERE publisher_id = ?", Long.class, publisherId) < booksCount) {
+      if (System.nanoTime() > deadline)
+        throw new IllegalStateException("Books weren't projected in time");
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    context.close();
+  }
+}
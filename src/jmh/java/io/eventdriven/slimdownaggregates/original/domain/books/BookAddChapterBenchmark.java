@@ -0,0 +1,62 @@
+package io.eventdriven.slimdownaggregates.original.domain.books;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds chapters to a book that already has the given number of them, the cost should stay flat.
+ * Each iteration starts from a new book and adds a batch of chapters to it, scores are per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 50, batchSize = BookAddChapterBenchmark.BATCH_SIZE)
+@Measurement(iterations = 50, batchSize = BookAddChapterBenchmark.BATCH_SIZE)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class BookAddChapterBenchmark {
+  static final int BATCH_SIZE = 1000;
+  private static final ChapterContent CONTENT = new ChapterContent("Content of the chapter");
+
+  @Param({"10", "100", "1000", "10000"})
+  public int chaptersCount;
+
+  private final PublishingHouse publishingHouse = genre -> false;
+  private Book book;
+  private ChapterTitle[] titles;
+  private int next;
+
+  @Setup(Level.Iteration)
+  public void createBook() {
+    book = Book.createDraft(
+      new BookId(UUID.randomUUID()),
+      new Title("Benchmark book"),
+      new Author(new AuthorId(UUID.randomUUID()), new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      publishingHouse,
+      new Publisher(new PublisherId(UUID.randomUUID()), new PublisherName("Publisher")),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    );
+    for (int number = 1; number <= chaptersCount; number++) {
+      book.addChapter(new ChapterTitle("chapter " + number), CONTENT);
+    }
+    book.clearEvents();
+
+    // Titles are built ahead, so only addChapter is measured
+    titles = new ChapterTitle[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      titles[i] = new ChapterTitle("chapter " + (chaptersCount + i + 1));
+    }
+    next = 0;
+  }
+
+  @Benchmark
+  public Book addChapter() {
+    book.addChapter(titles[next++], CONTENT);
+    return book;
+  }
+}
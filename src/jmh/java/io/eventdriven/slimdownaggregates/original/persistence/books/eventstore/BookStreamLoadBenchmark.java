@@ -0,0 +1,125 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.eventstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.BookDraftCreatedEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.ChapterAddedEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.persistence.books.events.BookEventPayloads;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.FileEventStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.FileSnapshotStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageCodec;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageTypeRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a book stream of the given length from the latest snapshot plus the events after it,
+ * compared to replaying the whole stream when snapshots are never taken.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class BookStreamLoadBenchmark {
+  private static final int EVENTS_PER_COMMAND = 25;
+
+  @Param({"100", "1000", "5000"})
+  public int eventsCount;
+
+  @Param({"snapshot", "replay"})
+  public String load;
+
+  private BooksEventStoreRepository repository;
+  private BookId bookId;
+
+  @Setup(Level.Trial)
+  public void writeStream() throws IOException {
+    var directory = Files.createTempDirectory("benchmark-eventstore");
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    PublishingHouse publishingHouse = genre -> false;
+
+    repository = new BooksEventStoreRepository(
+      new FileEventStore(directory, objectMapper),
+      new BookEventSerializer(objectMapper),
+      publishingHouse,
+      new FileSnapshotStore(directory.resolve("snapshots"), objectMapper),
+      new BookSnapshotSerializer(objectMapper, new Book.Factory(), publishingHouse),
+      // Same frequency as the application, replaying means a snapshot is never due
+      load.equals("snapshot") ? 50 : Integer.MAX_VALUE,
+      discardingOutbox(),
+      new OutboxMessageCodec(
+        new OutboxMessageTypeRegistry()
+          .register(13, ChapterAddedEvent.class, BookEventPayloads.ChapterAdded.class)
+          .register(16, BookDraftCreatedEvent.class, BookEventPayloads.BookDraftCreated.class),
+        event -> BookEventPayloads.of((DomainEvent) event)
+      ),
+      new NoTransactionManager()
+    );
+
+    bookId = new BookId(UUID.randomUUID());
+    repository.add(Book.createDraft(
+      bookId,
+      new Title("Benchmark book"),
+      new Author(new AuthorId(UUID.randomUUID()), new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      publishingHouse,
+      new Publisher(new PublisherId(UUID.randomUUID()), new PublisherName("Publisher")),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    ));
+
+    // Chapters are added in commands, like a book being written
+    for (int number = 1; number < eventsCount; ) {
+      var book = repository.findById(bookId).orElseThrow();
+      for (int i = 0; i < EVENTS_PER_COMMAND && number < eventsCount; i++, number++) {
+        book.addChapter(new ChapterTitle("chapter " + number), new ChapterContent("Content of chapter " + number));
+      }
+      repository.update(book);
+    }
+  }
+
+  @Benchmark
+  public Book findById() {
+    return repository.findById(bookId).orElseThrow();
+  }
+
+  // Only loading is measured, the outbox messages written with the stream are dropped
+  private static OutboxMessageRepository discardingOutbox() {
+    return (OutboxMessageRepository) Proxy.newProxyInstance(
+      OutboxMessageRepository.class.getClassLoader(),
+      new Class<?>[]{OutboxMessageRepository.class},
+      (proxy, method, args) -> args != null && args.length == 1 ? args[0] : null
+    );
+  }
+
+  private static final class NoTransactionManager implements PlatformTransactionManager {
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) {
+      return new SimpleTransactionStatus();
+    }
+
+    @Override
+    public void commit(TransactionStatus status) {
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) {
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.repositories;
+
+import io.eventdriven.slimdownaggregates.original.application.books.BooksService;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChaptersCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CreateDraftCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.testing.BenchmarkApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Saves a book with many new chapters, each also writing its content chunk and outbox message,
+ * with JDBC batching off (batch size 1) and at the configured batch size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class BookChildInsertsBenchmark {
+  @Param({"1", "50"})
+  public int batchSize;
+
+  @Param({"200"})
+  public int chaptersCount;
+
+  private ConfigurableApplicationContext context;
+  private BooksService booksService;
+  private UUID publisherId;
+  private List<AddChaptersCommand.ChapterToAdd> chapters;
+  private BookId bookId;
+
+  @Setup(Level.Trial)
+  public void start() {
+    context = BenchmarkApplication.start(
+      WebApplicationType.NONE,
+      "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize
+    );
+    booksService = context.getBean(BooksService.class);
+    publisherId = BenchmarkApplication.createPublisher(context);
+    chapters = IntStream.rangeClosed(1, chaptersCount)
+      .mapToObj(number -> new AddChaptersCommand.ChapterToAdd(
+        new ChapterTitle("chapter " + number),
+        new ChapterContent("Content of chapter " + number + ". ".repeat(200))
+      ))
+      .toList();
+  }
+
+  @Setup(Level.Invocation)
+  public void createDraft() {
+    bookId = new BookId(UUID.randomUUID());
+    booksService.createDraft(new CreateDraftCommand(
+      bookId,
+      new Title("Benchmark book"),
+      new AuthorIdOrData(null, new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      new PublisherId(publisherId),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    ));
+  }
+
+  @Benchmark
+  public void addChapters() {
+    booksService.addChapters(new AddChaptersCommand(bookId, chapters));
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    context.close();
+  }
+}
@@ -0,0 +1,64 @@
+package io.eventdriven.slimdownaggregates.original.testing;
+
+import io.eventdriven.slimdownaggregates.original.api.PublishingHouseApplication;
+import io.eventdriven.slimdownaggregates.original.persistence.publishers.PublisherEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.publishers.PublisherRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Starts the application against the test database for benchmarks, background jobs are off unless
+ * the benchmark turns them on. Given properties override the defaults.
+ */
+public final class BenchmarkApplication {
+  private BenchmarkApplication() {
+  }
+
+  public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+    try {
+      var directory = Files.createTempDirectory("benchmark");
+
+      var arguments = new LinkedHashMap<String, String>();
+      Stream.concat(
+        Stream.of(
+          "spring.datasource.url=" + TestDatabase.jdbcUrl(),
+          "spring.datasource.username=" + TestDatabase.USER,
+          "spring.datasource.password=",
+          "spring.jpa.show-sql=false",
+          "outbox.relay.enabled=false",
+          "outbox.retention.enabled=false",
+          "books.search.directory=" + directory.resolve("search"),
+          "books.commands.async.directory=" + directory.resolve("commands"),
+          "eventstore.file.directory=" + directory.resolve("eventstore")
+        ),
+        Arrays.stream(properties)
+      ).forEach(property -> {
+        // A repeated argument would be read as both values joined, the later one replaces the default instead
+        var separator = property.indexOf('=');
+        arguments.put(property.substring(0, separator), property.substring(separator + 1));
+      });
+
+      // Passed as arguments, they take precedence over application.properties
+      return new SpringApplicationBuilder(PublishingHouseApplication.class)
+        .web(webApplicationType)
+        .run(arguments.entrySet().stream().map(property -> "--" + property.getKey() + "=" + property.getValue()).toArray(String[]::new));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static UUID createPublisher(ConfigurableApplicationContext context) {
+    var publisher = new PublisherEntity();
+    publisher.setName("Publisher " + UUID.randomUUID());
+    return context.getBean(PublisherRepository.class).save(publisher).getId();
+  }
+}
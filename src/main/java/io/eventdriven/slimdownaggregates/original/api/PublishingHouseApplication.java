@@ -2,8 +2,11 @@ package io.eventdriven.slimdownaggregates.original.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
 
 @SpringBootApplication
+// Entities live in the persistence packages, outside of the application package
+@EntityScan(basePackages = "io.eventdriven.slimdownaggregates.original.persistence")
 public
 class PublishingHouseApplication {
   public static void main(String[] args) {
@@ -0,0 +1,106 @@
+package io.eventdriven.slimdownaggregates.original.api.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Limits the requests processed at once. Without a thread pool bounding them, every request would
+ * otherwise wait for a database connection, so waiting happens here and times out with 503 instead.
+ * Requests not using the database pass without a permit.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+  private final Semaphore permits;
+  private final Duration maxWait;
+  private final Predicate<HttpServletRequest> usesDatabase;
+
+  public ConcurrencyLimitFilter(int maxConcurrentRequests, Duration maxWait, Predicate<HttpServletRequest> usesDatabase) {
+    this.permits = new Semaphore(maxConcurrentRequests, true);
+    this.maxWait = maxWait;
+    this.usesDatabase = usesDatabase;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+    throws ServletException, IOException {
+    boolean acquired;
+    try {
+      acquired = permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+
+    if (!acquired) {
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+      return;
+    }
+
+    var release = new ReleaseOnce();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      if (request.isAsyncStarted()) {
+        // Streamed responses keep running after the filter returned, the permit is held until they complete
+        request.getAsyncContext().addListener(release);
+      } else {
+        release.run();
+      }
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !usesDatabase.test(request);
+  }
+
+  // Async dispatches belong to a request that already holds its permit
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return true;
+  }
+
+  // Complete can follow error or timeout, the permit is released by whichever comes first
+  private class ReleaseOnce implements AsyncListener, Runnable {
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    @Override
+    public void run() {
+      if (released.compareAndSet(false, true))
+        permits.release();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      run();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      run();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      run();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+  }
+}
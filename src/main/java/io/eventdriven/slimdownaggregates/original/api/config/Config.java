@@ -1,30 +1,82 @@
 package io.eventdriven.slimdownaggregates.original.api.config;
 
-import io.eventdriven.slimdownaggregates.original.application.books.BooksQueryService;
+import io.eventdriven.slimdownaggregates.original.application.books.BookCommandQueue;
 import io.eventdriven.slimdownaggregates.original.application.books.BooksQueryServiceImpl;
+import io.eventdriven.slimdownaggregates.original.application.books.CachingBooksQueryService;
 import io.eventdriven.slimdownaggregates.original.application.books.BooksService;
 import io.eventdriven.slimdownaggregates.original.application.books.BooksServiceImpl;
+import io.eventdriven.slimdownaggregates.original.application.books.GroupCommitBooksService;
+import io.eventdriven.slimdownaggregates.original.application.books.MailboxBooksService;
 import io.eventdriven.slimdownaggregates.original.domain.books.Book;
 import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorProvider;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.*;
 import io.eventdriven.slimdownaggregates.original.domain.books.factories.BookFactory;
 import io.eventdriven.slimdownaggregates.original.domain.books.publishers.PublisherProvider;
 import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksQueryRepository;
 import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.ChaptersSearchRepository;
 import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
+import io.eventdriven.slimdownaggregates.original.infrastructure.threads.VirtualThreads;
 import io.eventdriven.slimdownaggregates.original.persistence.authors.AuthorEntity;
 import io.eventdriven.slimdownaggregates.original.persistence.authors.AuthorRepository;
 import io.eventdriven.slimdownaggregates.original.persistence.authors.AuthorService;
 import io.eventdriven.slimdownaggregates.original.persistence.books.BookEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.books.commands.BookCommandOutcomeEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.books.commands.BookCommandOutcomeJpaRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.commands.BookCommandOutcomesRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.commands.FileBookCommandJournal;
+import io.eventdriven.slimdownaggregates.original.persistence.books.events.BookEventPayloads;
+import io.eventdriven.slimdownaggregates.original.persistence.books.eventstore.BookEventSerializer;
+import io.eventdriven.slimdownaggregates.original.persistence.books.eventstore.BookSnapshotSerializer;
+import io.eventdriven.slimdownaggregates.original.persistence.books.eventstore.BooksEventStoreRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.projections.BookDetailsDeadLetterEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.books.projections.BookDetailsDeadLetterRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.projections.BookDetailsEndpoint;
+import io.eventdriven.slimdownaggregates.original.persistence.books.projections.BookDetailsEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.books.projections.BookDetailsJpaRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.projections.BookDetailsProjection;
+import io.eventdriven.slimdownaggregates.original.persistence.books.projections.BookDetailsQueryRepository;
 import io.eventdriven.slimdownaggregates.original.persistence.books.repositories.BooksEntityRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.search.ChaptersSearchIndexOwnership;
+import io.eventdriven.slimdownaggregates.original.persistence.books.search.ChaptersSearchIndexRebuild;
+import io.eventdriven.slimdownaggregates.original.persistence.books.search.ChaptersSearchIndexRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.search.ChaptersSearchProjection;
 import io.eventdriven.slimdownaggregates.original.persistence.books.repositories.BooksJpaRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.core.content.ContentStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.EventStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.FileEventStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.FileSnapshotStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.SnapshotStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.*;
+import io.eventdriven.slimdownaggregates.original.persistence.core.search.SearchIndex;
 import io.eventdriven.slimdownaggregates.original.persistence.publishers.PublisherEntity;
 import io.eventdriven.slimdownaggregates.original.persistence.publishers.PublisherRepository;
 import io.eventdriven.slimdownaggregates.original.persistence.publishers.PublisherService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import io.micrometer.core.instrument.MeterRegistry;
 
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -38,26 +90,263 @@ public class Config {
     BooksRepository repository,
     AuthorProvider authorProvider,
     PublisherProvider publisherProvider,
-    PublishingHouse publishingHouse
+    PublishingHouse publishingHouse,
+    PlatformTransactionManager transactionManager,
+    @Value("${books.commands.mailbox.enabled}") boolean mailboxEnabled,
+    @Value("${books.commands.mailbox.max-batch-size}") int mailboxMaxBatchSize,
+    @Value("${books.commands.mailbox.workers}") int mailboxWorkers,
+    @Value("${books.commands.group-commit.enabled}") boolean groupCommitEnabled,
+    @Value("${books.commands.group-commit.window-ms}") long groupCommitWindowMs,
+    @Value("${books.commands.group-commit.max-batch-size}") int groupCommitMaxBatchSize,
+    @Value("${runtime.virtual-threads.enabled}") boolean virtualThreads
   ) {
-    return new BooksServiceImpl(
+    if (mailboxEnabled && groupCommitEnabled)
+      throw new IllegalStateException("Book commands can run either in mailboxes or with group commit, not both");
+
+    var service = new BooksServiceImpl(
       repository,
       authorProvider,
       publisherProvider,
       publishingHouse
     );
+
+    if (mailboxEnabled)
+      return new MailboxBooksService(
+        service,
+        repository,
+        new TransactionTemplate(transactionManager),
+        mailboxMaxBatchSize,
+        mailboxWorkers,
+        virtualThreads ? VirtualThreads.factory("book-mailbox-") : new CustomizableThreadFactory("book-mailbox-")
+      );
+
+    if (groupCommitEnabled)
+      return new GroupCommitBooksService(
+        service,
+        repository,
+        new TransactionTemplate(transactionManager),
+        Duration.ofMillis(groupCommitWindowMs),
+        groupCommitMaxBatchSize,
+        new CustomizableThreadFactory("book-group-commit-")
+      );
+
+    return service;
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.commands.async.enabled", havingValue = "true")
+  BookCommandQueue bookCommandQueue(
+    BookCommandOutcomeJpaRepository bookCommandOutcomeJpaRepository,
+    BooksRepository repository,
+    PlatformTransactionManager transactionManager,
+    ObjectMapper objectMapper,
+    @Value("${books.commands.async.directory}") String directory,
+    @Value("${books.commands.async.batch-size}") int batchSize,
+    @Value("${books.commands.async.retained-outcomes}") int retainedOutcomes,
+    @Value("${runtime.virtual-threads.enabled}") boolean virtualThreads
+  ) {
+    return new BookCommandQueue(
+      new FileBookCommandJournal(Path.of(directory), objectMapper, retainedOutcomes),
+      new BookCommandOutcomesRepository(bookCommandOutcomeJpaRepository),
+      repository,
+      new TransactionTemplate(transactionManager),
+      batchSize,
+      virtualThreads ? VirtualThreads.factory("book-commands-") : new CustomizableThreadFactory("book-commands-")
+    );
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "runtime.virtual-threads.enabled", havingValue = "true")
+  TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+    // Each request gets its own virtual thread instead of one from the worker pool
+    return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.perTaskExecutor("http-"));
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "runtime.virtual-threads.enabled", havingValue = "true")
+  WebMvcConfigurer virtualThreadsAsyncSupport() {
+    // Streamed responses are written from virtual threads too
+    return new WebMvcConfigurer() {
+      @Override
+      public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(VirtualThreads.perTaskExecutor("mvc-async-")));
+      }
+    };
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "runtime.virtual-threads.enabled", havingValue = "true")
+  FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+    CachingBooksQueryService booksQueryService,
+    @Value("${runtime.max-concurrent-requests}") int maxConcurrentRequests,
+    @Value("${runtime.max-concurrent-requests.wait-ms}") long maxWaitMs,
+    @Value("${books.commands.async.enabled}") boolean commandsQueued
+  ) {
+    var registration = new FilterRegistrationBean<>(
+      new ConcurrencyLimitFilter(
+        maxConcurrentRequests,
+        Duration.ofMillis(maxWaitMs),
+        new DatabaseRequests(booksQueryService, commandsQueued)
+      )
+    );
+    registration.addUrlPatterns("/api/*");
+    return registration;
   }
 
   @Bean
-  BooksQueryService booksQueryService(
-    BooksQueryRepository repository
+  CachingBooksQueryService booksQueryService(
+    BooksQueryRepository repository,
+    ChaptersSearchRepository chaptersSearchRepository,
+    MeterRegistry meterRegistry,
+    @Value("${books.details.cache.maximum-size-bytes}") long maximumSizeBytes,
+    @Value("${books.details.cache.expire-after-write-ms}") long expireAfterWriteMs
   ) {
-    return new BooksQueryServiceImpl(repository);
+    return new CachingBooksQueryService(
+      new BooksQueryServiceImpl(repository, chaptersSearchRepository),
+      maximumSizeBytes,
+      Duration.ofMillis(expireAfterWriteMs),
+      meterRegistry
+    );
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.persistence", havingValue = "jpa", matchIfMissing = true)
+  BooksRepository booksRepository(
+    BooksJpaRepository jpaRepository,
+    OutboxMessageRepository outboxMessageRepository,
+    OutboxMessageCodec outboxMessageCodec,
+    BookFactory bookFactory,
+    PublishingHouse publishingHouse,
+    ContentStore contentStore
+  ) {
+    return new BooksEntityRepository(
+      jpaRepository,
+      outboxMessageRepository,
+      outboxMessageCodec,
+      bookFactory,
+      publishingHouse,
+      contentStore
+    );
   }
 
   @Bean
-  BooksRepository booksRepository(BooksJpaRepository jpaRepository, BookFactory bookFactory) {
-    return new BooksEntityRepository(jpaRepository, bookFactory);
+  ContentStore contentStore() {
+    return new ContentStore();
+  }
+
+  @Bean
+  OutboxMessageTypeRegistry outboxMessageTypeRegistry() {
+    // Ids are stored in the outbox, never reuse or renumber them
+    return new OutboxMessageTypeRegistry()
+      .register(1, ChapterAddedEvent.class, BookEventPayloads.ChapterAdded.class)
+      .register(2, BookMovedToEditingEvent.class, BookEventPayloads.BookMovedToEditing.class)
+      .register(3, BookPublishedEvent.class, BookEventPayloads.BookPublished.class)
+      .register(4, BookDraftCreatedEvent.class, BookEventPayloads.BookDraftCreated.class)
+      .register(5, TranslationAddedEvent.class, BookEventPayloads.TranslationAdded.class)
+      .register(6, FormatAddedEvent.class, BookEventPayloads.FormatAdded.class)
+      .register(7, FormatRemovedEvent.class, BookEventPayloads.FormatRemoved.class)
+      .register(8, ReviewerAddedEvent.class, BookEventPayloads.ReviewerAdded.class)
+      .register(9, BookApprovedEvent.class, BookEventPayloads.BookApproved.class)
+      .register(10, ISBNSetEvent.class, BookEventPayloads.ISBNSet.class)
+      .register(11, BookMovedToPrintingEvent.class, BookEventPayloads.BookMovedToPrinting.class)
+      .register(12, BookMovedToOutOfPrintEvent.class, BookEventPayloads.BookMovedToOutOfPrint.class);
+  }
+
+  @Bean
+  OutboxMessageCodec outboxMessageCodec(OutboxMessageTypeRegistry registry) {
+    return new OutboxMessageCodec(registry, event -> BookEventPayloads.of((DomainEvent) event));
+  }
+
+  @Bean
+  public JpaRepositoryFactoryBean<OutboxMessageRepository, OutboxMessageEntity, Long> outboxMessageRepository() {
+    return new JpaRepositoryFactoryBean<>(OutboxMessageRepository.class);
+  }
+
+  @Bean
+  public JpaRepositoryFactoryBean<OutboxDeadLetterRepository, OutboxDeadLetterEntity, Long> outboxDeadLetterRepository() {
+    return new JpaRepositoryFactoryBean<>(OutboxDeadLetterRepository.class);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  OutboxMessageSink outboxMessageSink(ApplicationEventPublisher eventPublisher) {
+    return new ApplicationEventsOutboxMessageSink(eventPublisher);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true")
+  OutboxRelay outboxRelay(
+    OutboxMessageRepository outboxMessageRepository,
+    OutboxDeadLetterRepository outboxDeadLetterRepository,
+    OutboxMessageSink outboxMessageSink,
+    PlatformTransactionManager transactionManager,
+    ObjectProvider<ChaptersSearchIndexOwnership> chaptersSearchIndexOwnership,
+    MeterRegistry meterRegistry,
+    @Value("${outbox.relay.batch-size}") int batchSize,
+    @Value("${outbox.relay.max-attempts}") int maxAttempts,
+    @Value("${outbox.relay.delete-delivered}") boolean deleteDelivered,
+    @Value("${outbox.relay.partitions}") int partitions,
+    @Value("${outbox.relay.poll-interval-ms}") long pollIntervalMs
+  ) {
+    return new OutboxRelay(
+      outboxMessageRepository,
+      outboxDeadLetterRepository,
+      outboxMessageSink,
+      new TransactionTemplate(transactionManager),
+      batchSize,
+      maxAttempts,
+      deleteDelivered,
+      partitions,
+      Duration.ofMillis(pollIntervalMs),
+      new CustomizableThreadFactory("outbox-relay-"),
+      // Chapters would reach the search index only when relayed by the node serving it
+      () -> chaptersSearchIndexOwnership.stream().allMatch(ChaptersSearchIndexOwnership::isOwner),
+      meterRegistry
+    );
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.persistence", havingValue = "eventstore")
+  BooksRepository eventSourcedBooksRepository(
+    EventStore eventStore,
+    SnapshotStore snapshotStore,
+    ObjectMapper objectMapper,
+    BookFactory bookFactory,
+    PublishingHouse publishingHouse,
+    OutboxMessageRepository outboxMessageRepository,
+    OutboxMessageCodec outboxMessageCodec,
+    PlatformTransactionManager transactionManager,
+    @Value("${eventstore.snapshot.frequency}") int snapshotFrequency
+  ) {
+    return new BooksEventStoreRepository(
+      eventStore,
+      new BookEventSerializer(objectMapper),
+      publishingHouse,
+      snapshotStore,
+      new BookSnapshotSerializer(objectMapper, bookFactory, publishingHouse),
+      snapshotFrequency,
+      outboxMessageRepository,
+      outboxMessageCodec,
+      transactionManager
+    );
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.persistence", havingValue = "eventstore")
+  EventStore eventStore(
+    @Value("${eventstore.file.directory}") String directory,
+    ObjectMapper objectMapper
+  ) {
+    return new FileEventStore(Path.of(directory), objectMapper);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.persistence", havingValue = "eventstore")
+  SnapshotStore snapshotStore(
+    @Value("${eventstore.file.directory}") String directory,
+    ObjectMapper objectMapper
+  ) {
+    return new FileSnapshotStore(Path.of(directory, "snapshots"), objectMapper);
   }
 
   @Bean
@@ -66,19 +355,152 @@ public class Config {
     return new JpaRepositoryFactoryBean<>(BooksJpaRepository.class);
   }
 
+  // Always created, messages can't be written until their partition exists
+  @Bean
+  OutboxRetention outboxRetention(
+    JdbcTemplate jdbcTemplate,
+    PlatformTransactionManager transactionManager,
+    MeterRegistry meterRegistry,
+    @Value("${outbox.retention.partition-size}") long partitionSize,
+    @Value("${outbox.retention.partitions-ahead}") int partitionsAhead,
+    @Value("${outbox.retention.interval-ms}") long intervalMs,
+    @Value("${outbox.retention.enabled}") boolean enabled
+  ) {
+    return new OutboxRetention(
+      jdbcTemplate,
+      new TransactionTemplate(transactionManager),
+      partitionSize,
+      partitionsAhead,
+      Duration.ofMillis(intervalMs),
+      enabled,
+      meterRegistry
+    );
+  }
+
   @Bean
   BookFactory bookFactory() {
     return new Book.Factory();
   }
 
   @Bean
-  BooksQueryRepository booksQueryRepository() {
-    return bookId -> Optional.empty();
+  BooksQueryRepository booksQueryRepository(
+    BookDetailsJpaRepository bookDetailsJpaRepository,
+    JdbcTemplate jdbcTemplate,
+    ObjectMapper objectMapper
+  ) {
+    return new BookDetailsQueryRepository(bookDetailsJpaRepository, jdbcTemplate, objectMapper);
+  }
+
+  @Bean
+  BookDetailsProjection bookDetailsProjection(
+    BookDetailsJpaRepository bookDetailsJpaRepository,
+    BookDetailsDeadLetterRepository bookDetailsDeadLetterRepository,
+    BooksRepository booksRepository,
+    OutboxMessageRepository outboxMessageRepository,
+    OutboxMessageCodec outboxMessageCodec,
+    ObjectMapper objectMapper,
+    ApplicationEventPublisher eventPublisher,
+    PlatformTransactionManager transactionManager,
+    MeterRegistry meterRegistry,
+    @Value("${books.details.projection.max-attempts}") int maxAttempts
+  ) {
+    return new BookDetailsProjection(
+      bookDetailsJpaRepository,
+      bookDetailsDeadLetterRepository,
+      booksRepository,
+      outboxMessageRepository,
+      outboxMessageCodec,
+      objectMapper,
+      eventPublisher,
+      transactionManager,
+      maxAttempts,
+      meterRegistry
+    );
+  }
+
+  @Bean
+  BookDetailsEndpoint bookDetailsEndpoint(BookDetailsProjection bookDetailsProjection) {
+    return new BookDetailsEndpoint(bookDetailsProjection);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.search.enabled", havingValue = "true")
+  SearchIndex chaptersSearchIndex(
+    @Value("${books.search.directory}") String directory,
+    @Value("${books.search.flush-threshold}") int flushThreshold,
+    @Value("${books.search.max-segments}") int maxSegments
+  ) {
+    return new SearchIndex(Path.of(directory), ChaptersSearchIndexRepository.FIELD_WEIGHTS, flushThreshold, maxSegments);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.search.enabled", havingValue = "true")
+  ChaptersSearchRepository chaptersSearchRepository(
+    SearchIndex chaptersSearchIndex,
+    ChaptersSearchIndexOwnership chaptersSearchIndexOwnership
+  ) {
+    return new ChaptersSearchIndexRepository(chaptersSearchIndex, chaptersSearchIndexOwnership);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.search.enabled", havingValue = "false")
+  ChaptersSearchRepository disabledChaptersSearchRepository() {
+    return (query, limit) -> Optional.empty();
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.search.enabled", havingValue = "true")
+  ChaptersSearchIndexRebuild chaptersSearchIndexRebuild(
+    SearchIndex chaptersSearchIndex,
+    ContentStore contentStore,
+    PlatformTransactionManager transactionManager
+  ) {
+    return new ChaptersSearchIndexRebuild(chaptersSearchIndex, contentStore, transactionManager);
   }
 
   @Bean
-  AuthorProvider authorProvider(AuthorRepository authorRepository) {
-    return new AuthorService(authorRepository);
+  @ConditionalOnProperty(name = "books.search.enabled", havingValue = "true")
+  ChaptersSearchIndexOwnership chaptersSearchIndexOwnership(
+    DataSource dataSource,
+    SearchIndex chaptersSearchIndex,
+    ChaptersSearchIndexRebuild chaptersSearchIndexRebuild,
+    @Value("${books.search.rebuild-when-empty}") boolean rebuildWhenEmpty
+  ) {
+    return new ChaptersSearchIndexOwnership(dataSource, chaptersSearchIndex, chaptersSearchIndexRebuild, rebuildWhenEmpty);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "books.search.enabled", havingValue = "true")
+  ChaptersSearchProjection chaptersSearchProjection(
+    SearchIndex chaptersSearchIndex,
+    ChaptersSearchIndexOwnership chaptersSearchIndexOwnership,
+    OutboxMessageCodec outboxMessageCodec
+  ) {
+    return new ChaptersSearchProjection(chaptersSearchIndex, chaptersSearchIndexOwnership, outboxMessageCodec);
+  }
+
+  @Bean
+  public JpaRepositoryFactoryBean<BookCommandOutcomeJpaRepository, BookCommandOutcomeEntity, UUID> bookCommandOutcomeJpaRepository() {
+    return new JpaRepositoryFactoryBean<>(BookCommandOutcomeJpaRepository.class);
+  }
+
+  @Bean
+  public JpaRepositoryFactoryBean<BookDetailsJpaRepository, BookDetailsEntity, UUID> bookDetailsJpaRepository() {
+    return new JpaRepositoryFactoryBean<>(BookDetailsJpaRepository.class);
+  }
+
+  @Bean
+  public JpaRepositoryFactoryBean<BookDetailsDeadLetterRepository, BookDetailsDeadLetterEntity, Long> bookDetailsDeadLetterRepository() {
+    return new JpaRepositoryFactoryBean<>(BookDetailsDeadLetterRepository.class);
+  }
+
+  @Bean
+  AuthorProvider authorProvider(
+    AuthorRepository authorRepository,
+    MeterRegistry meterRegistry,
+    @Value("${books.authors.cache.maximum-size}") long cacheMaximumSize
+  ) {
+    return new AuthorService(authorRepository, cacheMaximumSize, meterRegistry);
   }
 
   @Bean
@@ -88,8 +510,11 @@ public class Config {
   }
 
   @Bean
-  PublisherProvider publisherProvider(PublisherRepository publisherRepository) {
-    return new PublisherService(publisherRepository);
+  PublisherProvider publisherProvider(
+    PublisherRepository publisherRepository,
+    @Value("${books.publishers.refresh-interval-ms}") long refreshIntervalMs
+  ) {
+    return new PublisherService(publisherRepository, Duration.ofMillis(refreshIntervalMs));
   }
 
   @Bean
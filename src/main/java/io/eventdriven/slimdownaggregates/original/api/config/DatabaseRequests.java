@@ -0,0 +1,57 @@
+package io.eventdriven.slimdownaggregates.original.api.config;
+
+import io.eventdriven.slimdownaggregates.original.application.books.CachingBooksQueryService;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Tells the requests that may hold a database connection, the ones the concurrency limit is for.
+ * Command statuses and chapter searches are served from memory and the local index, queued commands
+ * only go to the journal and cached book details are read from the cache.
+ * The cache is checked before the request runs, an entry expiring in between is loaded without a permit.
+ */
+class DatabaseRequests implements Predicate<HttpServletRequest> {
+  private static final String BOOKS_PATH = "/api/books/";
+
+  private final CachingBooksQueryService booksQueryService;
+  private final boolean commandsQueued;
+
+  DatabaseRequests(CachingBooksQueryService booksQueryService, boolean commandsQueued) {
+    this.booksQueryService = booksQueryService;
+    this.commandsQueued = commandsQueued;
+  }
+
+  @Override
+  public boolean test(HttpServletRequest request) {
+    var path = request.getRequestURI().substring(request.getContextPath().length());
+
+    if (!path.startsWith(BOOKS_PATH))
+      return true;
+
+    var rest = path.substring(BOOKS_PATH.length());
+    if (rest.startsWith("commands/") || rest.startsWith("search/"))
+      return false;
+
+    var separator = rest.indexOf('/');
+    var bookId = bookId(separator < 0 ? rest : rest.substring(0, separator));
+    if (bookId == null)
+      return true;
+
+    // Commands on an existing book, creating a draft is always saved right away
+    if (commandsQueued && separator >= 0 && "POST".equals(request.getMethod()))
+      return false;
+
+    return !(separator < 0 && "GET".equals(request.getMethod()) && booksQueryService.isCached(bookId));
+  }
+
+  private static BookId bookId(String segment) {
+    try {
+      return new BookId(UUID.fromString(segment));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
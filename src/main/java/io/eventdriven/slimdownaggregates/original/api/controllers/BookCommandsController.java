@@ -0,0 +1,51 @@
+package io.eventdriven.slimdownaggregates.original.api.controllers;
+
+import io.eventdriven.slimdownaggregates.original.application.books.BookCommandQueue;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CommandStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/books/commands")
+public class BookCommandsController {
+  private static final long MAX_WAIT_MS = 30_000;
+
+  private final Optional<BookCommandQueue> commandQueue;
+
+  public BookCommandsController(Optional<BookCommandQueue> commandQueue) {
+    this.commandQueue = commandQueue;
+  }
+
+  /**
+   * Status of an accepted command. With waitMs it's a long poll, answered once the command was processed
+   * or with its pending status when the wait is over.
+   */
+  @GetMapping("/{id}")
+  public CompletableFuture<ResponseEntity<CommandStatus>> status(
+    @PathVariable UUID id,
+    @RequestParam(defaultValue = "0") long waitMs
+  ) {
+    if (waitMs <= 0)
+      return CompletableFuture.completedFuture(
+        commandQueue.flatMap(queue -> queue.status(id))
+          .map(ResponseEntity::ok)
+          .orElse(ResponseEntity.notFound().build())
+      );
+
+    return commandQueue.flatMap(queue -> queue.completion(id))
+      // Waits on a copy, the timeout must not complete the command's own future
+      .map(completion -> completion.copy()
+        .completeOnTimeout(CommandStatus.pending(id), Math.min(waitMs, MAX_WAIT_MS), TimeUnit.MILLISECONDS)
+        .thenApply(ResponseEntity::ok))
+      .orElse(CompletableFuture.completedFuture(ResponseEntity.notFound().build()));
+  }
+}
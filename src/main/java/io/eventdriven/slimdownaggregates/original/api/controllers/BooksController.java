@@ -1,32 +1,55 @@
 package io.eventdriven.slimdownaggregates.original.api.controllers;
 
 import io.eventdriven.slimdownaggregates.original.api.requests.AddChapterRequest;
+import io.eventdriven.slimdownaggregates.original.api.requests.AddChaptersRequest;
 import io.eventdriven.slimdownaggregates.original.api.requests.CreateDraftRequest;
+import io.eventdriven.slimdownaggregates.original.api.responses.BookSummariesResponse;
+import io.eventdriven.slimdownaggregates.original.application.books.BookCommandQueue;
 import io.eventdriven.slimdownaggregates.original.application.books.BooksQueryService;
 import io.eventdriven.slimdownaggregates.original.application.books.BooksService;
 import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChapterCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChaptersCommand;
 import io.eventdriven.slimdownaggregates.original.application.books.commands.CreateDraftCommand;
 import io.eventdriven.slimdownaggregates.original.application.books.commands.MoveToEditingCommand;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
 import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummaryFilter;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
 import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/books")
 public class BooksController {
+  private static final int MAX_PAGE_SIZE = 500;
 
   private final BooksService booksService;
   private final BooksQueryService booksQueryService;
-
-  public BooksController(BooksService booksService, BooksQueryService booksQueryService) {
+  private final ObjectMapper objectMapper;
+  // Present in the asynchronous mode, commands are then only accepted and processed later
+  private final Optional<BookCommandQueue> commandQueue;
+
+  public BooksController(
+    BooksService booksService,
+    BooksQueryService booksQueryService,
+    ObjectMapper objectMapper,
+    Optional<BookCommandQueue> commandQueue
+  ) {
     this.booksService = booksService;
     this.booksQueryService = booksQueryService;
+    this.objectMapper = objectMapper;
+    this.commandQueue = commandQueue;
   }
 
   @PostMapping
@@ -56,24 +79,53 @@ public class BooksController {
   }
 
   @PostMapping("/{id}/chapters")
-  public ResponseEntity<Void> addChapter(@PathVariable UUID id, @RequestBody AddChapterRequest request) {
-    booksService.addChapter(
-      new AddChapterCommand(
-        new BookId(id),
-        new ChapterTitle(request.title()),
-        request.content() != null ? new ChapterContent(request.content()) : ChapterContent.empty
-      )
+  public ResponseEntity<UUID> addChapter(@PathVariable UUID id, @RequestBody AddChapterRequest request) {
+    var command = new AddChapterCommand(
+      new BookId(id),
+      new ChapterTitle(request.title()),
+      request.content() != null ? new ChapterContent(request.content()) : ChapterContent.empty
     );
 
+    if (commandQueue.isPresent())
+      return accepted(commandQueue.get().submit(command));
+
+    booksService.addChapter(command);
+
     return ResponseEntity.noContent().build();
   }
 
-  @PostMapping("/{id}/move-to-editing")
-  public ResponseEntity<Void> moveToEditing(@PathVariable UUID id) {
-    booksService.moveToEditing(
-      new MoveToEditingCommand(new BookId(id))
+  @PostMapping("/{id}/chapters/bulk")
+  public ResponseEntity<UUID> addChapters(@PathVariable UUID id, @RequestBody AddChaptersRequest request) {
+    if (request.chapters() == null || request.chapters().isEmpty() || request.chapters().contains(null))
+      return ResponseEntity.badRequest().build();
+
+    var command = new AddChaptersCommand(
+      new BookId(id),
+      request.chapters().stream()
+        .map(chapter -> new AddChaptersCommand.ChapterToAdd(
+          new ChapterTitle(chapter.title()),
+          chapter.content() != null ? new ChapterContent(chapter.content()) : ChapterContent.empty
+        ))
+        .toList()
     );
 
+    if (commandQueue.isPresent())
+      return accepted(commandQueue.get().submit(command));
+
+    booksService.addChapters(command);
+
+    return ResponseEntity.noContent().build();
+  }
+
+  @PostMapping("/{id}/move-to-editing")
+  public ResponseEntity<UUID> moveToEditing(@PathVariable UUID id) {
+    var command = new MoveToEditingCommand(new BookId(id));
+
+    if (commandQueue.isPresent())
+      return accepted(commandQueue.get().submit(command));
+
+    booksService.moveToEditing(command);
+
     return ResponseEntity.noContent().build();
   }
 
@@ -84,5 +136,62 @@ public class BooksController {
     return result.map(ResponseEntity::ok)
       .orElse(ResponseEntity.notFound().build());
   }
-}
 
+  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<BookSummariesResponse> findSummaries(
+    @RequestParam(required = false) Book.State currentState,
+    @RequestParam(required = false) String genre,
+    @RequestParam(required = false) UUID publisherId,
+    @RequestParam(required = false) UUID after,
+    @RequestParam(defaultValue = "50") int limit
+  ) {
+    var pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+    var items = booksQueryService.findSummaries(
+      filter(currentState, genre, publisherId),
+      after != null ? new BookId(after) : null,
+      pageSize
+    );
+    var next = items.size() == pageSize ? items.get(items.size() - 1).id() : null;
+
+    return ResponseEntity.ok(new BookSummariesResponse(items, next));
+  }
+
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamSummaries(
+    @RequestParam(required = false) Book.State currentState,
+    @RequestParam(required = false) String genre,
+    @RequestParam(required = false) UUID publisherId
+  ) {
+    var filter = filter(currentState, genre, publisherId);
+
+    // Each row is written as soon as it's read from the cursor
+    StreamingResponseBody body = output -> booksQueryService.streamSummaries(filter, summary -> {
+      try {
+        output.write(objectMapper.writeValueAsBytes(summary));
+        output.write('\n');
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(body);
+  }
+
+  private static ResponseEntity<UUID> accepted(UUID commandId) {
+    return ResponseEntity
+      .accepted()
+      .location(URI.create("api/books/commands/%s".formatted(commandId)))
+      .body(commandId);
+  }
+
+  private static BookSummaryFilter filter(Book.State currentState, String genre, UUID publisherId) {
+    return new BookSummaryFilter(
+      currentState,
+      genre != null ? new Genre(genre) : null,
+      publisherId != null ? new PublisherId(publisherId) : null
+    );
+  }
+}
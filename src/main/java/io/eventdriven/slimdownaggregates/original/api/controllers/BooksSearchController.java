@@ -0,0 +1,41 @@
+package io.eventdriven.slimdownaggregates.original.api.controllers;
+
+import io.eventdriven.slimdownaggregates.original.application.books.BooksQueryService;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.ChapterSearchResult;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/books/search")
+public class BooksSearchController {
+  private static final int MAX_RESULTS = 100;
+  // The index is served by a single node, another one may take it over once restarted
+  private static final String RETRY_AFTER_SECONDS = "30";
+
+  private final BooksQueryService booksQueryService;
+
+  public BooksSearchController(BooksQueryService booksQueryService) {
+    this.booksQueryService = booksQueryService;
+  }
+
+  @GetMapping("/chapters")
+  public ResponseEntity<List<ChapterSearchResult>> searchChapters(
+    @RequestParam String query,
+    @RequestParam(defaultValue = "20") int limit
+  ) {
+    return booksQueryService.searchChapters(query, Math.max(1, Math.min(limit, MAX_RESULTS)))
+      .map(ResponseEntity::ok)
+      .orElse(
+        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+          .build()
+      );
+  }
+}
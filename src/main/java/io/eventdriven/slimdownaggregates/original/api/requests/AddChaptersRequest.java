@@ -0,0 +1,6 @@
+package io.eventdriven.slimdownaggregates.original.api.requests;
+
+import java.util.List;
+
+public record AddChaptersRequest(List<AddChapterRequest> chapters) {
+}
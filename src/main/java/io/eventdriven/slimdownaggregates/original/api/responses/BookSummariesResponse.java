@@ -0,0 +1,12 @@
+package io.eventdriven.slimdownaggregates.original.api.responses;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummary;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Page of the books listing, next is the id to pass as after to get the following page (null on the last one).
+ */
+public record BookSummariesResponse(List<BookSummary> items, UUID next) {
+}
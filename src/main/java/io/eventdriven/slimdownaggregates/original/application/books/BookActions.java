@@ -0,0 +1,65 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.application.books.commands.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+
+import java.util.function.Consumer;
+
+/**
+ * Commands on existing books as actions on the loaded book, for the executors applying several commands per load.
+ */
+final class BookActions {
+  private BookActions() {
+  }
+
+  static BookId bookIdOf(Object command) {
+    if (command instanceof AddChapterCommand c) return c.bookId();
+    if (command instanceof AddChaptersCommand c) return c.bookId();
+    if (command instanceof MoveToEditingCommand c) return c.bookId();
+    if (command instanceof AddTranslationCommand c) return c.bookId();
+    if (command instanceof AddFormatCommand c) return c.bookId();
+    if (command instanceof RemoveFormatCommand c) return c.bookId();
+    if (command instanceof AddReviewerCommand c) return c.bookId();
+    if (command instanceof ApproveCommand c) return c.bookId();
+    if (command instanceof SetISBNCommand c) return c.bookId();
+    if (command instanceof MoveToPublishedCommand c) return c.bookId();
+    if (command instanceof MoveToPrintingCommand c) return c.bookId();
+    if (command instanceof MoveToOutOfPrintCommand c) return c.bookId();
+
+    throw new IllegalArgumentException("Unknown command type: " + command.getClass().getName());
+  }
+
+  static Consumer<Book> of(Object command) {
+    if (command instanceof AddChapterCommand c)
+      return book -> book.addChapter(c.title(), c.content());
+    if (command instanceof AddChaptersCommand c)
+      return book -> {
+        for (var chapter : c.chapters()) {
+          book.addChapter(chapter.title(), chapter.content());
+        }
+      };
+    if (command instanceof MoveToEditingCommand)
+      return Book::moveToEditing;
+    if (command instanceof AddTranslationCommand c)
+      return book -> book.addTranslation(c.translation());
+    if (command instanceof AddFormatCommand c)
+      return book -> book.addFormat(c.format());
+    if (command instanceof RemoveFormatCommand c)
+      return book -> book.removeFormat(c.format());
+    if (command instanceof AddReviewerCommand c)
+      return book -> book.addReviewer(c.reviewer());
+    if (command instanceof ApproveCommand c)
+      return book -> book.approve(c.committeeApproval());
+    if (command instanceof SetISBNCommand c)
+      return book -> book.setISBN(c.isbn());
+    if (command instanceof MoveToPublishedCommand)
+      return Book::moveToPublished;
+    if (command instanceof MoveToPrintingCommand)
+      return Book::moveToPrinting;
+    if (command instanceof MoveToOutOfPrintCommand)
+      return Book::moveToOutOfPrint;
+
+    throw new IllegalArgumentException("Unknown command type: " + command.getClass().getName());
+  }
+}
@@ -0,0 +1,92 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Applies several commands to a book loaded once and saves it in one transaction.
+ * A command rejected by the book fails alone, the accepted ones are still saved.
+ */
+class BookCommandBatch {
+  private final BooksRepository repository;
+  private final TransactionTemplate transactionTemplate;
+
+  BookCommandBatch(BooksRepository repository, TransactionTemplate transactionTemplate) {
+    this.repository = repository;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  /**
+   * Returns the rejection of each command, null for the accepted ones. Throws when the batch as a whole failed,
+   * e.g. the transaction couldn't commit, then none of the commands were saved.
+   */
+  List<RuntimeException> execute(BookId bookId, List<Consumer<Book>> commands) {
+    return execute(Map.of(bookId, commands)).get(bookId);
+  }
+
+  /**
+   * Same for several books, all saved in one transaction.
+   */
+  Map<BookId, List<RuntimeException>> execute(Map<BookId, List<Consumer<Book>>> commandsByBook) {
+    var rejections = new HashMap<BookId, List<RuntimeException>>(commandsByBook.size() * 2);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      for (var entry : commandsByBook.entrySet()) {
+        rejections.put(entry.getKey(), apply(entry.getKey(), entry.getValue()));
+      }
+    });
+
+    return rejections;
+  }
+
+  private List<RuntimeException> apply(BookId bookId, List<Consumer<Book>> commands) {
+    var rejections = new RuntimeException[commands.size()];
+    var loaded = repository.findById(bookId);
+
+    if (loaded.isEmpty()) {
+      Arrays.fill(rejections, new IllegalStateException("Book doesn't exist"));
+      return Arrays.asList(rejections);
+    }
+
+    var book = loaded.get();
+    var accepted = new ArrayList<Consumer<Book>>(commands.size());
+
+    for (int i = 0; i < commands.size(); i++) {
+      var command = commands.get(i);
+      var events = book.getDomainEvents().size();
+      try {
+        command.accept(book);
+        accepted.add(command);
+      } catch (RuntimeException e) {
+        rejections[i] = e;
+
+        if (book.getDomainEvents().size() != events) {
+          // Rejected halfway, start over from the stored book with the commands accepted so far
+          book = load(bookId);
+          for (var previous : accepted) {
+            previous.accept(book);
+          }
+        }
+      }
+    }
+
+    if (!accepted.isEmpty())
+      repository.update(book);
+
+    return Arrays.asList(rejections);
+  }
+
+  private Book load(BookId bookId) {
+    return repository.findById(bookId)
+      .orElseThrow(() -> new IllegalStateException("Book doesn't exist"));
+  }
+}
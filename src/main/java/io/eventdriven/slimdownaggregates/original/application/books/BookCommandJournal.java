@@ -0,0 +1,29 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CommandStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Durable log of the commands accepted for asynchronous processing and of their outcomes.
+ */
+public interface BookCommandJournal {
+  /**
+   * Returns once the command is durably stored.
+   */
+  void append(UUID commandId, Object command);
+
+  void complete(List<CommandStatus> outcomes);
+
+  /**
+   * Commands without a recorded outcome, in the order they were accepted.
+   */
+  List<PendingCommand> pending();
+
+  Optional<CommandStatus> status(UUID commandId);
+
+  record PendingCommand(UUID commandId, Object command) {
+  }
+}
@@ -0,0 +1,19 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CommandStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcomes saved in the transaction of the commands' book changes. They're kept until the outcomes are journaled,
+ * so a command replayed after a crash in between is answered with its outcome instead of running again.
+ */
+public interface BookCommandOutcomes {
+  List<CommandStatus> find(Collection<UUID> commandIds);
+
+  void save(List<CommandStatus> outcomes);
+
+  void delete(Collection<UUID> commandIds);
+}
@@ -0,0 +1,280 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.application.books.BookCommandJournal.PendingCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CommandStatus;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts book commands for asynchronous processing. A command is acknowledged once it's in the journal,
+ * the request doesn't wait for the database.
+ * <p>
+ * A dispatcher takes the queued commands in batches and groups them by book. Groups of different books run
+ * in parallel, commands of a book are applied in order to the book loaded once and saved in one transaction.
+ * Outcomes of a batch are journaled together. Commands without a journaled outcome are processed again
+ * after a restart. Outcomes are also saved with the book changes until they're journaled, so a command saved
+ * before a crash is answered with its saved outcome instead of running again.
+ * <p>
+ * Only commands rejected by their book are failed. When saving fails for another reason the commands are
+ * retried a few times, then left pending in the journal. The book is parked until restart, its later commands
+ * stay pending behind them so they're still applied in order.
+ */
+public class BookCommandQueue implements SmartLifecycle {
+  private static final Logger logger = LoggerFactory.getLogger(BookCommandQueue.class);
+  private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+  private static final int MAX_ATTEMPTS = 5;
+  private static final Duration RETRY_DELAY = Duration.ofMillis(100);
+
+  private final BookCommandJournal journal;
+  private final BookCommandOutcomes savedOutcomes;
+  private final BookCommandBatch commandBatch;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final ThreadFactory workerThreadFactory;
+  private final LinkedBlockingQueue<PendingCommand> queue = new LinkedBlockingQueue<>();
+  // Completions of the commands not processed yet, completed ones are read from the journal
+  private final ConcurrentHashMap<UUID, CompletableFuture<CommandStatus>> completions = new ConcurrentHashMap<>();
+  // Only replayed commands may have been saved already, new ones aren't looked up
+  private final Set<UUID> replayed;
+  // Books whose commands failed to save, used by the dispatcher thread only
+  private final Set<BookId> parked = new HashSet<>();
+
+  private volatile boolean running;
+  private Thread dispatcher;
+  private ExecutorService workers;
+
+  public BookCommandQueue(
+    BookCommandJournal journal,
+    BookCommandOutcomes savedOutcomes,
+    BooksRepository repository,
+    TransactionTemplate transactionTemplate,
+    int batchSize,
+    ThreadFactory workerThreadFactory
+  ) {
+    this.journal = journal;
+    this.savedOutcomes = savedOutcomes;
+    this.commandBatch = new BookCommandBatch(repository, transactionTemplate);
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.workerThreadFactory = workerThreadFactory;
+
+    // Commands accepted before a restart are queued ahead of any new one
+    var replayed = new HashSet<UUID>();
+    for (var pending : journal.pending()) {
+      completions.put(pending.commandId(), new CompletableFuture<>());
+      queue.add(pending);
+      replayed.add(pending.commandId());
+    }
+    this.replayed = Set.copyOf(replayed);
+  }
+
+  public UUID submit(Object command) {
+    var commandId = UUID.randomUUID();
+    journal.append(commandId, command);
+
+    completions.put(commandId, new CompletableFuture<>());
+    queue.add(new PendingCommand(commandId, command));
+
+    return commandId;
+  }
+
+  public Optional<CommandStatus> status(UUID commandId) {
+    var completion = completions.get(commandId);
+
+    if (completion != null)
+      return Optional.of(completion.getNow(CommandStatus.pending(commandId)));
+
+    return journal.status(commandId);
+  }
+
+  /**
+   * Completes once the command was processed, empty for unknown commands.
+   */
+  public Optional<CompletableFuture<CommandStatus>> completion(UUID commandId) {
+    var completion = completions.get(commandId);
+
+    if (completion != null)
+      return Optional.of(completion);
+
+    return journal.status(commandId).map(CompletableFuture::completedFuture);
+  }
+
+  @Override
+  public synchronized void start() {
+    if (running)
+      return;
+
+    running = true;
+    workers = Executors.newCachedThreadPool(workerThreadFactory);
+    dispatcher = new Thread(this::dispatch, "book-commands-dispatcher");
+    dispatcher.start();
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (!running)
+      return;
+
+    // The batch in progress is finished, the rest stays in the journal for the next start
+    running = false;
+    try {
+      dispatcher.join(TimeUnit.SECONDS.toMillis(30));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    workers.shutdown();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void dispatch() {
+    while (running) {
+      var batch = new ArrayList<PendingCommand>(batchSize);
+      try {
+        var first = queue.poll(POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null)
+          continue;
+        batch.add(first);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      queue.drainTo(batch, batchSize - 1);
+
+      try {
+        process(batch);
+      } catch (RuntimeException e) {
+        logger.error("Processing of book commands failed, they'll be retried after restart", e);
+      }
+    }
+  }
+
+  private void process(List<PendingCommand> batch) {
+    var byBook = new LinkedHashMap<BookId, List<PendingCommand>>();
+    for (var command : batch) {
+      var bookId = BookActions.bookIdOf(command.command());
+
+      // Stays pending in the journal, replayed after the parked ones on restart
+      if (parked.contains(bookId))
+        continue;
+
+      byBook.computeIfAbsent(bookId, id -> new ArrayList<>()).add(command);
+    }
+
+    var executions = new LinkedHashMap<BookId, CompletableFuture<List<CommandStatus>>>();
+    for (var group : byBook.entrySet()) {
+      executions.put(group.getKey(), CompletableFuture.supplyAsync(() -> execute(group.getKey(), group.getValue()), workers));
+    }
+
+    var outcomes = new ArrayList<CommandStatus>(batch.size());
+    for (var execution : executions.entrySet()) {
+      var bookOutcomes = execution.getValue().join();
+
+      if (bookOutcomes == null) {
+        parked.add(execution.getKey());
+      } else {
+        outcomes.addAll(bookOutcomes);
+      }
+    }
+
+    if (outcomes.isEmpty())
+      return;
+
+    journal.complete(outcomes);
+
+    for (var outcome : outcomes) {
+      var completion = completions.remove(outcome.commandId());
+      if (completion != null)
+        completion.complete(outcome);
+    }
+
+    var commandIds = outcomes.stream().map(CommandStatus::commandId).toList();
+    try {
+      transactionTemplate.executeWithoutResult(status -> savedOutcomes.delete(commandIds));
+    } catch (RuntimeException e) {
+      // Journaled commands aren't replayed, leftover outcomes only take space
+      logger.warn("Cannot delete saved outcomes of journaled book commands", e);
+    }
+  }
+
+  /**
+   * Returns the outcomes in the order of the commands, null when they couldn't be saved.
+   */
+  private List<CommandStatus> execute(BookId bookId, List<PendingCommand> commands) {
+    var retryDelay = RETRY_DELAY;
+
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transactionTemplate.execute(status -> executeOnce(bookId, commands));
+      } catch (RuntimeException e) {
+        // The batch as a whole failed, e.g. the database is unavailable or the book was changed concurrently
+        if (attempt == MAX_ATTEMPTS || !running) {
+          logger.error("Book commands of {} failed {} times, the book is parked until restart", bookId, attempt, e);
+          return null;
+        }
+        logger.warn("Book commands of {} failed, retrying in {}", bookId, retryDelay, e);
+      }
+
+      try {
+        Thread.sleep(retryDelay.toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      retryDelay = retryDelay.multipliedBy(2);
+    }
+  }
+
+  private List<CommandStatus> executeOnce(BookId bookId, List<PendingCommand> commands) {
+    var outcomes = new HashMap<UUID, CommandStatus>(commands.size() * 2);
+
+    // Saved before a crash that came ahead of journaling their outcomes, running them again could fail them
+    var replayedIds = commands.stream().map(PendingCommand::commandId).filter(replayed::contains).toList();
+    if (!replayedIds.isEmpty()) {
+      for (var saved : savedOutcomes.find(replayedIds)) {
+        outcomes.put(saved.commandId(), saved);
+      }
+    }
+
+    var toRun = commands.stream().filter(c -> !outcomes.containsKey(c.commandId())).toList();
+    if (!toRun.isEmpty()) {
+      var rejections = commandBatch.execute(bookId, toRun.stream().map(c -> BookActions.of(c.command())).toList());
+
+      // Only commands rejected by the book are failed, nothing would change if they ran again
+      var runOutcomes = new ArrayList<CommandStatus>(toRun.size());
+      for (int i = 0; i < toRun.size(); i++) {
+        var commandId = toRun.get(i).commandId();
+        var rejection = rejections.get(i);
+        runOutcomes.add(rejection == null ? CommandStatus.succeeded(commandId) : CommandStatus.failed(commandId, rejection.getMessage()));
+      }
+      savedOutcomes.save(runOutcomes);
+      runOutcomes.forEach(outcome -> outcomes.put(outcome.commandId(), outcome));
+    }
+
+    return commands.stream().map(c -> outcomes.get(c.commandId())).toList();
+  }
+}
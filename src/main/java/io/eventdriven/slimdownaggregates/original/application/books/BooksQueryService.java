@@ -1,10 +1,21 @@
 package io.eventdriven.slimdownaggregates.original.application.books;
 
 import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetails;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummary;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummaryFilter;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.ChapterSearchResult;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BooksQueryService {
   Optional<BookDetails> findDetailsById(BookId bookId);
+
+  List<BookSummary> findSummaries(BookSummaryFilter filter, BookId after, int limit);
+
+  void streamSummaries(BookSummaryFilter filter, Consumer<BookSummary> consumer);
+
+  Optional<List<ChapterSearchResult>> searchChapters(String query, int limit);
 }
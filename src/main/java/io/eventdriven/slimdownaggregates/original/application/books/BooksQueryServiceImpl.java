@@ -1,10 +1,16 @@
 package io.eventdriven.slimdownaggregates.original.application.books;
 
 import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetails;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummary;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummaryFilter;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.ChapterSearchResult;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
 import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksQueryRepository;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.ChaptersSearchRepository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class BooksQueryServiceImpl implements BooksQueryService{
   @Override
@@ -12,9 +18,26 @@ public class BooksQueryServiceImpl implements BooksQueryService{
     return repository.findDetailsById(bookId);
   }
 
-  public BooksQueryServiceImpl(BooksQueryRepository repository) {
+  @Override
+  public List<BookSummary> findSummaries(BookSummaryFilter filter, BookId after, int limit) {
+    return repository.findSummaries(filter, after, limit);
+  }
+
+  @Override
+  public void streamSummaries(BookSummaryFilter filter, Consumer<BookSummary> consumer) {
+    repository.streamSummaries(filter, consumer);
+  }
+
+  @Override
+  public Optional<List<ChapterSearchResult>> searchChapters(String query, int limit) {
+    return chaptersSearchRepository.search(query, limit);
+  }
+
+  public BooksQueryServiceImpl(BooksQueryRepository repository, ChaptersSearchRepository chaptersSearchRepository) {
     this.repository = repository;
+    this.chaptersSearchRepository = chaptersSearchRepository;
   }
 
   private final BooksQueryRepository repository;
+  private final ChaptersSearchRepository chaptersSearchRepository;
 }
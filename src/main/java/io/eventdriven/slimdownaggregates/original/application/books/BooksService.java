@@ -5,6 +5,7 @@ import io.eventdriven.slimdownaggregates.original.application.books.commands.*;
 public interface BooksService {
   void createDraft(CreateDraftCommand command);
   void addChapter(AddChapterCommand command);
+  void addChapters(AddChaptersCommand command);
   void moveToEditing(MoveToEditingCommand command);
 
   void addTranslation(AddTranslationCommand command);
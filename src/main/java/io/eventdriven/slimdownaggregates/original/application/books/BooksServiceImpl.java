@@ -6,7 +6,9 @@ import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorPro
 import io.eventdriven.slimdownaggregates.original.domain.books.publishers.PublisherProvider;
 import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
 import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
+import org.springframework.transaction.annotation.Transactional;
 
+@Transactional
 public class BooksServiceImpl implements BooksService {
   @Override
   public void createDraft(CreateDraftCommand command) {
@@ -33,6 +35,18 @@ public class BooksServiceImpl implements BooksService {
     repository.update(book);
   }
 
+  @Override
+  public void addChapters(AddChaptersCommand command) {
+    var book = repository.findById(command.bookId())
+      .orElseThrow(() -> new IllegalStateException("Book doesn't exist"));
+
+    for (var chapter : command.chapters()) {
+      book.addChapter(chapter.title(), chapter.content());
+    }
+
+    repository.update(book);
+  }
+
   @Override
   public void moveToEditing(MoveToEditingCommand command) {
     var book = repository.findById(command.bookId())
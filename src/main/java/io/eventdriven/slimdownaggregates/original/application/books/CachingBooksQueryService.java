@@ -0,0 +1,116 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetails;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetailsChanged;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummary;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummaryFilter;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.ChapterSearchResult;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Caches book details in memory, bounded by their estimated size with Caffeine's frequency-aware (W-TinyLFU) eviction.
+ * Entries are invalidated once the transaction updating the book details commits. Invalidation waits for
+ * a load of the same book in progress, so a value read before the commit can't outlive it.
+ * That only happens on the node projecting the change, other nodes serve their entry until it expires.
+ */
+public class CachingBooksQueryService implements BooksQueryService {
+  // Rough size of the record, its nested objects and string headers
+  private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+  private final BooksQueryService inner;
+  private final Cache<BookId, BookDetails> cache;
+
+  public CachingBooksQueryService(BooksQueryService inner, long maximumSizeBytes, Duration expireAfterWrite, MeterRegistry meterRegistry) {
+    this(inner, maximumSizeBytes, expireAfterWrite, Ticker.systemTicker(), meterRegistry);
+  }
+
+  // Package-private so tests can move the time on
+  CachingBooksQueryService(
+    BooksQueryService inner,
+    long maximumSizeBytes,
+    Duration expireAfterWrite,
+    Ticker ticker,
+    MeterRegistry meterRegistry
+  ) {
+    this.inner = inner;
+    this.cache = Caffeine.newBuilder()
+      .maximumWeight(maximumSizeBytes)
+      .weigher((BookId bookId, BookDetails details) -> estimateSize(details))
+      .expireAfterWrite(expireAfterWrite)
+      .ticker(ticker)
+      .recordStats()
+      .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "books.details");
+    Gauge.builder("books.details.cache.hit.ratio", cache, c -> c.stats().hitRate())
+      .register(meterRegistry);
+    Gauge.builder("books.details.cache.estimated.size", cache,
+        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+      .baseUnit("bytes")
+      .register(meterRegistry);
+  }
+
+  @Override
+  public Optional<BookDetails> findDetailsById(BookId bookId) {
+    // Missing books aren't cached, the loader returning null leaves no entry
+    return Optional.ofNullable(cache.get(bookId, id -> inner.findDetailsById(id).orElse(null)));
+  }
+
+  /**
+   * Whether the details are cached, without loading them or counting a hit or miss.
+   */
+  public boolean isCached(BookId bookId) {
+    return cache.asMap().containsKey(bookId);
+  }
+
+  // Listings and searches aren't cached, they're served by their own indexes
+
+  @Override
+  public List<BookSummary> findSummaries(BookSummaryFilter filter, BookId after, int limit) {
+    return inner.findSummaries(filter, after, limit);
+  }
+
+  @Override
+  public void streamSummaries(BookSummaryFilter filter, Consumer<BookSummary> consumer) {
+    inner.streamSummaries(filter, consumer);
+  }
+
+  @Override
+  public Optional<List<ChapterSearchResult>> searchChapters(String query, int limit) {
+    return inner.searchChapters(query, limit);
+  }
+
+  @TransactionalEventListener
+  public void on(BookDetailsChanged event) {
+    cache.invalidate(event.bookId());
+  }
+
+  private static int estimateSize(BookDetails details) {
+    long chars = length(details.title()) + length(details.publisherName()) + length(details.summary());
+
+    for (var chapter : details.chapters()) {
+      chars += length(chapter.title());
+    }
+    for (var reviewer : details.reviewers()) {
+      chars += length(reviewer);
+    }
+
+    return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD_BYTES + 2 * chars);
+  }
+
+  private static int length(String value) {
+    return value != null ? value.length() : 0;
+  }
+}
@@ -0,0 +1,270 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.application.books.commands.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Commits commands arriving close together in one transaction, whichever books they touch, so small commands
+ * share a commit instead of paying for one each. Commands are collected for a short window or until the batch
+ * is full, each is applied to its own book and all the books are saved together.
+ * <p>
+ * A command rejected by its book fails alone. When the shared transaction can't commit, e.g. a book was changed
+ * concurrently, the books are committed again one transaction each, so only the commands of the failing book fail.
+ */
+public class GroupCommitBooksService implements BooksService, AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(GroupCommitBooksService.class);
+
+  private final BooksService inner;
+  private final TransactionTemplate transactionTemplate;
+  private final BookCommandBatch commandBatch;
+  private final Duration window;
+  private final int maxBatchSize;
+  private final LinkedBlockingQueue<QueuedCommand> queue = new LinkedBlockingQueue<>();
+  private final Thread committer;
+  // Submitting checks and queues under the read lock, so nothing is queued once stopping was seen by the committer
+  private final ReentrantReadWriteLock stopLock = new ReentrantReadWriteLock();
+
+  private volatile boolean running = true;
+
+  public GroupCommitBooksService(
+    BooksService inner,
+    BooksRepository repository,
+    TransactionTemplate transactionTemplate,
+    Duration window,
+    int maxBatchSize,
+    ThreadFactory committerThreadFactory
+  ) {
+    this.inner = inner;
+    this.transactionTemplate = transactionTemplate;
+    this.commandBatch = new BookCommandBatch(repository, transactionTemplate);
+    this.window = window;
+    this.maxBatchSize = maxBatchSize;
+    this.committer = committerThreadFactory.newThread(this::commitLoop);
+    this.committer.start();
+  }
+
+  @Override
+  public void createDraft(CreateDraftCommand command) {
+    // Creates a new book, nothing to group it with.
+    // The inner service isn't a Spring proxy, so its transaction is opened here
+    transactionTemplate.executeWithoutResult(status -> inner.createDraft(command));
+  }
+
+  @Override
+  public void addChapter(AddChapterCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void addChapters(AddChaptersCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void moveToEditing(MoveToEditingCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void addTranslation(AddTranslationCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void addFormat(AddFormatCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void removeFormat(RemoveFormatCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void addReviewer(AddReviewerCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void approve(ApproveCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void setISBN(SetISBNCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void moveToPublished(MoveToPublishedCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void moveToPrinting(MoveToPrintingCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void moveToOutOfPrint(MoveToOutOfPrintCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void close() {
+    stop();
+    try {
+      committer.join(TimeUnit.SECONDS.toMillis(30));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void stop() {
+    stopLock.writeLock().lock();
+    try {
+      running = false;
+    } finally {
+      stopLock.writeLock().unlock();
+    }
+  }
+
+  private void submit(Object command) {
+    var queued = new QueuedCommand(BookActions.bookIdOf(command), BookActions.of(command), new CompletableFuture<>());
+
+    stopLock.readLock().lock();
+    try {
+      if (!running)
+        throw new IllegalStateException("Group commit is stopped");
+
+      queue.add(queued);
+    } finally {
+      stopLock.readLock().unlock();
+    }
+
+    try {
+      queued.result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause)
+        throw cause;
+      throw e;
+    }
+  }
+
+  private void commitLoop() {
+    try {
+      commitUntilStopped();
+    } finally {
+      // Left when interrupted, their callers would wait forever
+      stop();
+      var left = new ArrayList<QueuedCommand>();
+      queue.drainTo(left);
+      fail(left, new IllegalStateException("Group commit is stopped"));
+    }
+  }
+
+  private void commitUntilStopped() {
+    // Keeps committing what was queued before stopping
+    while (running || !queue.isEmpty()) {
+      try {
+        var first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null)
+          continue;
+
+        var batch = new ArrayList<QueuedCommand>(maxBatchSize);
+        batch.add(first);
+
+        // The window starts with the first command, a full batch is committed right away
+        var deadline = System.nanoTime() + window.toNanos();
+        while (batch.size() < maxBatchSize) {
+          var remaining = deadline - System.nanoTime();
+          if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0)
+            continue;
+          if (remaining <= 0)
+            break;
+
+          var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null)
+            break;
+          batch.add(next);
+        }
+
+        commit(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void commit(List<QueuedCommand> batch) {
+    var byBook = new LinkedHashMap<BookId, List<QueuedCommand>>();
+    for (var command : batch) {
+      byBook.computeIfAbsent(command.bookId, id -> new ArrayList<>()).add(command);
+    }
+
+    try {
+      var rejections = commandBatch.execute(actionsOf(byBook));
+      byBook.forEach((bookId, commands) -> complete(commands, rejections.get(bookId)));
+    } catch (RuntimeException groupFailure) {
+      if (byBook.size() == 1) {
+        fail(batch, groupFailure);
+        return;
+      }
+
+      logger.debug("Group commit failed, committing books one by one", groupFailure);
+      byBook.forEach((bookId, commands) -> {
+        try {
+          complete(commands, commandBatch.execute(bookId, commands.stream().map(QueuedCommand::action).toList()));
+        } catch (RuntimeException e) {
+          fail(commands, e);
+        }
+      });
+    } catch (Throwable e) {
+      fail(batch, e);
+    }
+  }
+
+  private static Map<BookId, List<Consumer<Book>>> actionsOf(Map<BookId, List<QueuedCommand>> byBook) {
+    var actions = new LinkedHashMap<BookId, List<Consumer<Book>>>(byBook.size() * 2);
+    byBook.forEach((bookId, commands) -> actions.put(bookId, commands.stream().map(QueuedCommand::action).toList()));
+    return actions;
+  }
+
+  private static void complete(List<QueuedCommand> commands, List<RuntimeException> rejections) {
+    for (int i = 0; i < commands.size(); i++) {
+      if (rejections.get(i) != null) {
+        commands.get(i).result.completeExceptionally(rejections.get(i));
+      } else {
+        commands.get(i).result.complete(null);
+      }
+    }
+  }
+
+  private static void fail(List<QueuedCommand> commands, Throwable e) {
+    for (var command : commands) {
+      command.result.completeExceptionally(e);
+    }
+  }
+
+  private record QueuedCommand(BookId bookId, Consumer<Book> action, CompletableFuture<Void> result) {
+  }
+}
@@ -0,0 +1,257 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.application.books.commands.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs commands of a book one at a time in a mailbox drained by a single worker, so commands of the same book
+ * queue up instead of failing each other on the optimistic lock. Commands of different books run in parallel.
+ * <p>
+ * Commands queued together are applied to the book loaded once and saved in one transaction. A rejected command
+ * fails alone, the others of the batch are still saved. Only serialises writers within this process,
+ * the optimistic lock still guards against other instances.
+ * <p>
+ * Mailboxes are drained by a fixed number of workers, one batch at a time, so a busy book doesn't keep
+ * the others waiting.
+ */
+public class MailboxBooksService implements BooksService, AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(MailboxBooksService.class);
+
+  private final BooksService inner;
+  private final TransactionTemplate transactionTemplate;
+  private final BookCommandBatch commandBatch;
+  private final int maxBatchSize;
+  private final ExecutorService workers;
+  private final ConcurrentHashMap<BookId, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+  public MailboxBooksService(
+    BooksService inner,
+    BooksRepository repository,
+    TransactionTemplate transactionTemplate,
+    int maxBatchSize,
+    int workersCount,
+    ThreadFactory workerThreadFactory
+  ) {
+    this.inner = inner;
+    this.transactionTemplate = transactionTemplate;
+    this.commandBatch = new BookCommandBatch(repository, transactionTemplate);
+    this.maxBatchSize = maxBatchSize;
+    // Mailboxes waiting for a worker queue up, each holds at most one task there
+    var pool = new ThreadPoolExecutor(
+      workersCount, workersCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), workerThreadFactory
+    );
+    pool.allowCoreThreadTimeOut(true);
+    this.workers = pool;
+  }
+
+  @Override
+  public void createDraft(CreateDraftCommand command) {
+    // Goes through the mailbox to keep its order with the following commands, but runs on its own.
+    // The inner service isn't a Spring proxy, so its transaction is opened here
+    await(enqueue(command.bookId(), null, () -> transactionTemplate.executeWithoutResult(status -> inner.createDraft(command))));
+  }
+
+  @Override
+  public void addChapter(AddChapterCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void addChapters(AddChaptersCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void moveToEditing(MoveToEditingCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void addTranslation(AddTranslationCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void addFormat(AddFormatCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void removeFormat(RemoveFormatCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void addReviewer(AddReviewerCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void approve(ApproveCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void setISBN(SetISBNCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void moveToPublished(MoveToPublishedCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void moveToPrinting(MoveToPrintingCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void moveToOutOfPrint(MoveToOutOfPrintCommand command) {
+    submit(command);
+  }
+
+  @Override
+  public void close() {
+    workers.shutdown();
+    try {
+      workers.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void submit(Object command) {
+    await(enqueue(BookActions.bookIdOf(command), BookActions.of(command), null));
+  }
+
+  private CompletableFuture<Void> enqueue(BookId bookId, Consumer<Book> action, Runnable standalone) {
+    var command = new QueuedCommand(action, standalone, new CompletableFuture<>());
+
+    // Adding to the mailbox and removing the drained one are atomic for the book, so a command is never left behind
+    mailboxes.compute(bookId, (id, mailbox) -> {
+      if (mailbox == null) {
+        mailbox = new Mailbox(id);
+        var started = mailbox;
+        workers.execute(() -> drain(started));
+      }
+      mailbox.queue.add(command);
+      return mailbox;
+    });
+
+    return command.result;
+  }
+
+  private void drain(Mailbox mailbox) {
+    while (true) {
+      var batch = new ArrayList<QueuedCommand>();
+      for (QueuedCommand command; batch.size() < maxBatchSize && (command = mailbox.queue.poll()) != null; ) {
+        batch.add(command);
+      }
+
+      if (!batch.isEmpty())
+        process(mailbox.bookId, batch);
+
+      mailboxes.computeIfPresent(mailbox.bookId, (id, current) -> current == mailbox && current.queue.isEmpty() ? null : current);
+      if (mailboxes.get(mailbox.bookId) != mailbox)
+        return;
+
+      // More commands arrived, drained again behind the mailboxes already waiting so a busy book doesn't hold the worker
+      try {
+        workers.execute(() -> drain(mailbox));
+        return;
+      } catch (RejectedExecutionException e) {
+        // Closing, the commands already queued are still run on this worker
+      }
+    }
+  }
+
+  private void process(BookId bookId, List<QueuedCommand> batch) {
+    var from = 0;
+    while (from < batch.size()) {
+      var command = batch.get(from);
+
+      if (command.standalone != null) {
+        run(bookId, List.of(command), () -> {
+          command.standalone.run();
+          command.result.complete(null);
+        });
+        from++;
+        continue;
+      }
+
+      var to = from;
+      while (to < batch.size() && batch.get(to).standalone == null) {
+        to++;
+      }
+
+      var commands = batch.subList(from, to);
+      run(bookId, commands, () -> {
+        var rejections = commandBatch.execute(bookId, commands.stream().map(QueuedCommand::action).toList());
+
+        // Accepted commands only succeed once their transaction committed
+        for (int i = 0; i < commands.size(); i++) {
+          if (rejections.get(i) != null) {
+            commands.get(i).result.completeExceptionally(rejections.get(i));
+          } else {
+            commands.get(i).result.complete(null);
+          }
+        }
+      });
+      from = to;
+    }
+  }
+
+  private void run(BookId bookId, List<QueuedCommand> commands, Runnable execution) {
+    try {
+      execution.run();
+    } catch (Throwable e) {
+      logger.warn("Book commands of {} failed", bookId, e);
+      for (var command : commands) {
+        command.result.completeExceptionally(e);
+      }
+    }
+  }
+
+  private static void await(CompletableFuture<Void> result) {
+    try {
+      result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause)
+        throw cause;
+      throw e;
+    }
+  }
+
+  private record QueuedCommand(Consumer<Book> action, Runnable standalone, CompletableFuture<Void> result) {
+  }
+
+  private static class Mailbox {
+    private final BookId bookId;
+    private final Queue<QueuedCommand> queue = new ConcurrentLinkedQueue<>();
+
+    Mailbox(BookId bookId) {
+      this.bookId = bookId;
+    }
+  }
+}
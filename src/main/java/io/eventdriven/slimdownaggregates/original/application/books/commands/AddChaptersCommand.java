@@ -0,0 +1,13 @@
+package io.eventdriven.slimdownaggregates.original.application.books.commands;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+
+import java.util.List;
+
+public record AddChaptersCommand(
+  BookId bookId,
+  List<ChapterToAdd> chapters
+) {
+  public record ChapterToAdd(ChapterTitle title, ChapterContent content) {
+  }
+}
@@ -0,0 +1,26 @@
+package io.eventdriven.slimdownaggregates.original.application.books.commands;
+
+import java.util.UUID;
+
+/**
+ * Outcome of a command accepted for asynchronous processing, error holds the reason of a rejected command.
+ */
+public record CommandStatus(UUID commandId, State state, String error) {
+  public enum State {PENDING, SUCCEEDED, FAILED}
+
+  public static CommandStatus pending(UUID commandId) {
+    return new CommandStatus(commandId, State.PENDING, null);
+  }
+
+  public static CommandStatus succeeded(UUID commandId) {
+    return new CommandStatus(commandId, State.SUCCEEDED, null);
+  }
+
+  public static CommandStatus failed(UUID commandId, String error) {
+    return new CommandStatus(commandId, State.FAILED, error);
+  }
+
+  public boolean isCompleted() {
+    return state != State.PENDING;
+  }
+}
@@ -1,19 +1,20 @@
 package io.eventdriven.slimdownaggregates.original.domain.books;
 
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
-import io.eventdriven.slimdownaggregates.original.domain.books.events.BookMovedToEditingEvent;
-import io.eventdriven.slimdownaggregates.original.domain.books.events.BookPublishedEvent;
-import io.eventdriven.slimdownaggregates.original.domain.books.events.ChapterAddedEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.*;
 import io.eventdriven.slimdownaggregates.original.domain.books.factories.BookFactory;
 import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
 import io.eventdriven.slimdownaggregates.original.infrastructure.aggregates.Aggregate;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
 import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.NonEmptyString;
 import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static io.eventdriven.slimdownaggregates.original.infrastructure.validation.Validation.assertNotNull;
 
@@ -37,6 +38,9 @@ public class Book extends Aggregate<BookId> {
   private final List<Reviewer> reviewers;
   private final List<Translation> translations;
   private final List<Format> formats;
+  // Indexes kept alongside the chapters, so adding a chapter doesn't scan the existing ones
+  private final Set<ChapterTitle> chapterTitles;
+  private boolean chaptersInSequence = true;
 
   private Book(
     BookId bookId,
@@ -80,10 +84,15 @@ public class Book extends Aggregate<BookId> {
     this.bindingType = bindingType;
     this.summary = summary;
     this.committeeApproval = committeeApproval;
-    this.reviewers = reviewers;
+    this.reviewers = reviewers != null ? reviewers : new ArrayList<>();
     this.chapters = chapters != null ? chapters : new ArrayList<>();
     this.translations = translations != null ? translations : new ArrayList<>();
     this.formats = formats != null ? formats : new ArrayList<>();
+
+    this.chapterTitles = new HashSet<>(this.chapters.size() * 2);
+    for (int i = 0; i < this.chapters.size(); i++) {
+      indexChapter(this.chapters.get(i), i + 1);
+    }
   }
 
   public static Book createDraft(
@@ -95,27 +104,75 @@ public class Book extends Aggregate<BookId> {
     PositiveInt edition,
     Genre genre
   ) {
-    return new Book(
+    var book = new Book(
       bookId, State.WRITING, title, author, publishingHouse, publisher, edition, genre,
       null, null, null, null, null, null,
       null, null, null, null, null
     );
+
+    book.addDomainEvent(new BookDraftCreatedEvent(bookId, title, author, publisher, edition, genre));
+
+    return book;
+  }
+
+  public static Book rehydrate(PublishingHouse publishingHouse, List<DomainEvent> events) {
+    if (events.isEmpty() || !(events.get(0) instanceof BookDraftCreatedEvent created))
+      throw new IllegalStateException("Book stream has to start with the draft creation.");
+
+    var book = new Book(
+      created.bookId(), State.WRITING, created.title(), created.author(), publishingHouse,
+      created.publisher(), created.edition(), created.genre(),
+      null, null, null, null, null, null,
+      null, null, null, null, null
+    );
+
+    return rehydrate(book, events.subList(1, events.size()));
+  }
+
+  public static Book rehydrate(Book snapshot, List<DomainEvent> eventsAfterSnapshot) {
+    for (var event : eventsAfterSnapshot) {
+      snapshot.apply(event);
+    }
+
+    return snapshot;
   }
 
   public void addChapter(ChapterTitle title, ChapterContent content) {
-    if (chapters.stream().anyMatch(chap -> chap.title().equals(title))) {
+    if (chapterTitles.contains(title)) {
       throw new IllegalStateException("chapter with the same title already exists.");
     }
 
-    if (!chapters.isEmpty() && !chapters.get(chapters.size() - 1).title().value().equals("chapter " + chapters.size())) {
+    if (!chaptersInSequence) {
       throw new IllegalStateException(
         "chapter should be added in sequence. The title of the next chapter should be 'chapter " + (chapters.size() + 1) + "'.");
     }
 
     var chapter = new Chapter(new ChapterNumber(chapters.size() + 1), title, content);
-    chapters.add(chapter);
 
-    addDomainEvent(new ChapterAddedEvent(this.id, chapter));
+    raise(new ChapterAddedEvent(this.id, chapter));
+  }
+
+  /**
+   * Renames the chapter through the book, so the titles stay unique and the sequence check sees the new title.
+   */
+  public void changeChapterTitle(ChapterNumber number, ChapterTitle title) {
+    if (number.value() > chapters.size())
+      throw new IllegalStateException("chapter " + number.value() + " doesn't exist.");
+
+    var chapter = chapters.get(number.value() - 1);
+    if (chapter.title().equals(title))
+      return;
+
+    if (chapterTitles.contains(title)) {
+      throw new IllegalStateException("chapter with the same title already exists.");
+    }
+
+    chapterTitles.remove(chapter.title());
+    chapters.set(number.value() - 1, new Chapter(number, title, chapter.content()));
+    chapterTitles.add(title);
+
+    if (number.value() == chapters.size())
+      chaptersInSequence = isSequenceTitle(title.value(), number.value());
   }
 
   public void moveToEditing() {
@@ -128,9 +185,7 @@ public class Book extends Aggregate<BookId> {
     if (genre == null)
       throw new IllegalStateException("A book can be moved to the editing only when genre is specified");
 
-    currentState = State.EDITING;
-
-    addDomainEvent(new BookMovedToEditingEvent(this.id));
+    raise(new BookMovedToEditingEvent(this.id));
   }
 
   public void addTranslation(Translation translation) {
@@ -140,7 +195,7 @@ public class Book extends Aggregate<BookId> {
     if (translations.size() >= 5)
       throw new IllegalStateException("Cannot add more translationsCount. Maximum 5 translationsCount are allowed.");
 
-    translations.add(translation);
+    raise(new TranslationAddedEvent(this.id, translation));
   }
 
   public void addFormat(Format format) {
@@ -150,7 +205,7 @@ public class Book extends Aggregate<BookId> {
     if (formats.stream().anyMatch(f -> f.formatType().equals(format.formatType())))
       throw new IllegalStateException("format " + format.formatType() + " already exists.");
 
-    formats.add(format);
+    raise(new FormatAddedEvent(this.id, format));
   }
 
   public void removeFormat(Format format) {
@@ -160,7 +215,7 @@ public class Book extends Aggregate<BookId> {
     if (formats.stream().noneMatch(f -> f.formatType().equals(format.formatType())))
       throw new IllegalStateException("format " + format.formatType() + " does not exist.");
 
-    formats.removeIf(f -> f.formatType().equals(format.formatType()));
+    raise(new FormatRemovedEvent(this.id, format));
   }
 
   public void addReviewer(Reviewer reviewer) {
@@ -170,7 +225,7 @@ public class Book extends Aggregate<BookId> {
     if (reviewers.stream().anyMatch(f -> f.id().equals(reviewer.id())))
       throw new IllegalStateException(reviewer.name() + "  is already a reviewer..");
 
-    reviewers.add(reviewer);
+    raise(new ReviewerAddedEvent(this.id, reviewer));
   }
 
   public void approve(CommitteeApproval committeeApproval) {
@@ -181,7 +236,7 @@ public class Book extends Aggregate<BookId> {
       throw new IllegalStateException(
         "A book cannot be approved unless it has been reviewed by at least three reviewersCount.");
 
-    this.committeeApproval = committeeApproval;
+    raise(new BookApprovedEvent(this.id, committeeApproval));
   }
 
   public void setISBN(ISBN isbn) {
@@ -191,7 +246,7 @@ public class Book extends Aggregate<BookId> {
     if (this.isbn != null)
       throw new IllegalStateException("Cannot change already set ISBN.");
 
-    this.isbn = isbn;
+    raise(new ISBNSetEvent(this.id, isbn));
   }
 
   public void moveToPrinting() {
@@ -220,7 +275,7 @@ public class Book extends Aggregate<BookId> {
       throw new IllegalStateException("Cannot move to the Printing state until the genre limit is reached.");
     }
 
-    this.currentState = State.PRINTING;
+    raise(new BookMovedToPrintingEvent(this.id));
   }
 
   public void moveToPublished() {
@@ -235,9 +290,7 @@ public class Book extends Aggregate<BookId> {
       throw new IllegalStateException(
         "A book cannot be moved to the Published state unless it has been reviewed by at least three reviewersCount.");
 
-    currentState = State.PUBLISHED;
-
-    addDomainEvent(new BookPublishedEvent(this.id, isbn, title, author));
+    raise(new BookPublishedEvent(this.id, isbn, title, author));
   }
 
   public void moveToOutOfPrint() {
@@ -250,7 +303,65 @@ public class Book extends Aggregate<BookId> {
       throw new IllegalStateException(
         "Cannot move to Out of Print state if more than 10% of total copies are unsold.");
 
-    currentState = State.OUT_OF_PRINT;
+    raise(new BookMovedToOutOfPrintEvent(this.id));
+  }
+
+  private void raise(DomainEvent event) {
+    apply(event);
+    addDomainEvent(event);
+  }
+
+  private void apply(DomainEvent event) {
+    if (event instanceof ChapterAddedEvent chapterAdded) {
+      chapters.add(chapterAdded.chapter());
+      indexChapter(chapterAdded.chapter(), chapters.size());
+    } else if (event instanceof BookMovedToEditingEvent) {
+      currentState = State.EDITING;
+    } else if (event instanceof TranslationAddedEvent translationAdded) {
+      translations.add(translationAdded.translation());
+    } else if (event instanceof FormatAddedEvent formatAdded) {
+      formats.add(formatAdded.format());
+    } else if (event instanceof FormatRemovedEvent formatRemoved) {
+      formats.removeIf(f -> f.formatType().equals(formatRemoved.format().formatType()));
+    } else if (event instanceof ReviewerAddedEvent reviewerAdded) {
+      reviewers.add(reviewerAdded.reviewer());
+    } else if (event instanceof BookApprovedEvent approved) {
+      committeeApproval = approved.committeeApproval();
+    } else if (event instanceof ISBNSetEvent isbnSet) {
+      isbn = isbnSet.isbn();
+    } else if (event instanceof BookMovedToPrintingEvent) {
+      currentState = State.PRINTING;
+    } else if (event instanceof BookPublishedEvent) {
+      currentState = State.PUBLISHED;
+    } else if (event instanceof BookMovedToOutOfPrintEvent) {
+      currentState = State.OUT_OF_PRINT;
+    } else {
+      throw new IllegalStateException("Unknown event type: " + event.getClass().getName());
+    }
+  }
+
+  private void indexChapter(Chapter chapter, int position) {
+    chapterTitles.add(chapter.title());
+    // Only the last chapter decides whether the next one may be added
+    chaptersInSequence = isSequenceTitle(chapter.title().value(), position);
+  }
+
+  /**
+   * Checks the title is exactly "chapter {number}" without building the expected string.
+   */
+  private static boolean isSequenceTitle(String title, int number) {
+    var prefix = "chapter ";
+    if (!title.startsWith(prefix) || title.length() == prefix.length())
+      return false;
+
+    var value = 0;
+    for (int i = prefix.length(); i < title.length(); i++) {
+      var digit = title.charAt(i) - '0';
+      if (digit < 0 || digit > 9 || (value == 0 && digit == 0) || value > number)
+        return false;
+      value = value * 10 + digit;
+    }
+    return value == number;
   }
 
   public State currentState() {
@@ -0,0 +1,9 @@
+package io.eventdriven.slimdownaggregates.original.domain.books.dtos;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+
+/**
+ * Published whenever the read model details of the book were updated.
+ */
+public record BookDetailsChanged(BookId bookId) {
+}
@@ -0,0 +1,13 @@
+package io.eventdriven.slimdownaggregates.original.domain.books.dtos;
+
+import java.util.UUID;
+
+public record BookSummary(
+  UUID id,
+  String title,
+  String currentState,
+  String genre,
+  UUID publisherId,
+  String publisherName
+) {
+}
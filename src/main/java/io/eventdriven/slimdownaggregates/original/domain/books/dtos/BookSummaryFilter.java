@@ -0,0 +1,15 @@
+package io.eventdriven.slimdownaggregates.original.domain.books.dtos;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.Genre;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.PublisherId;
+
+/**
+ * Optional criteria of the books listing, null values don't filter.
+ */
+public record BookSummaryFilter(
+  Book.State currentState,
+  Genre genre,
+  PublisherId publisherId
+) {
+}
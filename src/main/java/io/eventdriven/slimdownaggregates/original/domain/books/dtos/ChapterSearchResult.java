@@ -0,0 +1,6 @@
+package io.eventdriven.slimdownaggregates.original.domain.books.dtos;
+
+import java.util.UUID;
+
+public record ChapterSearchResult(UUID bookId, int chapterNumber, double score) {
+}
@@ -2,7 +2,7 @@ package io.eventdriven.slimdownaggregates.original.domain.books.entities;
 
 public class Chapter {
   private final ChapterNumber chapterNumber;
-  private ChapterTitle title;
+  private final ChapterTitle title;
   private ChapterContent content;
 
   public Chapter(
@@ -27,10 +27,6 @@ public class Chapter {
     return content;
   }
 
-  public void changeTitle(ChapterTitle title) {
-    this.title = title;
-  }
-
   public void changeContent(ChapterContent content) {
     this.content = content;
   }
@@ -1,11 +1,100 @@
 package io.eventdriven.slimdownaggregates.original.domain.books.entities;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
 import static io.eventdriven.slimdownaggregates.original.infrastructure.validation.Validation.assertNotNull;
 
-public record ChapterContent(String value) {
-  public ChapterContent {
+/**
+ * Chapter text. Content of a loaded book is a lazy handle, read from storage only when first accessed,
+ * as the book's business rules never look at it. Contents are compared by their hash, so comparing
+ * doesn't load them either.
+ */
+public final class ChapterContent {
+  public static final ChapterContent empty = new ChapterContent("");
+
+  private transient Supplier<String> loader;
+  // Written once, volatile so a thread seeing it set sees the loaded string too
+  private volatile String value;
+  private transient volatile String hash;
+
+  public ChapterContent(String value) {
     assertNotNull(value);
+    this.value = value;
   }
 
-  public static final ChapterContent empty = new ChapterContent("");
+  private ChapterContent(String hash, Supplier<String> loader) {
+    this.hash = hash;
+    this.loader = loader;
+  }
+
+  /**
+   * Content loaded on first access, the hash has to be the one hash() returns for it.
+   */
+  public static ChapterContent lazy(String hash, Supplier<String> loader) {
+    assertNotNull(hash);
+    assertNotNull(loader);
+    return new ChapterContent(hash, loader);
+  }
+
+  public String value() {
+    var loaded = value;
+    if (loaded != null)
+      return loaded;
+
+    synchronized (this) {
+      if (value == null) {
+        loaded = loader.get();
+        assertNotNull(loaded);
+        value = loaded;
+        loader = null;
+      }
+      return value;
+    }
+  }
+
+  public boolean isLoaded() {
+    return value != null;
+  }
+
+  /**
+   * SHA-256 of the UTF-8 encoded content as hex.
+   */
+  public String hash() {
+    var computed = hash;
+    if (computed == null) {
+      computed = sha256(value);
+      hash = computed;
+    }
+    return computed;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof ChapterContent that)) return false;
+    return hash().equals(that.hash());
+  }
+
+  @Override
+  public int hashCode() {
+    return hash().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "ChapterContent[" + (isLoaded() ? "value=" + value : "not loaded") + "]";
+  }
+
+  private static String sha256(String value) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
 }
@@ -0,0 +1,7 @@
+package io.eventdriven.slimdownaggregates.original.domain.books.events;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
+
+public record BookApprovedEvent(BookId bookId, CommitteeApproval committeeApproval) implements DomainEvent {
+}
@@ -0,0 +1,15 @@
+package io.eventdriven.slimdownaggregates.original.domain.books.events;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+
+public record BookDraftCreatedEvent(
+  BookId bookId,
+  Title title,
+  Author author,
+  Publisher publisher,
+  PositiveInt edition,
+  Genre genre
+) implements DomainEvent {
+}
@@ -1,10 +1,24 @@
 package io.eventdriven.slimdownaggregates.original.domain.books.repositories;
 
 import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetails;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummary;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummaryFilter;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BooksQueryRepository {
   Optional<BookDetails> findDetailsById(BookId bookId);
+
+  /**
+   * Returns up to limit books ordered by id, starting after the given id (or from the first book if it's null).
+   */
+  List<BookSummary> findSummaries(BookSummaryFilter filter, BookId after, int limit);
+
+  /**
+   * Passes all matching books ordered by id to the consumer as they're read, without loading them all at once.
+   */
+  void streamSummaries(BookSummaryFilter filter, Consumer<BookSummary> consumer);
 }
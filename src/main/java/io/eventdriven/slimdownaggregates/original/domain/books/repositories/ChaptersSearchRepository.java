@@ -0,0 +1,14 @@
+package io.eventdriven.slimdownaggregates.original.domain.books.repositories;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.ChapterSearchResult;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ChaptersSearchRepository {
+  /**
+   * Returns chapters matching the query by relevance, quoted phrases have to match exactly.
+   * Empty when the index isn't served by this node.
+   */
+  Optional<List<ChapterSearchResult>> search(String query, int limit);
+}
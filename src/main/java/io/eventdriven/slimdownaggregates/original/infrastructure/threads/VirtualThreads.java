@@ -0,0 +1,38 @@
+package io.eventdriven.slimdownaggregates.original.infrastructure.threads;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when running on a JDK that has them. Looked up reflectively,
+ * so the sources still compile against JDK 17.
+ */
+public final class VirtualThreads {
+  private VirtualThreads() {
+  }
+
+  /**
+   * Factory of virtual threads named with the prefix and a counter, same as Thread.ofVirtual().name(prefix, 0).factory().
+   */
+  public static ThreadFactory factory(String prefix) {
+    try {
+      var builderType = Class.forName("java.lang.Thread$Builder");
+      var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+      return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+    } catch (NoSuchMethodException | ClassNotFoundException e) {
+      throw new IllegalStateException("Virtual threads require JDK 21 or newer", e);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Cannot create virtual thread factory", e);
+    }
+  }
+
+  /**
+   * Executor starting a new virtual thread per task, they're cheap enough not to be pooled.
+   */
+  public static Executor perTaskExecutor(String prefix) {
+    var factory = factory(prefix);
+    return task -> factory.newThread(task).start();
+  }
+}
@@ -5,7 +5,11 @@ import jakarta.persistence.*;
 import java.util.UUID;
 
 @Entity
-@Table(name = "authors")
+@Table(
+  name = "authors",
+  // Same author given by name is stored once, rows created before the column existed are left null
+  indexes = @Index(name = "authors_normalized_name_idx", columnList = "normalizedName", unique = true)
+)
 public class AuthorEntity {
 
   @Id
@@ -16,6 +20,8 @@ public class AuthorEntity {
 
   private String lastName;
 
+  private String normalizedName;
+
   public AuthorEntity() {
     // Default constructor for JPA
   }
@@ -45,4 +51,12 @@ public class AuthorEntity {
   public void setLastName(String lastName) {
     this.lastName = lastName;
   }
+
+  public String getNormalizedName() {
+    return normalizedName;
+  }
+
+  public void setNormalizedName(String normalizedName) {
+    this.normalizedName = normalizedName;
+  }
 }
@@ -1,8 +1,10 @@
 package io.eventdriven.slimdownaggregates.original.persistence.authors;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
-import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,5 +14,23 @@ import java.util.UUID;
 public interface AuthorRepository extends JpaRepository<AuthorEntity, UUID> {
   @NonNull
   Optional<AuthorEntity> findById(@NonNull UUID id);
-}
 
+  Optional<AuthorEntity> findByNormalizedName(String normalizedName);
+
+  // Concurrent inserts of the same author wait for each other on the unique index, the loser inserts nothing
+  @Modifying
+  @Query(
+    value = """
+      INSERT INTO authors (id, first_name, last_name, normalized_name)
+      VALUES (:id, :firstName, :lastName, :normalizedName)
+      ON CONFLICT (normalized_name) DO NOTHING
+      """,
+    nativeQuery = true
+  )
+  int insertIfAbsent(
+    @Param("id") UUID id,
+    @Param("firstName") String firstName,
+    @Param("lastName") String lastName,
+    @Param("normalizedName") String normalizedName
+  );
+}
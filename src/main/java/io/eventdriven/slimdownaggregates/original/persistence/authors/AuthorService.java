@@ -1,44 +1,123 @@
 package io.eventdriven.slimdownaggregates.original.persistence.authors;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
 import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorProvider;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.Author;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.AuthorFirstName;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.AuthorId;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.AuthorLastName;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Resolves authors through a bounded in-memory cache, authors are never changed once created.
+ * Authors given by name are deduplicated by their normalized name, backed by a unique index.
+ */
 @Service
 public class AuthorService implements AuthorProvider {
 
   private final AuthorRepository authorRepository;
+  private final Cache<AuthorId, Author> byId;
+  private final Cache<String, Author> byNormalizedName;
 
-  public AuthorService(AuthorRepository authorRepository) {
+  public AuthorService(AuthorRepository authorRepository, long cacheMaximumSize, MeterRegistry meterRegistry) {
     this.authorRepository = authorRepository;
+    this.byId = Caffeine.newBuilder().maximumSize(cacheMaximumSize).recordStats().build();
+    this.byNormalizedName = Caffeine.newBuilder().maximumSize(cacheMaximumSize).recordStats().build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, byId, "authors.by.id");
+    CaffeineCacheMetrics.monitor(meterRegistry, byNormalizedName, "authors.by.name");
   }
 
   @Transactional
   public Author getOrCreate(AuthorIdOrData authorIdOrData) {
     if (authorIdOrData.authorId() != null) {
+      var cached = byId.getIfPresent(authorIdOrData.authorId());
+      if (cached != null)
+        return cached;
+
       var entity = authorRepository.findById(authorIdOrData.authorId().value())
         .orElseThrow(() -> new IllegalArgumentException("Author not found"));
 
-      return new Author(
-        new AuthorId(entity.getId()),
-        new AuthorFirstName(entity.getFirstName()),
-        new AuthorLastName(entity.getLastName())
-      );
+      return cache(toAuthor(entity));
+    }
+
+    var normalizedName = normalizedName(authorIdOrData.firstName().value(), authorIdOrData.lastName().value());
+
+    var cached = byNormalizedName.getIfPresent(normalizedName);
+    if (cached != null)
+      return cached;
+
+    var existing = authorRepository.findByNormalizedName(normalizedName);
+    if (existing.isPresent())
+      return cache(toAuthor(existing.get()));
+
+    var id = UUID.randomUUID();
+    var inserted = authorRepository.insertIfAbsent(
+      id,
+      authorIdOrData.firstName().value(),
+      authorIdOrData.lastName().value(),
+      normalizedName
+    ) == 1;
+
+    if (!inserted) {
+      // Created concurrently, the insert waited for the other transaction to commit, so the row is visible now
+      var entity = authorRepository.findByNormalizedName(normalizedName)
+        .orElseThrow(() -> new IllegalStateException("Author " + normalizedName + " conflicts but can't be found"));
+
+      return cache(toAuthor(entity));
     }
 
-    var entity = new AuthorEntity();
-    entity.setFirstName(authorIdOrData.firstName().value());
-    entity.setLastName(authorIdOrData.lastName().value());
+    var author = new Author(new AuthorId(id), authorIdOrData.firstName(), authorIdOrData.lastName());
 
-    var result = authorRepository.save(entity);
+    // Author created by this transaction is cached only once it's committed, a rollback would leave a dangling id
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          cache(author);
+        }
+      });
+      return author;
+    }
+
+    return cache(author);
+  }
+
+  /**
+   * Case, accents composition and whitespace insensitive, first and last name are separated by a tab that
+   * can't be part of a normalized name.
+   */
+  static String normalizedName(String firstName, String lastName) {
+    return normalize(firstName) + '\t' + normalize(lastName);
+  }
+
+  private static String normalize(String name) {
+    return Normalizer.normalize(name, Normalizer.Form.NFKC)
+      .strip()
+      .replaceAll("\\s+", " ")
+      .toLowerCase(Locale.ROOT);
+  }
+
+  private Author cache(Author author) {
+    byId.put(author.id(), author);
+    byNormalizedName.put(normalizedName(author.firstName().value(), author.lastName().value()), author);
+    return author;
+  }
 
+  private static Author toAuthor(AuthorEntity entity) {
     return new Author(
-      new AuthorId(result.getId()),
+      new AuthorId(entity.getId()),
       new AuthorFirstName(entity.getFirstName()),
       new AuthorLastName(entity.getLastName())
     );
@@ -10,17 +10,20 @@ import io.eventdriven.slimdownaggregates.original.persistence.reviewers.Reviewer
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
 @Table(name = "books")
 public class BookEntity {
 
-  public enum State { Writing, Editing, Printing, Published, OutOfPrint }
+  // Stored by name, mirrors Book.State
+  public enum State { WRITING, EDITING, PRINTING, PUBLISHED, OUT_OF_PRINT }
 
+  // Assigned from the BookId of the aggregate
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
   private UUID id;
 
   @Enumerated(EnumType.STRING)
@@ -58,13 +61,14 @@ public class BookEntity {
 
   @ElementCollection
   @CollectionTable(name = "book_translations", joinColumns = @JoinColumn(name = "book_id"))
-  private List<TranslationVO> translations = new ArrayList<>();
+  private Set<TranslationVO> translations = new LinkedHashSet<>();
 
   @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, orphanRemoval = true)
   private List<FormatEntity> formats = new ArrayList<>();
 
+  // Nullable so Spring Data treats a fresh entity as new and persists it instead of merging
   @Version
-  private int version;
+  private Integer version;
 
   public BookEntity() {}
 
@@ -102,11 +106,11 @@ public class BookEntity {
   public void setReviewers(List<ReviewerEntity> reviewers) { this.reviewers = reviewers; }
   public List<ChapterEntity> getChapters() { return chapters; }
   public void setChapters(List<ChapterEntity> chapters) { this.chapters = chapters; }
-  public List<TranslationVO> getTranslations() { return translations; }
-  public void setTranslations(List<TranslationVO> translations) { this.translations = translations; }
+  public Set<TranslationVO> getTranslations() { return translations; }
+  public void setTranslations(Set<TranslationVO> translations) { this.translations = translations; }
   public List<FormatEntity> getFormats() { return formats; }
   public void setFormats(List<FormatEntity> formats) { this.formats = formats; }
-  public int getVersion() { return version; }
-  public void setVersion(int version) { this.version = version; }
+  public Integer getVersion() { return version; }
+  public void setVersion(Integer version) { this.version = version; }
 }
 
@@ -0,0 +1,56 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.commands;
+
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CommandStatus;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.util.UUID;
+
+/**
+ * Outcome of a queued command saved with its book, the row goes away once the outcome is journaled.
+ */
+@Entity
+@Table(name = "book_command_outcomes")
+public class BookCommandOutcomeEntity implements Persistable<UUID> {
+  @Id
+  private UUID commandId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private CommandStatus.State state;
+
+  @Column(columnDefinition = "text")
+  private String error;
+
+  // Outcomes are only inserted, saving them needn't look them up first
+  @Transient
+  private boolean isNew = true;
+
+  // Default constructor required by JPA
+  public BookCommandOutcomeEntity() {}
+
+  public BookCommandOutcomeEntity(CommandStatus outcome) {
+    this.commandId = outcome.commandId();
+    this.state = outcome.state();
+    this.error = outcome.error();
+  }
+
+  @Override
+  public UUID getId() {
+    return commandId;
+  }
+
+  @Override
+  public boolean isNew() {
+    return isNew;
+  }
+
+  @PostLoad
+  void markLoaded() {
+    isNew = false;
+  }
+
+  public CommandStatus toStatus() {
+    return new CommandStatus(commandId, state, error);
+  }
+}
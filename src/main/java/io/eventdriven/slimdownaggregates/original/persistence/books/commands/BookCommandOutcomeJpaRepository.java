@@ -0,0 +1,17 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.commands;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface BookCommandOutcomeJpaRepository extends JpaRepository<BookCommandOutcomeEntity, UUID> {
+  @Modifying
+  @Query("delete from BookCommandOutcomeEntity o where o.commandId in :commandIds")
+  int deleteByCommandIds(@Param("commandIds") Collection<UUID> commandIds);
+}
@@ -0,0 +1,36 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.commands;
+
+import io.eventdriven.slimdownaggregates.original.application.books.BookCommandOutcomes;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CommandStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Callers run it in their transaction, saving belongs to the transaction of the book changes.
+ */
+public class BookCommandOutcomesRepository implements BookCommandOutcomes {
+  private final BookCommandOutcomeJpaRepository jpaRepository;
+
+  public BookCommandOutcomesRepository(BookCommandOutcomeJpaRepository jpaRepository) {
+    this.jpaRepository = jpaRepository;
+  }
+
+  @Override
+  public List<CommandStatus> find(Collection<UUID> commandIds) {
+    return jpaRepository.findAllById(commandIds).stream()
+      .map(BookCommandOutcomeEntity::toStatus)
+      .toList();
+  }
+
+  @Override
+  public void save(List<CommandStatus> outcomes) {
+    jpaRepository.saveAll(outcomes.stream().map(BookCommandOutcomeEntity::new).toList());
+  }
+
+  @Override
+  public void delete(Collection<UUID> commandIds) {
+    jpaRepository.deleteByCommandIds(commandIds);
+  }
+}
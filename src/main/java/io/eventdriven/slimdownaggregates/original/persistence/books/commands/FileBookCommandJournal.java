@@ -0,0 +1,306 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.commands;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.application.books.BookCommandJournal;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChapterCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChaptersCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CommandStatus;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.MoveToEditingCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.ChapterContent;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.ChapterTitle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local journal of asynchronous book commands, a newline-delimited JSON file with a line per accepted command
+ * and a line per outcome. Pending commands and the latest outcomes are kept in memory, the file is rewritten
+ * with only them once it grows, so it doesn't keep every command ever processed.
+ * Concurrent appends share a force of the file (group commit). It's safe only for a single process.
+ */
+public class FileBookCommandJournal implements BookCommandJournal {
+  private static final String FILE_NAME = "commands.ndjson";
+
+  private final Path path;
+  private final ObjectMapper objectMapper;
+  private final int retainedOutcomes;
+
+  // Written under the instance lock, statuses are also read without it
+  private final LinkedHashMap<UUID, String> pendingEntries = new LinkedHashMap<>();
+  private final ArrayDeque<UUID> outcomeOrder = new ArrayDeque<>();
+  private final ConcurrentHashMap<UUID, CommandStatus> statuses = new ConcurrentHashMap<>();
+  private FileChannel channel;
+  private int entriesSinceCompaction;
+  // Sequence of the last write and of the last one known to be on disk, forced outside the instance lock
+  private long writes;
+  private final AtomicLong forced = new AtomicLong();
+  private final Object forceLock = new Object();
+
+  public FileBookCommandJournal(Path directory, ObjectMapper objectMapper, int retainedOutcomes) {
+    this.path = directory.resolve(FILE_NAME);
+    this.objectMapper = objectMapper;
+    this.retainedOutcomes = retainedOutcomes;
+
+    try {
+      Files.createDirectories(directory);
+
+      if (Files.exists(path)) {
+        for (var line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+          var entry = parse(line);
+          // A line torn by a crash is dropped, its command was never acknowledged
+          if (entry != null)
+            replay(entry, line);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    compact();
+  }
+
+  @Override
+  public void append(UUID commandId, Object command) {
+    var line = serialize(toEntry(commandId, command));
+
+    long written;
+    synchronized (this) {
+      written = write(line + "\n");
+      pendingEntries.put(commandId, line);
+      statuses.put(commandId, CommandStatus.pending(commandId));
+    }
+
+    awaitForced(written);
+  }
+
+  @Override
+  public void complete(List<CommandStatus> outcomes) {
+    var content = new StringBuilder();
+    for (var outcome : outcomes) {
+      content.append(serialize(new JournalEntry(outcome.commandId(), null, null, outcome.state(), outcome.error()))).append('\n');
+    }
+
+    long written;
+    synchronized (this) {
+      written = write(content.toString());
+      for (var outcome : outcomes) {
+        pendingEntries.remove(outcome.commandId());
+        retain(outcome);
+      }
+
+      if (entriesSinceCompaction > 2 * (pendingEntries.size() + retainedOutcomes))
+        compact();
+    }
+
+    awaitForced(written);
+  }
+
+  @Override
+  public synchronized List<PendingCommand> pending() {
+    return pendingEntries.entrySet().stream()
+      .map(entry -> new PendingCommand(entry.getKey(), toCommand(parse(entry.getValue()))))
+      .toList();
+  }
+
+  @Override
+  public Optional<CommandStatus> status(UUID commandId) {
+    return Optional.ofNullable(statuses.get(commandId));
+  }
+
+  private void replay(JournalEntry entry, String line) {
+    if (entry.state() == null) {
+      pendingEntries.put(entry.commandId(), line);
+      statuses.put(entry.commandId(), CommandStatus.pending(entry.commandId()));
+    } else {
+      pendingEntries.remove(entry.commandId());
+      retain(new CommandStatus(entry.commandId(), entry.state(), entry.error()));
+    }
+  }
+
+  private void retain(CommandStatus outcome) {
+    statuses.put(outcome.commandId(), outcome);
+    outcomeOrder.addLast(outcome.commandId());
+
+    while (outcomeOrder.size() > retainedOutcomes) {
+      statuses.remove(outcomeOrder.removeFirst());
+    }
+  }
+
+  /**
+   * Rewrites the journal with the pending commands and the retained outcomes, then swaps it in place.
+   */
+  private synchronized void compact() {
+    var content = new StringBuilder();
+    for (var line : pendingEntries.values()) {
+      content.append(line).append('\n');
+    }
+    for (var commandId : outcomeOrder) {
+      var outcome = statuses.get(commandId);
+      content.append(serialize(new JournalEntry(commandId, null, null, outcome.state(), outcome.error()))).append('\n');
+    }
+
+    try {
+      if (channel != null)
+        channel.close();
+
+      var temp = path.resolveSibling(FILE_NAME + ".tmp");
+      try (var file = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        writeFully(file, content.toString());
+        file.force(true);
+      }
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+      channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      entriesSinceCompaction = 0;
+      forced.accumulateAndGet(writes, Math::max);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Appends without forcing, returns the sequence number of the write to wait for with awaitForced.
+   */
+  private long write(String content) {
+    try {
+      writeFully(channel, content);
+      entriesSinceCompaction++;
+      return ++writes;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns once the write is on disk. Writers arriving while the file is forced wait for that force
+   * to finish, then the first of them forces once for all of them.
+   */
+  private void awaitForced(long write) {
+    synchronized (forceLock) {
+      if (forced.get() >= write)
+        return;
+
+      long covered;
+      FileChannel file;
+      synchronized (this) {
+        covered = writes;
+        file = channel;
+      }
+
+      try {
+        file.force(false);
+      } catch (ClosedByInterruptException e) {
+        throw new UncheckedIOException(e);
+      } catch (ClosedChannelException e) {
+        // Compacted meanwhile, the rewritten journal was forced with every write so far
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      forced.accumulateAndGet(covered, Math::max);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, String content) throws IOException {
+    var buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private JournalEntry toEntry(UUID commandId, Object command) {
+    Object payload;
+    if (command instanceof AddChapterCommand c)
+      payload = new AddChapter(c.bookId().value(), c.title().value(), c.content().value());
+    else if (command instanceof AddChaptersCommand c)
+      payload = new AddChapters(
+        c.bookId().value(),
+        c.chapters().stream().map(chapter -> new AddChapter.Chapter(chapter.title().value(), chapter.content().value())).toList()
+      );
+    else if (command instanceof MoveToEditingCommand c)
+      payload = new MoveToEditing(c.bookId().value());
+    else
+      throw new IllegalArgumentException("Unknown command type: " + command.getClass().getName());
+
+    return new JournalEntry(commandId, payload.getClass().getSimpleName(), objectMapper.valueToTree(payload), null, null);
+  }
+
+  private Object toCommand(JournalEntry entry) {
+    try {
+      return switch (entry.commandType()) {
+        case "AddChapter" -> {
+          var c = objectMapper.treeToValue(entry.data(), AddChapter.class);
+          yield new AddChapterCommand(new BookId(c.bookId()), new ChapterTitle(c.title()), new ChapterContent(c.content()));
+        }
+        case "AddChapters" -> {
+          var c = objectMapper.treeToValue(entry.data(), AddChapters.class);
+          yield new AddChaptersCommand(
+            new BookId(c.bookId()),
+            c.chapters().stream()
+              .map(chapter -> new AddChaptersCommand.ChapterToAdd(new ChapterTitle(chapter.title()), new ChapterContent(chapter.content())))
+              .toList()
+          );
+        }
+        case "MoveToEditing" -> {
+          var c = objectMapper.treeToValue(entry.data(), MoveToEditing.class);
+          yield new MoveToEditingCommand(new BookId(c.bookId()));
+        }
+        default -> throw new IllegalStateException("Unknown command type: " + entry.commandType());
+      };
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error deserializing command", e);
+    }
+  }
+
+  private String serialize(JournalEntry entry) {
+    try {
+      return objectMapper.writeValueAsString(entry);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error serializing command", e);
+    }
+  }
+
+  private JournalEntry parse(String line) {
+    if (line.isBlank())
+      return null;
+
+    try {
+      return objectMapper.readValue(line, JournalEntry.class);
+    } catch (JsonProcessingException e) {
+      return null;
+    }
+  }
+
+  // Accepted commands carry the command, outcomes the state
+  record JournalEntry(UUID commandId, String commandType, JsonNode data, CommandStatus.State state, String error) {
+  }
+
+  record AddChapter(UUID bookId, String title, String content) {
+    record Chapter(String title, String content) {
+    }
+  }
+
+  record AddChapters(UUID bookId, List<AddChapter.Chapter> chapters) {
+  }
+
+  record MoveToEditing(UUID bookId) {
+  }
+}
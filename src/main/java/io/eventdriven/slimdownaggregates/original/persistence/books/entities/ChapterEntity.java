@@ -2,6 +2,8 @@ package io.eventdriven.slimdownaggregates.original.persistence.books.entities;
 
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.Chapter;
 import io.eventdriven.slimdownaggregates.original.persistence.books.BookEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.core.content.ContentStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.content.StoredContent;
 import jakarta.persistence.*;
 import java.util.UUID;
 
@@ -20,19 +22,29 @@ public class ChapterEntity {
   @Column(nullable = false)
   private String title;
 
-  @Column(nullable = true)
-  private String content = "";
+  // Content lives in the content store, only its reference and hash are loaded with the chapter
+  @Column(columnDefinition = "uuid")
+  private UUID contentId;
+
+  private String contentHash;
+
+  // Inline content of chapters saved before the content store, used only while contentHash is null
+  @Column(name = "content", nullable = true)
+  private String legacyContent;
 
   @ManyToOne
   @JoinColumn(name = "book_id", insertable = false, updatable = false)
   private BookEntity book;
 
   // Default constructor for JPA
-  public ChapterEntity(UUID bookId, int chapterNumber, String title, String content) {
+  public ChapterEntity() {}
+
+  public ChapterEntity(UUID bookId, int chapterNumber, String title, StoredContent content) {
     this.bookId = bookId;
     this.number = chapterNumber;
     this.title = title;
-    this.content = content;
+    this.contentId = content.id();
+    this.contentHash = content.hash();
   }
 
   // Getters and setters
@@ -61,12 +73,26 @@ public class ChapterEntity {
     this.title = title;
   }
 
-  public String getContent() {
-    return content;
+  public UUID getContentId() {
+    return contentId;
   }
 
-  public void setContent(String content) {
-    this.content = content;
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  public boolean hasLegacyContent() {
+    return contentHash == null;
+  }
+
+  public String getLegacyContent() {
+    return legacyContent != null ? legacyContent : "";
+  }
+
+  public void setContent(StoredContent content) {
+    this.contentId = content.id();
+    this.contentHash = content.hash();
+    this.legacyContent = null;
   }
 
   public BookEntity getBook() {
@@ -77,12 +103,19 @@ public class ChapterEntity {
     this.book = book;
   }
 
-  public ChapterEntity update(Chapter chapter) {
+  public ChapterEntity update(Chapter chapter, ContentStore contentStore) {
     if (!title.equals(chapter.title().value())) {
       title = chapter.title().value();
     }
-    if (!content.equals(chapter.content().value())) {
-      content = chapter.content().value();
+
+    // Content that was never read can't have changed, legacy content is moved to the store on the first save
+    if (!chapter.content().isLoaded() && !hasLegacyContent())
+      return this;
+
+    if (!chapter.content().hash().equals(contentHash)) {
+      var previous = contentId;
+      setContent(contentStore.save(chapter.content().value()));
+      contentStore.delete(previous);
     }
     return this;
   }
@@ -0,0 +1,114 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.events;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.events.*;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
+
+import java.util.UUID;
+
+/**
+ * Flat, stable payloads of book domain events, shared by the event store and the outbox,
+ * so stored events don't depend on the shape of domain classes.
+ * Fields are part of the stored formats, add new ones instead of renaming or removing them.
+ */
+public final class BookEventPayloads {
+  private BookEventPayloads() {}
+
+  public static BookEventPayload of(DomainEvent event) {
+    if (event instanceof BookDraftCreatedEvent e)
+      return new BookDraftCreated(
+        e.bookId().value(), e.title().value(),
+        e.author().id().value(), e.author().firstName().value(), e.author().lastName().value(),
+        e.publisher().id().value(), e.publisher().name().value(),
+        e.edition().value(), e.genre() != null ? e.genre().value() : null
+      );
+    if (event instanceof ChapterAddedEvent e)
+      return new ChapterAdded(
+        e.bookId().value(), e.chapter().chapterNumber().value(), e.chapter().title().value(), e.chapter().content().value()
+      );
+    if (event instanceof BookMovedToEditingEvent e)
+      return new BookMovedToEditing(e.bookId().value());
+    if (event instanceof TranslationAddedEvent e)
+      return new TranslationAdded(
+        e.bookId().value(),
+        e.translation().language().id().value(), e.translation().language().name().value(),
+        e.translation().translator().id().value(), e.translation().translator().name().value()
+      );
+    if (event instanceof FormatAddedEvent e)
+      return new FormatAdded(
+        e.bookId().value(), e.format().formatType().value(), e.format().totalCopies().value(), e.format().soldCopies().value()
+      );
+    if (event instanceof FormatRemovedEvent e)
+      return new FormatRemoved(
+        e.bookId().value(), e.format().formatType().value(), e.format().totalCopies().value(), e.format().soldCopies().value()
+      );
+    if (event instanceof ReviewerAddedEvent e)
+      return new ReviewerAdded(e.bookId().value(), e.reviewer().id().value(), e.reviewer().name().value());
+    if (event instanceof BookApprovedEvent e)
+      return new BookApproved(e.bookId().value(), e.committeeApproval().isApproved(), e.committeeApproval().feedback().value());
+    if (event instanceof ISBNSetEvent e)
+      return new ISBNSet(e.bookId().value(), e.isbn().value());
+    if (event instanceof BookMovedToPrintingEvent e)
+      return new BookMovedToPrinting(e.bookId().value());
+    if (event instanceof BookPublishedEvent e)
+      return new BookPublished(
+        e.bookId().value(), e.isbn().value(), e.title().value(),
+        e.author().id().value(), e.author().firstName().value(), e.author().lastName().value()
+      );
+    if (event instanceof BookMovedToOutOfPrintEvent e)
+      return new BookMovedToOutOfPrint(e.bookId().value());
+
+    throw new IllegalStateException("Unknown event type: " + event.getClass().getName());
+  }
+
+  public sealed interface BookEventPayload {
+    UUID bookId();
+  }
+
+  public record BookDraftCreated(
+    UUID bookId,
+    String title,
+    UUID authorId,
+    String authorFirstName,
+    String authorLastName,
+    UUID publisherId,
+    String publisherName,
+    int edition,
+    String genre
+  ) implements BookEventPayload {
+  }
+
+  public record ChapterAdded(UUID bookId, int number, String title, String content) implements BookEventPayload {
+  }
+
+  public record BookMovedToEditing(UUID bookId) implements BookEventPayload {
+  }
+
+  public record TranslationAdded(UUID bookId, UUID languageId, String languageName, UUID translatorId, String translatorName)
+    implements BookEventPayload {
+  }
+
+  public record FormatAdded(UUID bookId, String formatType, int totalCopies, int soldCopies) implements BookEventPayload {
+  }
+
+  public record FormatRemoved(UUID bookId, String formatType, int totalCopies, int soldCopies) implements BookEventPayload {
+  }
+
+  public record ReviewerAdded(UUID bookId, UUID reviewerId, String reviewerName) implements BookEventPayload {
+  }
+
+  public record BookApproved(UUID bookId, boolean approved, String feedback) implements BookEventPayload {
+  }
+
+  public record ISBNSet(UUID bookId, String isbn) implements BookEventPayload {
+  }
+
+  public record BookMovedToPrinting(UUID bookId) implements BookEventPayload {
+  }
+
+  public record BookPublished(UUID bookId, String isbn, String title, UUID authorId, String authorFirstName, String authorLastName)
+    implements BookEventPayload {
+  }
+
+  public record BookMovedToOutOfPrint(UUID bookId) implements BookEventPayload {
+  }
+}
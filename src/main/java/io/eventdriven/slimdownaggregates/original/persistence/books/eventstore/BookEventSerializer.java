@@ -0,0 +1,138 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.eventstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.*;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.NonEmptyString;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.persistence.books.events.BookEventPayloads;
+import io.eventdriven.slimdownaggregates.original.persistence.books.events.BookEventPayloads.*;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.EventData;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.RecordedEvent;
+
+/**
+ * Maps book domain events to flat, stable payloads, so stored streams don't depend on the shape of domain classes.
+ * Payloads are stored as JSON and typed by their simple class name.
+ */
+public class BookEventSerializer {
+  private final ObjectMapper objectMapper;
+
+  public BookEventSerializer(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  public EventData serialize(DomainEvent event) {
+    var payload = BookEventPayloads.of(event);
+
+    try {
+      return new EventData(payload.getClass().getSimpleName(), objectMapper.writeValueAsString(payload));
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error serializing event", e);
+    }
+  }
+
+  public DomainEvent deserialize(RecordedEvent event) {
+    try {
+      return switch (event.eventType()) {
+        case "BookDraftCreated" -> toEvent(objectMapper.readValue(event.data(), BookDraftCreated.class));
+        case "ChapterAdded" -> toEvent(objectMapper.readValue(event.data(), ChapterAdded.class));
+        case "BookMovedToEditing" -> toEvent(objectMapper.readValue(event.data(), BookMovedToEditing.class));
+        case "TranslationAdded" -> toEvent(objectMapper.readValue(event.data(), TranslationAdded.class));
+        case "FormatAdded" -> toEvent(objectMapper.readValue(event.data(), FormatAdded.class));
+        case "FormatRemoved" -> toEvent(objectMapper.readValue(event.data(), FormatRemoved.class));
+        case "ReviewerAdded" -> toEvent(objectMapper.readValue(event.data(), ReviewerAdded.class));
+        case "BookApproved" -> toEvent(objectMapper.readValue(event.data(), BookApproved.class));
+        case "ISBNSet" -> toEvent(objectMapper.readValue(event.data(), ISBNSet.class));
+        case "BookMovedToPrinting" -> toEvent(objectMapper.readValue(event.data(), BookMovedToPrinting.class));
+        case "BookPublished" -> toEvent(objectMapper.readValue(event.data(), BookPublished.class));
+        case "BookMovedToOutOfPrint" -> toEvent(objectMapper.readValue(event.data(), BookMovedToOutOfPrint.class));
+        default -> throw new IllegalStateException("Unknown event type: " + event.eventType());
+      };
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error deserializing event", e);
+    }
+  }
+
+  private static DomainEvent toEvent(BookDraftCreated e) {
+    return new BookDraftCreatedEvent(
+      new BookId(e.bookId()),
+      new Title(e.title()),
+      new Author(new AuthorId(e.authorId()), new AuthorFirstName(e.authorFirstName()), new AuthorLastName(e.authorLastName())),
+      new Publisher(new PublisherId(e.publisherId()), new PublisherName(e.publisherName())),
+      new PositiveInt(e.edition()),
+      e.genre() != null ? new Genre(e.genre()) : null
+    );
+  }
+
+  private static DomainEvent toEvent(ChapterAdded e) {
+    return new ChapterAddedEvent(
+      new BookId(e.bookId()),
+      new Chapter(new ChapterNumber(e.number()), new ChapterTitle(e.title()), new ChapterContent(e.content()))
+    );
+  }
+
+  private static DomainEvent toEvent(BookMovedToEditing e) {
+    return new BookMovedToEditingEvent(new BookId(e.bookId()));
+  }
+
+  private static DomainEvent toEvent(TranslationAdded e) {
+    return new TranslationAddedEvent(
+      new BookId(e.bookId()),
+      new Translation(
+        new Language(new LanguageId(e.languageId()), new LanguageName(e.languageName())),
+        new Translator(new TranslatorId(e.translatorId()), new TranslatorName(e.translatorName()))
+      )
+    );
+  }
+
+  private static DomainEvent toEvent(FormatAdded e) {
+    return new FormatAddedEvent(
+      new BookId(e.bookId()),
+      new Format(new FormatType(e.formatType()), new PositiveInt(e.totalCopies()), new PositiveInt(e.soldCopies()))
+    );
+  }
+
+  private static DomainEvent toEvent(FormatRemoved e) {
+    return new FormatRemovedEvent(
+      new BookId(e.bookId()),
+      new Format(new FormatType(e.formatType()), new PositiveInt(e.totalCopies()), new PositiveInt(e.soldCopies()))
+    );
+  }
+
+  private static DomainEvent toEvent(ReviewerAdded e) {
+    return new ReviewerAddedEvent(
+      new BookId(e.bookId()),
+      new Reviewer(new ReviewerId(e.reviewerId()), new ReviewerName(e.reviewerName()))
+    );
+  }
+
+  private static DomainEvent toEvent(BookApproved e) {
+    return new BookApprovedEvent(
+      new BookId(e.bookId()),
+      new CommitteeApproval(e.approved(), new NonEmptyString(e.feedback()))
+    );
+  }
+
+  private static DomainEvent toEvent(ISBNSet e) {
+    return new ISBNSetEvent(new BookId(e.bookId()), new ISBN(e.isbn()));
+  }
+
+  private static DomainEvent toEvent(BookMovedToPrinting e) {
+    return new BookMovedToPrintingEvent(new BookId(e.bookId()));
+  }
+
+  private static DomainEvent toEvent(BookPublished e) {
+    return new BookPublishedEvent(
+      new BookId(e.bookId()),
+      new ISBN(e.isbn()),
+      new Title(e.title()),
+      new Author(new AuthorId(e.authorId()), new AuthorFirstName(e.authorFirstName()), new AuthorLastName(e.authorLastName()))
+    );
+  }
+
+  private static DomainEvent toEvent(BookMovedToOutOfPrint e) {
+    return new BookMovedToOutOfPrintEvent(new BookId(e.bookId()));
+  }
+}
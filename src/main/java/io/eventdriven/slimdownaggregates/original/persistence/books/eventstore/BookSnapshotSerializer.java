@@ -0,0 +1,171 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.eventstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.factories.BookFactory;
+import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.NonEmptyString;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.Snapshot;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Maps the full Book state to a snapshot payload and back.
+ * Bump SCHEMA_VERSION whenever BookState changes, older snapshots are then ignored and the stream is replayed.
+ */
+public class BookSnapshotSerializer {
+  public static final int SCHEMA_VERSION = 1;
+
+  private final ObjectMapper objectMapper;
+  private final BookFactory bookFactory;
+  private final PublishingHouse publishingHouse;
+
+  public BookSnapshotSerializer(ObjectMapper objectMapper, BookFactory bookFactory, PublishingHouse publishingHouse) {
+    this.objectMapper = objectMapper;
+    this.bookFactory = bookFactory;
+    this.publishingHouse = publishingHouse;
+  }
+
+  public boolean isCurrent(Snapshot snapshot) {
+    return snapshot.schemaVersion() == SCHEMA_VERSION;
+  }
+
+  public Snapshot serialize(String streamId, long streamVersion, Book book) {
+    try {
+      return new Snapshot(streamId, streamVersion, SCHEMA_VERSION, objectMapper.writeValueAsString(toState(book)));
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error serializing snapshot", e);
+    }
+  }
+
+  public Book deserialize(Snapshot snapshot) {
+    try {
+      return toBook(objectMapper.readValue(snapshot.data(), BookState.class));
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error deserializing snapshot", e);
+    }
+  }
+
+  private static BookState toState(Book book) {
+    return new BookState(
+      book.id().value(),
+      book.currentState().name(),
+      book.title().value(),
+      book.author().id().value(),
+      book.author().firstName().value(),
+      book.author().lastName().value(),
+      book.publisher().id().value(),
+      book.publisher().name().value(),
+      book.getEdition().value(),
+      book.genre() != null ? book.genre().value() : null,
+      book.isbn() != null ? book.isbn().value() : null,
+      book.publicationDate() != null ? book.publicationDate().toString() : null,
+      book.getTotalPages() != null ? book.getTotalPages().value() : null,
+      book.getNumberOfIllustrations() != null ? book.getNumberOfIllustrations().value() : null,
+      book.getBindingType() != null ? book.getBindingType().value() : null,
+      book.getSummary() != null ? book.getSummary().value() : null,
+      book.getCommitteeApproval() != null
+        ? new CommitteeApprovalState(book.getCommitteeApproval().isApproved(), book.getCommitteeApproval().feedback().value())
+        : null,
+      book.reviewers().stream()
+        .map(r -> new ReviewerState(r.id().value(), r.name().value()))
+        .toList(),
+      book.getChapters().stream()
+        .map(c -> new ChapterState(c.chapterNumber().value(), c.title().value(), c.content().value()))
+        .toList(),
+      book.getTranslations().stream()
+        .map(t -> new TranslationState(
+          t.language().id().value(), t.language().name().value(),
+          t.translator().id().value(), t.translator().name().value()
+        ))
+        .toList(),
+      book.getFormats().stream()
+        .map(f -> new FormatState(f.formatType().value(), f.totalCopies().value(), f.soldCopies().value()))
+        .toList()
+    );
+  }
+
+  private Book toBook(BookState state) {
+    return bookFactory.create(
+      new BookId(state.id()),
+      Book.State.valueOf(state.currentState()),
+      new Title(state.title()),
+      new Author(new AuthorId(state.authorId()), new AuthorFirstName(state.authorFirstName()), new AuthorLastName(state.authorLastName())),
+      publishingHouse,
+      new Publisher(new PublisherId(state.publisherId()), new PublisherName(state.publisherName())),
+      new PositiveInt(state.edition()),
+      state.genre() != null ? new Genre(state.genre()) : null,
+      state.isbn() != null ? new ISBN(state.isbn()) : null,
+      state.publicationDate() != null ? LocalDate.parse(state.publicationDate()) : null,
+      state.totalPages() != null ? new PositiveInt(state.totalPages()) : null,
+      state.numberOfIllustrations() != null ? new PositiveInt(state.numberOfIllustrations()) : null,
+      state.bindingType() != null ? new NonEmptyString(state.bindingType()) : null,
+      state.summary() != null ? new NonEmptyString(state.summary()) : null,
+      state.committeeApproval() != null
+        ? new CommitteeApproval(state.committeeApproval().approved(), new NonEmptyString(state.committeeApproval().feedback()))
+        : null,
+      state.reviewers().stream()
+        .map(r -> new Reviewer(new ReviewerId(r.id()), new ReviewerName(r.name())))
+        .collect(Collectors.toCollection(ArrayList::new)),
+      state.chapters().stream()
+        .map(c -> new Chapter(new ChapterNumber(c.number()), new ChapterTitle(c.title()), new ChapterContent(c.content())))
+        .collect(Collectors.toCollection(ArrayList::new)),
+      state.translations().stream()
+        .map(t -> new Translation(
+          new Language(new LanguageId(t.languageId()), new LanguageName(t.languageName())),
+          new Translator(new TranslatorId(t.translatorId()), new TranslatorName(t.translatorName()))
+        ))
+        .collect(Collectors.toCollection(ArrayList::new)),
+      state.formats().stream()
+        .map(f -> new Format(new FormatType(f.formatType()), new PositiveInt(f.totalCopies()), new PositiveInt(f.soldCopies())))
+        .collect(Collectors.toCollection(ArrayList::new))
+    );
+  }
+
+  record BookState(
+    UUID id,
+    String currentState,
+    String title,
+    UUID authorId,
+    String authorFirstName,
+    String authorLastName,
+    UUID publisherId,
+    String publisherName,
+    int edition,
+    String genre,
+    String isbn,
+    String publicationDate,
+    Integer totalPages,
+    Integer numberOfIllustrations,
+    String bindingType,
+    String summary,
+    CommitteeApprovalState committeeApproval,
+    List<ReviewerState> reviewers,
+    List<ChapterState> chapters,
+    List<TranslationState> translations,
+    List<FormatState> formats
+  ) {
+  }
+
+  record CommitteeApprovalState(boolean approved, String feedback) {
+  }
+
+  record ReviewerState(UUID id, String name) {
+  }
+
+  record ChapterState(int number, String title, String content) {
+  }
+
+  record TranslationState(UUID languageId, String languageName, UUID translatorId, String translatorName) {
+  }
+
+  record FormatState(String formatType, int totalCopies, int soldCopies) {
+  }
+}
@@ -0,0 +1,155 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.eventstore;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.BookMovedToEditingEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.BookMovedToOutOfPrintEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.BookMovedToPrintingEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.BookPublishedEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.EventStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.SnapshotStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageCodec;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+/**
+ * Event-sourced books repository, a write is a single append of the new events to the book stream.
+ * Books are loaded from the latest snapshot plus the events appended after it.
+ * The events are also written to the outbox for the projections, in a transaction committed after the append,
+ * so an append rejected by the stream rolls its messages back. Should the commit fail after the append,
+ * the books' details documents miss the events until they're rebuilt.
+ */
+public class BooksEventStoreRepository implements BooksRepository {
+  private final EventStore eventStore;
+  private final BookEventSerializer serializer;
+  private final PublishingHouse publishingHouse;
+  private final SnapshotStore snapshotStore;
+  private final BookSnapshotSerializer snapshotSerializer;
+  private final int snapshotFrequency;
+  private final OutboxMessageRepository outboxMessageRepository;
+  private final OutboxMessageCodec outboxMessageCodec;
+  private final TransactionTemplate transactionTemplate;
+  // Stream state each loaded book was rebuilt from, the version is used as the expected version on update
+  private final Map<Book, StreamState> loadedStreams = Collections.synchronizedMap(new WeakHashMap<>());
+
+  public BooksEventStoreRepository(
+    EventStore eventStore,
+    BookEventSerializer serializer,
+    PublishingHouse publishingHouse,
+    SnapshotStore snapshotStore,
+    BookSnapshotSerializer snapshotSerializer,
+    int snapshotFrequency,
+    OutboxMessageRepository outboxMessageRepository,
+    OutboxMessageCodec outboxMessageCodec,
+    PlatformTransactionManager transactionManager
+  ) {
+    this.eventStore = eventStore;
+    this.serializer = serializer;
+    this.publishingHouse = publishingHouse;
+    this.snapshotStore = snapshotStore;
+    this.snapshotSerializer = snapshotSerializer;
+    this.snapshotFrequency = snapshotFrequency;
+    this.outboxMessageRepository = outboxMessageRepository;
+    this.outboxMessageCodec = outboxMessageCodec;
+    // Joins the transaction of the command if there's one
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @Override
+  public Optional<Book> findById(BookId bookId) {
+    var streamId = streamId(bookId);
+
+    var snapshot = snapshotStore.load(streamId)
+      .filter(s -> {
+        if (snapshotSerializer.isCurrent(s))
+          return true;
+
+        snapshotStore.delete(streamId);
+        return false;
+      });
+
+    var snapshotVersion = snapshot.map(s -> s.streamVersion()).orElse(EventStore.NO_STREAM);
+    var recorded = eventStore.readStream(streamId, snapshotVersion);
+
+    if (snapshot.isEmpty() && recorded.isEmpty())
+      return Optional.empty();
+
+    var events = recorded.stream().map(serializer::deserialize).toList();
+    var book = snapshot.isPresent()
+      ? Book.rehydrate(snapshotSerializer.deserialize(snapshot.get()), events)
+      : Book.rehydrate(publishingHouse, events);
+
+    var version = recorded.isEmpty() ? snapshotVersion : recorded.get(recorded.size() - 1).streamPosition();
+    loadedStreams.put(book, new StreamState(version, snapshotVersion));
+
+    return Optional.of(book);
+  }
+
+  @Override
+  public void add(Book book) {
+    append(book, new StreamState(EventStore.NO_STREAM, EventStore.NO_STREAM));
+  }
+
+  @Override
+  public void update(Book book) {
+    var loaded = loadedStreams.get(book);
+
+    if (loaded == null)
+      throw new IllegalStateException("Book " + book.id().value() + " has to be loaded before it's updated.");
+
+    append(book, loaded);
+  }
+
+  private void append(Book book, StreamState loaded) {
+    var streamId = streamId(book.id());
+    var domainEvents = book.getDomainEvents();
+
+    if (domainEvents.isEmpty())
+      return;
+
+    var events = domainEvents.stream().map(serializer::serialize).toList();
+    var messages = OutboxMessageEntity.from(book.id().value().toString(), domainEvents, outboxMessageCodec);
+
+    var nextVersion = transactionTemplate.execute(status -> {
+      // Inserted before the append, a failing insert doesn't leave events without their messages
+      outboxMessageRepository.saveAllAndFlush(messages);
+      return eventStore.appendToStream(streamId, loaded.version(), events);
+    });
+    var snapshotVersion = loaded.snapshotVersion();
+
+    if (nextVersion - snapshotVersion >= snapshotFrequency || hasStateTransition(domainEvents)) {
+      snapshotStore.save(snapshotSerializer.serialize(streamId, nextVersion, book));
+      snapshotVersion = nextVersion;
+    }
+
+    book.clearEvents();
+    loadedStreams.put(book, new StreamState(nextVersion, snapshotVersion));
+  }
+
+  private static boolean hasStateTransition(List<DomainEvent> events) {
+    return events.stream().anyMatch(e ->
+      e instanceof BookMovedToEditingEvent
+        || e instanceof BookMovedToPrintingEvent
+        || e instanceof BookPublishedEvent
+        || e instanceof BookMovedToOutOfPrintEvent
+    );
+  }
+
+  private static String streamId(BookId bookId) {
+    return "book-" + bookId.value();
+  }
+
+  private record StreamState(long version, long snapshotVersion) {
+  }
+}
@@ -3,23 +3,35 @@ package io.eventdriven.slimdownaggregates.original.persistence.books.mappers;
 import io.eventdriven.slimdownaggregates.original.domain.books.Book;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
 import io.eventdriven.slimdownaggregates.original.domain.books.factories.BookFactory;
+import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
 import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.NonEmptyString;
 import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.Tuple;
 import io.eventdriven.slimdownaggregates.original.persistence.authors.AuthorEntity;
 import io.eventdriven.slimdownaggregates.original.persistence.books.BookEntity;
 import io.eventdriven.slimdownaggregates.original.persistence.books.entities.ChapterEntity;
 import io.eventdriven.slimdownaggregates.original.persistence.books.entities.FormatEntity;
 import io.eventdriven.slimdownaggregates.original.persistence.books.valueobjects.CommitteeApprovalVO;
 import io.eventdriven.slimdownaggregates.original.persistence.books.valueobjects.TranslationVO;
+import io.eventdriven.slimdownaggregates.original.persistence.core.content.ContentStore;
 import io.eventdriven.slimdownaggregates.original.persistence.publishers.PublisherEntity;
 import io.eventdriven.slimdownaggregates.original.persistence.reviewers.ReviewerEntity;
 import jakarta.persistence.EntityManager;
 
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class BookEntityMapper {
 
-  public static Book mapToAggregate(BookEntity bookEntity, BookFactory bookFactory) {
+  public static Book mapToAggregate(
+    BookEntity bookEntity,
+    BookFactory bookFactory,
+    PublishingHouse publishingHouse,
+    ContentStore contentStore
+  ) {
     var id = new BookId(bookEntity.getId());
     var state = Book.State.valueOf(bookEntity.getCurrentState().name());
     var title = new Title(bookEntity.getTitle());
@@ -47,33 +59,34 @@ public class BookEntityMapper {
     ) : null;
     var reviewers = bookEntity.getReviewers().stream()
       .map(r -> new Reviewer(new ReviewerId(r.getId()), new ReviewerName(r.getName())))
-      .toList();
+      .collect(Collectors.toCollection(ArrayList::new));
+    // Chapter content is only loaded when read, commands work on the chapter metadata
     var chapters = bookEntity.getChapters().stream()
       .map(c -> new Chapter(
         new ChapterNumber(c.getNumber()),
         new ChapterTitle(c.getTitle()),
-        new ChapterContent(c.getContent())))
-      .toList();
+        content(c, contentStore)))
+      .collect(Collectors.toCollection(ArrayList::new));
     var translations = bookEntity.getTranslations().stream()
       .map(c -> new Translation(
         new Language(new LanguageId(c.getLanguageId()), new LanguageName(c.getLanguage().getName())),
         new Translator(new TranslatorId(c.getTranslatorId()), new TranslatorName(c.getTranslator().getName()))
       ))
-      .toList();
+      .collect(Collectors.toCollection(ArrayList::new));
     var formats = bookEntity.getFormats().stream()
       .map(c -> new Format(
         new FormatType(c.getFormatType()),
         new PositiveInt(c.getTotalCopies()),
         new PositiveInt(c.getSoldCopies())
       ))
-      .toList();
+      .collect(Collectors.toCollection(ArrayList::new));
 
     return bookFactory.create(
       id,
       state,
       title,
       author,
-      null, // TODO: Change that to something better
+      publishingHouse,
       publisher,
       edition,
       genre,
@@ -91,17 +104,17 @@ public class BookEntityMapper {
     );
   }
 
-  public static BookEntity mapToEntity(Book book, BookEntity entity, EntityManager em) {
+  public static BookEntity mapToEntity(Book book, BookEntity entity, EntityManager em, ContentStore contentStore) {
     entity.setId(book.id().value());
     entity.setCurrentState(BookEntity.State.valueOf(book.currentState().name()));
     entity.setTitle(book.title().value());
     entity.setGenre(book.genre() != null ? book.genre().value() : null);
 
-    var authorEntity = em.find(AuthorEntity.class, book.author().id().value());
-    entity.setAuthor(authorEntity);
+    // Only the foreign keys are written, so uninitialized references spare selecting the author and publisher.
+    // Both were already resolved by their providers, the foreign keys guard against ones deleted since.
+    entity.setAuthor(em.getReference(AuthorEntity.class, book.author().id().value()));
+    entity.setPublisher(em.getReference(PublisherEntity.class, book.publisher().id().value()));
 
-    var publisherEntity = em.find(PublisherEntity.class, book.publisher().id().value());
-    entity.setPublisher(publisherEntity);
     entity.setEdition(book.getEdition().value());
     entity.setIsbn(book.isbn() != null ? book.isbn().value() : null);
     entity.setPublicationDate(book.publicationDate());
@@ -110,29 +123,57 @@ public class BookEntityMapper {
     entity.setBindingType(book.getBindingType() != null ? book.getBindingType().value() : null);
     entity.setSummary(book.getSummary() != null ? book.getSummary().value() : null);
 
-    entity.getReviewers().clear();
-    var reviewers = book.reviewers().stream()
-      .map(r -> new ReviewerEntity(r.id().value(), r.name().value()))
-      .toList();
-    entity.setReviewers(reviewers);
-
-    entity.getChapters().clear();
-    var chapters = book.getChapters().stream()
-      .map(c -> new ChapterEntity(entity.getId(), c.chapterNumber().value(), c.title().value(), c.content().value()))
-      .toList();
-    entity.setChapters(chapters);
-
-    entity.getTranslations().clear();
-    var translations = book.getTranslations().stream()
-      .map(c -> new TranslationVO(c.language().id().value(), c.translator().id().value()))
-      .toList();
-    entity.setTranslations(translations);
-
-    entity.getFormats().clear();
-    var formats = book.getFormats().stream()
-      .map(c -> new FormatEntity(entity.getId(), c.formatType().value(), c.totalCopies().value(), c.soldCopies().value()))
-      .toList();
-    entity.setFormats(formats);
+    sync(
+      entity.getReviewers(),
+      book.reviewers(),
+      ReviewerEntity::getId,
+      r -> r.id().value(),
+      r -> new ReviewerEntity(r.id().value(), r.name().value(), entity),
+      (e, r) -> {
+        if (!r.name().value().equals(e.getName()))
+          e.setName(r.name().value());
+      },
+      e -> {
+      }
+    );
+
+    sync(
+      entity.getChapters(),
+      book.getChapters(),
+      ChapterEntity::getNumber,
+      c -> c.chapterNumber().value(),
+      c -> new ChapterEntity(entity.getId(), c.chapterNumber().value(), c.title().value(), contentStore.save(c.content().value())),
+      (e, c) -> e.update(c, contentStore),
+      e -> contentStore.delete(e.getContentId())
+    );
+
+    sync(
+      entity.getTranslations(),
+      book.getTranslations(),
+      t -> new Tuple<>(t.getLanguageId(), t.getTranslatorId()),
+      t -> new Tuple<>(t.language().id().value(), t.translator().id().value()),
+      t -> new TranslationVO(t.language().id().value(), t.translator().id().value()),
+      (e, t) -> {
+      },
+      e -> {
+      }
+    );
+
+    sync(
+      entity.getFormats(),
+      book.getFormats(),
+      FormatEntity::getFormatType,
+      f -> f.formatType().value(),
+      f -> new FormatEntity(entity.getId(), f.formatType().value(), f.totalCopies().value(), f.soldCopies().value()),
+      (e, f) -> {
+        if (e.getTotalCopies() != f.totalCopies().value())
+          e.setTotalCopies(f.totalCopies().value());
+        if (e.getSoldCopies() != f.soldCopies().value())
+          e.setSoldCopies(f.soldCopies().value());
+      },
+      e -> {
+      }
+    );
 
     var committeeApproval = book.getCommitteeApproval() != null
       ? new CommitteeApprovalVO(
@@ -143,4 +184,55 @@ public class BookEntityMapper {
 
     return entity;
   }
+
+  private static ChapterContent content(ChapterEntity chapter, ContentStore contentStore) {
+    if (chapter.hasLegacyContent())
+      return new ChapterContent(chapter.getLegacyContent());
+
+    var contentId = chapter.getContentId();
+    return contentId != null ? ChapterContent.lazy(chapter.getContentHash(), () -> contentStore.load(contentId)) : ChapterContent.empty;
+  }
+
+  /**
+   * Merges the aggregate children into the managed entity collection by their natural key.
+   * Rows that didn't change are left untouched, so Hibernate only emits statements for
+   * the actual inserts, updates and deletes instead of rewriting the whole collection.
+   */
+  private static <TEntity, TChild, TKey> void sync(
+    Collection<TEntity> entities,
+    List<TChild> children,
+    Function<TEntity, TKey> entityKey,
+    Function<TChild, TKey> childKey,
+    Function<TChild, TEntity> create,
+    BiConsumer<TEntity, TChild> update,
+    Consumer<TEntity> remove
+  ) {
+    var existing = new HashMap<TKey, TEntity>(entities.size());
+    for (var entity : entities) {
+      existing.put(entityKey.apply(entity), entity);
+    }
+
+    var expected = new HashSet<TKey>(children.size());
+    for (var child : children) {
+      var key = childKey.apply(child);
+      expected.add(key);
+
+      var entity = existing.get(key);
+      if (entity == null) {
+        entities.add(create.apply(child));
+      } else {
+        update.accept(entity, child);
+      }
+    }
+
+    if (!expected.containsAll(existing.keySet())) {
+      entities.removeIf(e -> {
+        if (expected.contains(entityKey.apply(e)))
+          return false;
+
+        remove.accept(e);
+        return true;
+      });
+    }
+  }
 }
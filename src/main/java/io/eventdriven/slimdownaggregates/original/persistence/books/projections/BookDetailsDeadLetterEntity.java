@@ -0,0 +1,69 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.projections;
+
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageEntity;
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox message the book details projection couldn't apply, its book's document misses the change until replayed.
+ */
+@Entity
+@Table(name = "book_details_dead_letters", indexes = @Index(name = "book_details_dead_letters_book_idx", columnList = "bookId"))
+public class BookDetailsDeadLetterEntity {
+  // Position the message has in the outbox
+  @Id
+  private Long position;
+
+  // Null when the message has no book id, replaying can't rebuild a document for it
+  private UUID bookId;
+
+  @Column(nullable = false)
+  private short messageTypeId;
+
+  @Column(nullable = false, columnDefinition = "bytea")
+  private byte[] data;
+
+  @Column(columnDefinition = "text")
+  private String error;
+
+  @Column(nullable = false)
+  private OffsetDateTime failed;
+
+  // Default constructor required by JPA
+  public BookDetailsDeadLetterEntity() {}
+
+  public BookDetailsDeadLetterEntity(OutboxMessageEntity message, UUID bookId, String error, OffsetDateTime failed) {
+    this.position = message.getPosition();
+    this.bookId = bookId;
+    this.messageTypeId = message.getMessageTypeId();
+    this.data = message.getData();
+    this.error = error;
+    this.failed = failed;
+  }
+
+  public Long getPosition() {
+    return position;
+  }
+
+  public UUID getBookId() {
+    return bookId;
+  }
+
+  public short getMessageTypeId() {
+    return messageTypeId;
+  }
+
+  public byte[] getData() {
+    return data;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public OffsetDateTime getFailed() {
+    return failed;
+  }
+}
@@ -0,0 +1,23 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.projections;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BookDetailsDeadLetterRepository extends JpaRepository<BookDetailsDeadLetterEntity, Long> {
+  @Query("select distinct d.bookId from BookDetailsDeadLetterEntity d where d.bookId is not null")
+  List<UUID> findBookIds();
+
+  List<BookDetailsDeadLetterEntity> findByBookId(UUID bookId);
+
+  // Only letters up to the rebuilt position, one failing after the rebuild stays
+  @Modifying
+  @Query("delete from BookDetailsDeadLetterEntity d where d.bookId = :bookId and d.position <= :position")
+  int deleteByBookIdUpTo(@Param("bookId") UUID bookId, @Param("position") long position);
+}
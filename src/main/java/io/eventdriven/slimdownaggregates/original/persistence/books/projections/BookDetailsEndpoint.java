@@ -0,0 +1,32 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.projections;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Operations on the book details documents, POST /actuator/bookdetails replays the dead letters
+ * and POST /actuator/bookdetails/{bookId} rebuilds the document of a single book.
+ */
+@Endpoint(id = "bookdetails")
+public class BookDetailsEndpoint {
+  private final BookDetailsProjection projection;
+
+  public BookDetailsEndpoint(BookDetailsProjection projection) {
+    this.projection = projection;
+  }
+
+  @WriteOperation
+  public Map<String, Integer> replayDeadLetters() {
+    return Map.of("rebuilt", projection.replayDeadLetters());
+  }
+
+  @WriteOperation
+  public Map<String, Boolean> rebuild(@Selector UUID bookId) {
+    return Map.of("rebuilt", projection.rebuild(new BookId(bookId)));
+  }
+}
@@ -0,0 +1,71 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.projections;
+
+import jakarta.persistence.*;
+
+import java.util.UUID;
+
+/**
+ * Denormalized BookDetails read model, the whole document is stored in a single row.
+ * Columns used for listing are kept next to it, each filter index ends with the id to seek pages by it.
+ */
+@Entity
+@Table(
+  name = "book_details",
+  indexes = {
+    @Index(name = "book_details_current_state_idx", columnList = "currentState, id"),
+    @Index(name = "book_details_genre_idx", columnList = "genre, id"),
+    @Index(name = "book_details_publisher_idx", columnList = "publisherId, id")
+  }
+)
+public class BookDetailsEntity {
+  @Id
+  private UUID id;
+
+  @Column(nullable = false)
+  private UUID publisherId;
+
+  private String publisherName;
+
+  private String title;
+
+  private String currentState;
+
+  private String genre;
+
+  // BookDetails serialised as JSON
+  @Column(nullable = false, columnDefinition = "text")
+  private String data;
+
+  // Outbox position of the last applied event, acts as the projection checkpoint for the book
+  @Column(nullable = false)
+  private long lastPosition;
+
+  // Default constructor required by JPA
+  public BookDetailsEntity() {}
+
+  public BookDetailsEntity(UUID id, UUID publisherId) {
+    this.id = id;
+    this.publisherId = publisherId;
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  public String getData() {
+    return data;
+  }
+
+  public long getLastPosition() {
+    return lastPosition;
+  }
+
+  public void update(String title, String currentState, String genre, String publisherName, String data, long lastPosition) {
+    this.title = title;
+    this.currentState = currentState;
+    this.genre = genre;
+    this.publisherName = publisherName;
+    this.data = data;
+    this.lastPosition = lastPosition;
+  }
+}
@@ -0,0 +1,367 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.projections;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetailsChanged;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.events.BookEventPayloads.*;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageCodec;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps the BookDetails document of each book up to date from the relayed outbox messages.
+ * Each message is applied in its own transaction, so the document and its checkpoint commit together,
+ * and messages at or below the checkpoint are skipped when a batch is delivered again.
+ * A message failing transiently, e.g. on a lock or connection, is retried with backoff.
+ * One that still fails is stored in book_details_dead_letters instead of stalling the relay batch,
+ * replaying the dead letters rebuilds their books' documents from the stored books.
+ * Each update publishes BookDetailsChanged, so listeners can react once the transaction commits.
+ */
+public class BookDetailsProjection {
+  private static final Logger logger = LoggerFactory.getLogger(BookDetailsProjection.class);
+  private static final Duration RETRY_DELAY = Duration.ofMillis(100);
+
+  private final BookDetailsJpaRepository repository;
+  private final BookDetailsDeadLetterRepository deadLetterRepository;
+  private final BooksRepository booksRepository;
+  private final OutboxMessageRepository outboxMessageRepository;
+  private final OutboxMessageCodec codec;
+  private final ObjectMapper objectMapper;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate rebuildTransactionTemplate;
+  private final int maxAttempts;
+  private final Counter failures;
+  private final Map<Class<?>, BiConsumer<BookEventPayload, ObjectNode>> handlers = new HashMap<>();
+
+  public BookDetailsProjection(
+    BookDetailsJpaRepository repository,
+    BookDetailsDeadLetterRepository deadLetterRepository,
+    BooksRepository booksRepository,
+    OutboxMessageRepository outboxMessageRepository,
+    OutboxMessageCodec codec,
+    ObjectMapper objectMapper,
+    ApplicationEventPublisher eventPublisher,
+    PlatformTransactionManager transactionManager,
+    int maxAttempts,
+    MeterRegistry meterRegistry
+  ) {
+    this.repository = repository;
+    this.deadLetterRepository = deadLetterRepository;
+    this.booksRepository = booksRepository;
+    this.outboxMessageRepository = outboxMessageRepository;
+    this.codec = codec;
+    this.objectMapper = objectMapper;
+    this.eventPublisher = eventPublisher;
+    // Independent of the relay batch transaction the message is delivered in
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    // The book and the last outbox position written with it are read from the same snapshot
+    this.rebuildTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.rebuildTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.rebuildTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.maxAttempts = maxAttempts;
+    this.failures = Counter.builder("books.details.projection.failures")
+      .description("Messages moved to the book details dead letters")
+      .register(meterRegistry);
+
+    on(BookDraftCreated.class, BookDetailsProjection::draftCreated);
+    on(ChapterAdded.class, BookDetailsProjection::chapterAdded);
+    on(BookMovedToEditing.class, (event, details) -> details.put("currentState", Book.State.EDITING.name()));
+    on(TranslationAdded.class, BookDetailsProjection::translationAdded);
+    on(FormatAdded.class, BookDetailsProjection::formatAdded);
+    on(FormatRemoved.class, BookDetailsProjection::formatRemoved);
+    on(ReviewerAdded.class, (event, details) -> details.withArray("reviewers").add(event.reviewerName()));
+    on(BookApproved.class, BookDetailsProjection::approved);
+    on(ISBNSet.class, (event, details) -> details.put("isbn", event.isbn()));
+    on(BookMovedToPrinting.class, (event, details) -> details.put("currentState", Book.State.PRINTING.name()));
+    on(BookPublished.class, BookDetailsProjection::published);
+    on(BookMovedToOutOfPrint.class, (event, details) -> details.put("currentState", Book.State.OUT_OF_PRINT.name()));
+  }
+
+  private <P extends BookEventPayload> void on(Class<P> payloadType, BiConsumer<P, ObjectNode> handler) {
+    handlers.put(payloadType, (event, details) -> handler.accept(payloadType.cast(event), details));
+  }
+
+  @EventListener
+  public void handle(OutboxMessageEntity message) {
+    var handler = handlers.get(codec.registry().payloadTypeOf(message.getMessageTypeId()));
+
+    if (handler == null)
+      return;
+
+    var retryDelay = RETRY_DELAY;
+
+    for (int attempt = 1; ; attempt++) {
+      try {
+        transactionTemplate.executeWithoutResult(status -> apply(message, handler));
+        return;
+      } catch (RuntimeException e) {
+        if (attempt == maxAttempts || !isTransient(e)) {
+          deadLetter(message, e);
+          return;
+        }
+        logger.warn("Cannot apply outbox message {} to the book details, retrying in {}", message.getPosition(), retryDelay, e);
+      }
+
+      try {
+        Thread.sleep(retryDelay.toMillis());
+      } catch (InterruptedException e) {
+        // Stopping, the relay delivers the message again after restart
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted applying outbox message " + message.getPosition(), e);
+      }
+      retryDelay = retryDelay.multipliedBy(2);
+    }
+  }
+
+  /**
+   * Builds the document of the book again from the stored book, e.g. for one that missed a change.
+   * Returns false when the book doesn't exist, its document is then removed.
+   */
+  public boolean rebuild(BookId bookId) {
+    return Boolean.TRUE.equals(rebuildTransactionTemplate.execute(status -> {
+      var entity = repository.findById(bookId.value());
+      // Messages up to it are already part of the book, they're skipped when delivered later
+      var lastPosition = outboxMessageRepository.findLastPosition(bookId.value().toString());
+      var book = booksRepository.findById(bookId);
+
+      if (book.isEmpty()) {
+        entity.ifPresent(repository::delete);
+        return false;
+      }
+
+      var details = document(book.get());
+      // Delivered messages can be deleted from the outbox, the checkpoint then stays where it was
+      var position = Math.max(
+        lastPosition != null ? lastPosition : 0,
+        entity.map(BookDetailsEntity::getLastPosition).orElse(0L)
+      );
+      store(entity, bookId.value(), book.get().publisher().id().value(), details, position);
+
+      deadLetterRepository.deleteByBookIdUpTo(bookId.value(), position);
+      return true;
+    }));
+  }
+
+  /**
+   * Rebuilds the documents of the books with dead letters and removes their letters.
+   * A book whose rebuild fails keeps its letters for the next replay. Returns the number of rebuilt books.
+   */
+  public int replayDeadLetters() {
+    var rebuilt = 0;
+
+    for (var bookId : deadLetterRepository.findBookIds()) {
+      try {
+        rebuild(new BookId(bookId));
+        rebuilt++;
+      } catch (RuntimeException e) {
+        logger.error("Cannot rebuild the book details of {}", bookId, e);
+      }
+    }
+
+    return rebuilt;
+  }
+
+  private void apply(OutboxMessageEntity message, BiConsumer<BookEventPayload, ObjectNode> handler) {
+    var event = (BookEventPayload) codec.decode(message);
+    var bookId = event.bookId();
+    var entity = repository.findById(bookId);
+
+    // Book was created before the projection existed, there's no draft to build the document from
+    if (entity.isEmpty() && !(event instanceof BookDraftCreated))
+      return;
+
+    if (entity.isPresent() && message.getPosition() <= entity.get().getLastPosition())
+      return;
+
+    var details = entity.isPresent() ? read(entity.get().getData()) : objectMapper.createObjectNode();
+    handler.accept(event, details);
+
+    var publisherId = entity.isPresent() ? null : ((BookDraftCreated) event).publisherId();
+    store(entity, bookId, publisherId, details, message.getPosition());
+  }
+
+  private void store(Optional<BookDetailsEntity> entity, UUID bookId, UUID publisherId, ObjectNode details, long position) {
+    var updated = entity.orElseGet(() -> new BookDetailsEntity(bookId, publisherId));
+    updated.update(
+      details.path("title").asText(),
+      details.path("currentState").asText(),
+      details.path("genre").textValue(),
+      details.path("publisherName").asText(),
+      write(details),
+      position
+    );
+
+    if (entity.isEmpty())
+      repository.save(updated);
+
+    eventPublisher.publishEvent(new BookDetailsChanged(new BookId(bookId)));
+  }
+
+  private void deadLetter(OutboxMessageEntity message, RuntimeException failure) {
+    // Saving the letter failing too leaves the message to the relay, it's delivered again
+    transactionTemplate.executeWithoutResult(status ->
+      deadLetterRepository.save(new BookDetailsDeadLetterEntity(message, bookIdOf(message), failure.toString(), OffsetDateTime.now()))
+    );
+    failures.increment();
+    logger.error("Cannot apply outbox message {} to the book details, moved it to the dead letters", message.getPosition(), failure);
+  }
+
+  private static UUID bookIdOf(OutboxMessageEntity message) {
+    try {
+      return message.getAggregateId() != null ? UUID.fromString(message.getAggregateId()) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  // Failures that may pass when the same message is applied again
+  private static boolean isTransient(RuntimeException e) {
+    return e instanceof TransientDataAccessException
+      || e instanceof RecoverableDataAccessException
+      || e instanceof CannotCreateTransactionException;
+  }
+
+  /**
+   * Same document the handlers build from the book's events.
+   */
+  private ObjectNode document(Book book) {
+    var details = objectMapper.createObjectNode();
+    details.put("id", book.id().value().toString());
+    details.put("currentState", book.currentState().name());
+    details.put("title", book.title().value());
+    details.putObject("author")
+      .put("firstName", book.author().firstName().value())
+      .put("lastName", book.author().lastName().value());
+    details.put("publisherName", book.publisher().name().value());
+    details.put("edition", book.getEdition().value());
+    details.put("genre", book.genre() != null ? book.genre().value() : null);
+
+    if (book.isbn() != null)
+      details.put("isbn", book.isbn().value());
+    if (book.getCommitteeApproval() != null)
+      details.putObject("committeeApproval")
+        .put("isApproved", book.getCommitteeApproval().isApproved())
+        .put("feedback", book.getCommitteeApproval().feedback().value());
+
+    var reviewers = details.putArray("reviewers");
+    book.reviewers().forEach(reviewer -> reviewers.add(reviewer.name().value()));
+
+    var chapters = details.putArray("chapters");
+    book.getChapters().forEach(chapter -> chapters.addObject()
+      .put("number", chapter.chapterNumber().value())
+      .put("title", chapter.title().value()));
+
+    var translations = details.putArray("translations");
+    book.getTranslations().forEach(translation -> translations.addObject()
+      .put("language", translation.language().name().value())
+      .put("translator", translation.translator().name().value()));
+
+    var formats = details.putArray("formats");
+    book.getFormats().forEach(format -> formats.addObject()
+      .put("formatType", format.formatType().value())
+      .put("totalCopies", format.totalCopies().value())
+      .put("soldCopies", format.soldCopies().value()));
+
+    return details;
+  }
+
+  private static void draftCreated(BookDraftCreated event, ObjectNode details) {
+    details.put("id", event.bookId().toString());
+    details.put("currentState", Book.State.WRITING.name());
+    details.put("title", event.title());
+    details.putObject("author")
+      .put("firstName", event.authorFirstName())
+      .put("lastName", event.authorLastName());
+    details.put("publisherName", event.publisherName());
+    details.put("edition", event.edition());
+    details.put("genre", event.genre());
+    details.putArray("reviewers");
+    details.putArray("chapters");
+    details.putArray("translations");
+    details.putArray("formats");
+  }
+
+  private static void chapterAdded(ChapterAdded event, ObjectNode details) {
+    // Content isn't copied, documents stay small however long the chapters are
+    details.withArray("chapters").addObject()
+      .put("number", event.number())
+      .put("title", event.title());
+  }
+
+  private static void translationAdded(TranslationAdded event, ObjectNode details) {
+    details.withArray("translations").addObject()
+      .put("language", event.languageName())
+      .put("translator", event.translatorName());
+  }
+
+  private static void formatAdded(FormatAdded event, ObjectNode details) {
+    details.withArray("formats").addObject()
+      .put("formatType", event.formatType())
+      .put("totalCopies", event.totalCopies())
+      .put("soldCopies", event.soldCopies());
+  }
+
+  private static void formatRemoved(FormatRemoved event, ObjectNode details) {
+    var formats = details.withArray("formats");
+
+    for (int i = 0; i < formats.size(); i++) {
+      if (formats.get(i).path("formatType").asText().equals(event.formatType())) {
+        formats.remove(i);
+        return;
+      }
+    }
+  }
+
+  private static void approved(BookApproved event, ObjectNode details) {
+    details.putObject("committeeApproval")
+      .put("isApproved", event.approved())
+      .put("feedback", event.feedback());
+  }
+
+  private static void published(BookPublished event, ObjectNode details) {
+    details.put("currentState", Book.State.PUBLISHED.name());
+    details.put("isbn", event.isbn());
+  }
+
+  private ObjectNode read(String data) {
+    try {
+      return (ObjectNode) objectMapper.readTree(data);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error deserializing book details", e);
+    }
+  }
+
+  private String write(ObjectNode details) {
+    try {
+      return objectMapper.writeValueAsString(details);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error serializing book details", e);
+    }
+  }
+}
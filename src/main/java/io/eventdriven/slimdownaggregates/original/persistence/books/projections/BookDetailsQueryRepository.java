@@ -0,0 +1,111 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.projections;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetails;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummary;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummaryFilter;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksQueryRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads book details from the projected document, a single primary key lookup without joins.
+ * Listings seek by id instead of using an offset, so every page costs the same index range scan.
+ */
+public class BookDetailsQueryRepository implements BooksQueryRepository {
+  private static final int STREAM_FETCH_SIZE = 500;
+  private static final RowMapper<BookSummary> SUMMARY_MAPPER = (rs, rowNum) -> new BookSummary(
+    rs.getObject("id", UUID.class),
+    rs.getString("title"),
+    rs.getString("current_state"),
+    rs.getString("genre"),
+    rs.getObject("publisher_id", UUID.class),
+    rs.getString("publisher_name")
+  );
+
+  private final BookDetailsJpaRepository repository;
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectMapper objectMapper;
+
+  public BookDetailsQueryRepository(BookDetailsJpaRepository repository, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+    this.repository = repository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public Optional<BookDetails> findDetailsById(BookId bookId) {
+    return repository.findById(bookId.value())
+      .map(entity -> {
+        try {
+          return objectMapper.readValue(entity.getData(), BookDetails.class);
+        } catch (JsonProcessingException e) {
+          throw new RuntimeException("Error deserializing book details", e);
+        }
+      });
+  }
+
+  @Override
+  public List<BookSummary> findSummaries(BookSummaryFilter filter, BookId after, int limit) {
+    var args = new ArrayList<>();
+    var sql = summariesQuery(filter, after, args) + " LIMIT ?";
+    args.add(limit);
+
+    return jdbcTemplate.query(sql, SUMMARY_MAPPER, args.toArray());
+  }
+
+  // Postgres only streams from a server-side cursor inside a transaction and with the fetch size set
+  @Override
+  @Transactional(readOnly = true)
+  public void streamSummaries(BookSummaryFilter filter, Consumer<BookSummary> consumer) {
+    var args = new ArrayList<>();
+    var sql = summariesQuery(filter, null, args);
+
+    jdbcTemplate.query(
+      connection -> {
+        var statement = connection.prepareStatement(sql);
+        statement.setFetchSize(STREAM_FETCH_SIZE);
+        for (int i = 0; i < args.size(); i++) {
+          statement.setObject(i + 1, args.get(i));
+        }
+        return statement;
+      },
+      (RowCallbackHandler) rs -> consumer.accept(SUMMARY_MAPPER.mapRow(rs, rs.getRow()))
+    );
+  }
+
+  private static String summariesQuery(BookSummaryFilter filter, BookId after, List<Object> args) {
+    var conditions = new ArrayList<String>();
+
+    if (filter.currentState() != null) {
+      conditions.add("current_state = ?");
+      args.add(filter.currentState().name());
+    }
+    if (filter.genre() != null) {
+      conditions.add("genre = ?");
+      args.add(filter.genre().value());
+    }
+    if (filter.publisherId() != null) {
+      conditions.add("publisher_id = ?");
+      args.add(filter.publisherId().value());
+    }
+    if (after != null) {
+      conditions.add("id > ?");
+      args.add(after.value());
+    }
+
+    return "SELECT id, title, current_state, genre, publisher_id, publisher_name FROM book_details"
+      + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+      + " ORDER BY id";
+  }
+}
@@ -4,13 +4,17 @@ import io.eventdriven.slimdownaggregates.original.domain.books.Book;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
 import io.eventdriven.slimdownaggregates.original.domain.books.factories.BookFactory;
 import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
 import io.eventdriven.slimdownaggregates.original.persistence.books.BookEntity;
 import io.eventdriven.slimdownaggregates.original.persistence.books.mappers.BookEntityMapper;
+import io.eventdriven.slimdownaggregates.original.persistence.core.content.ContentStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageCodec;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageRepository;
 import io.eventdriven.slimdownaggregates.original.persistence.core.repositories.JpaEntityRepository;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
 
 import java.util.Optional;
@@ -22,40 +26,60 @@ public class BooksEntityRepository extends JpaEntityRepository<Book, UUID, BookE
   @PersistenceContext
   private EntityManager entityManager;
 
+  private final BooksJpaRepository booksJpaRepository;
   private final BookFactory bookFactory;
+  private final PublishingHouse publishingHouse;
+  private final ContentStore contentStore;
 
   @Autowired
-  public BooksEntityRepository(BooksJpaRepository jpaRepository, BookFactory bookFactory) {
-      super(jpaRepository);
+  public BooksEntityRepository(
+    BooksJpaRepository jpaRepository,
+    OutboxMessageRepository outboxMessageRepository,
+    OutboxMessageCodec outboxMessageCodec,
+    BookFactory bookFactory,
+    PublishingHouse publishingHouse,
+    ContentStore contentStore
+  ) {
+      super(jpaRepository, outboxMessageRepository, outboxMessageCodec);
+      this.booksJpaRepository = jpaRepository;
       this.bookFactory = bookFactory;
+      this.publishingHouse = publishingHouse;
+      this.contentStore = contentStore;
   }
 
   @Override
-  @EntityGraph(attributePaths = {
-    "author",
-    "publisher",
-    "reviewers",
-    "chapters",
-    "translations",
-    "formats"
-  })
+  @Transactional(readOnly = true)
   public Optional<Book> findById(BookId id) {
     return super.findById(id.value());
   }
 
+  @Override
+  protected Optional<BookEntity> loadEntity(UUID id) {
+    var entity = booksJpaRepository.findWithReferencesById(id);
+
+    if (entity.isPresent()) {
+      booksJpaRepository.fetchReviewersById(id);
+      booksJpaRepository.fetchChaptersById(id);
+      booksJpaRepository.fetchTranslationsById(id);
+      booksJpaRepository.fetchFormatsById(id);
+    }
+
+    return entity;
+  }
+
   @Override
   protected Book mapToAggregate(BookEntity entity) {
-    return BookEntityMapper.mapToAggregate(entity, bookFactory);
+    return BookEntityMapper.mapToAggregate(entity, bookFactory, publishingHouse, contentStore);
   }
 
   @Override
   protected BookEntity mapToEntity(Book aggregate) {
-    return BookEntityMapper.mapToEntity(aggregate, new BookEntity(), entityManager);
+    return BookEntityMapper.mapToEntity(aggregate, new BookEntity(), entityManager, contentStore);
   }
 
   @Override
   protected void updateEntity(BookEntity entity, Book aggregate) {
-      BookEntityMapper.mapToEntity(aggregate, entity, entityManager);
+      BookEntityMapper.mapToEntity(aggregate, entity, entityManager, contentStore);
   }
 
   @Override
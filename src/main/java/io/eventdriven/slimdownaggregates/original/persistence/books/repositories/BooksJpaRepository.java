@@ -2,11 +2,31 @@ package io.eventdriven.slimdownaggregates.original.persistence.books.repositorie
 
 import io.eventdriven.slimdownaggregates.original.persistence.books.BookEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Component;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface BooksJpaRepository extends JpaRepository<BookEntity, UUID> {
+  @Query("select b from BookEntity b left join fetch b.author left join fetch b.publisher where b.id = :id")
+  Optional<BookEntity> findWithReferencesById(@Param("id") UUID id);
+
+  // Each collection is fetched with a separate query to avoid the cartesian product of joining them all,
+  // results are merged into the same managed BookEntity by the persistence context.
+
+  @Query("select b from BookEntity b left join fetch b.reviewers where b.id = :id")
+  Optional<BookEntity> fetchReviewersById(@Param("id") UUID id);
+
+  @Query("select b from BookEntity b left join fetch b.chapters where b.id = :id")
+  Optional<BookEntity> fetchChaptersById(@Param("id") UUID id);
+
+  // Languages and translators are read with their translations, mapping doesn't load them one by one
+  @Query("select b from BookEntity b left join fetch b.translations t left join fetch t.language left join fetch t.translator where b.id = :id")
+  Optional<BookEntity> fetchTranslationsById(@Param("id") UUID id);
+
+  @Query("select b from BookEntity b left join fetch b.formats where b.id = :id")
+  Optional<BookEntity> fetchFormatsById(@Param("id") UUID id);
 }
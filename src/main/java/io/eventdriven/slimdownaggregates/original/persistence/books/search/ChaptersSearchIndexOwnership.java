@@ -0,0 +1,116 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.search;
+
+import io.eventdriven.slimdownaggregates.original.persistence.core.search.SearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The chapters index lives in a local directory and is fed by the relay of this process only,
+ * relays of other nodes would deliver part of the chapters to indexes of their own. So the index is served
+ * by a single node, holding a Postgres advisory lock for its lifetime. A node not getting the lock starts anyway,
+ * without indexing, relaying or serving searches, see the outbox relay start condition in Config.
+ * It starts before the relay, rebuilding an empty index from the stored chapters first.
+ */
+public class ChaptersSearchIndexOwnership implements SmartLifecycle {
+  private static final Logger logger = LoggerFactory.getLogger(ChaptersSearchIndexOwnership.class);
+  private static final long LOCK_KEY = 0x7365617263684cL;
+
+  private final DataSource dataSource;
+  private final SearchIndex index;
+  private final ChaptersSearchIndexRebuild rebuild;
+  private final boolean rebuildWhenEmpty;
+
+  // Session level lock, the connection is kept out of the pool while it's held
+  private Connection lockConnection;
+  private boolean running;
+
+  public ChaptersSearchIndexOwnership(
+    DataSource dataSource,
+    SearchIndex index,
+    ChaptersSearchIndexRebuild rebuild,
+    boolean rebuildWhenEmpty
+  ) {
+    this.dataSource = dataSource;
+    this.index = index;
+    this.rebuild = rebuild;
+    this.rebuildWhenEmpty = rebuildWhenEmpty;
+  }
+
+  @Override
+  public synchronized void start() {
+    if (running)
+      return;
+
+    running = true;
+    lockConnection = lock();
+
+    if (lockConnection == null) {
+      logger.warn("Chapters search index is served by another node, this one starts without it");
+      return;
+    }
+
+    if (rebuildWhenEmpty && index.isEmpty()) {
+      var indexed = rebuild.rebuild();
+      logger.info("Rebuilt chapters search index with {} chapters", indexed);
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    running = false;
+    if (lockConnection == null)
+      return;
+
+    // Closing only returns the connection to the pool, the lock would stay with it
+    try (var connection = lockConnection; var statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+      statement.setLong(1, LOCK_KEY);
+      statement.execute();
+    } catch (SQLException e) {
+      logger.warn("Cannot release chapters search index lock", e);
+    }
+    lockConnection = null;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return running;
+  }
+
+  public synchronized boolean isOwner() {
+    return lockConnection != null;
+  }
+
+  // Before the relay and the other lifecycle beans
+  @Override
+  public int getPhase() {
+    return Integer.MIN_VALUE;
+  }
+
+  // Null when another node holds the lock
+  private Connection lock() {
+    try {
+      var connection = dataSource.getConnection();
+      try (var statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+        statement.setLong(1, LOCK_KEY);
+
+        try (var result = statement.executeQuery()) {
+          if (result.next() && result.getBoolean(1))
+            return connection;
+        }
+      } catch (SQLException | RuntimeException e) {
+        connection.close();
+        throw e;
+      }
+
+      connection.close();
+      return null;
+    } catch (SQLException e) {
+      throw new IllegalStateException("Cannot lock chapters search index", e);
+    }
+  }
+}
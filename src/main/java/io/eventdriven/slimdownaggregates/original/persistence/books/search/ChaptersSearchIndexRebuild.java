@@ -0,0 +1,92 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.search;
+
+import io.eventdriven.slimdownaggregates.original.persistence.books.entities.ChapterEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.core.content.ContentStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.search.SearchDocument;
+import io.eventdriven.slimdownaggregates.original.persistence.core.search.SearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Indexes all chapters stored with the books again, for a new or lost index directory.
+ * Chapters are read in pages seeking by book id and chapter number, one read-only transaction per page,
+ * so the rebuild doesn't hold a transaction or the whole table in memory.
+ */
+public class ChaptersSearchIndexRebuild {
+  private static final int PAGE_SIZE = 500;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private final SearchIndex index;
+  private final ContentStore contentStore;
+  private final TransactionTemplate transactionTemplate;
+
+  public ChaptersSearchIndexRebuild(SearchIndex index, ContentStore contentStore, PlatformTransactionManager transactionManager) {
+    this.index = index;
+    this.contentStore = contentStore;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  /**
+   * Returns the number of indexed chapters.
+   */
+  public long rebuild() {
+    long indexed = 0;
+    UUID bookId = null;
+    int number = 0;
+
+    while (true) {
+      var afterBookId = bookId;
+      var afterNumber = number;
+      var page = transactionTemplate.execute(status -> indexPage(afterBookId, afterNumber));
+
+      if (page == null || page.isEmpty())
+        return indexed;
+
+      index.sync();
+      indexed += page.size();
+
+      var last = page.get(page.size() - 1);
+      bookId = last.getBookId();
+      number = last.getNumber();
+    }
+  }
+
+  private List<ChapterEntity> indexPage(UUID afterBookId, int afterNumber) {
+    var query = afterBookId == null
+      ? entityManager.createQuery("select c from ChapterEntity c order by c.bookId, c.number", ChapterEntity.class)
+      : entityManager.createQuery(
+          "select c from ChapterEntity c where c.bookId > :bookId or (c.bookId = :bookId and c.number > :number) "
+            + "order by c.bookId, c.number",
+          ChapterEntity.class
+        )
+        .setParameter("bookId", afterBookId)
+        .setParameter("number", afterNumber);
+
+    var chapters = query.setMaxResults(PAGE_SIZE).getResultList();
+    var contents = contentStore.loadAll(
+      chapters.stream().map(ChapterEntity::getContentId).filter(Objects::nonNull).toList()
+    );
+
+    for (var chapter : chapters) {
+      var content = chapter.hasLegacyContent()
+        ? chapter.getLegacyContent()
+        : contents.getOrDefault(chapter.getContentId(), "");
+
+      index.index(new SearchDocument(
+        ChaptersSearchIndexRepository.key(chapter.getBookId(), chapter.getNumber()),
+        List.of(chapter.getTitle(), content)
+      ));
+    }
+
+    return chapters;
+  }
+}
@@ -0,0 +1,43 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.search;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.ChapterSearchResult;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.ChaptersSearchRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.core.search.SearchIndex;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class ChaptersSearchIndexRepository implements ChaptersSearchRepository {
+  // Chapter title matches count twice as much as content matches
+  public static final double[] FIELD_WEIGHTS = {2.0, 1.0};
+
+  private final SearchIndex index;
+  private final ChaptersSearchIndexOwnership ownership;
+
+  public ChaptersSearchIndexRepository(SearchIndex index, ChaptersSearchIndexOwnership ownership) {
+    this.index = index;
+    this.ownership = ownership;
+  }
+
+  @Override
+  public Optional<List<ChapterSearchResult>> search(String query, int limit) {
+    if (!ownership.isOwner())
+      return Optional.empty();
+
+    return Optional.of(index.search(query, limit).stream()
+      .map(hit -> {
+        var separator = hit.key().indexOf('/');
+        return new ChapterSearchResult(
+          UUID.fromString(hit.key().substring(0, separator)),
+          Integer.parseInt(hit.key().substring(separator + 1)),
+          hit.score()
+        );
+      })
+      .toList());
+  }
+
+  static String key(UUID bookId, int chapterNumber) {
+    return bookId + "/" + chapterNumber;
+  }
+}
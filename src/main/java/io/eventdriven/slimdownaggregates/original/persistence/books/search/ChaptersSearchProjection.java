@@ -0,0 +1,70 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.search;
+
+import io.eventdriven.slimdownaggregates.original.persistence.books.events.BookEventPayloads.ChapterAdded;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageCodec;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.core.search.SearchDocument;
+import io.eventdriven.slimdownaggregates.original.persistence.core.search.SearchIndex;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Indexes chapter titles and content from the relayed outbox messages, keyed by book id and chapter number,
+ * so a chapter indexed again replaces its previous version.
+ * The index is synced once before the relay batch commits, a failed sync rolls the batch back to be delivered again.
+ * Only the node holding the index indexes, see ChaptersSearchIndexOwnership.
+ */
+public class ChaptersSearchProjection {
+  private final SearchIndex index;
+  private final ChaptersSearchIndexOwnership ownership;
+  private final OutboxMessageCodec codec;
+
+  public ChaptersSearchProjection(SearchIndex index, ChaptersSearchIndexOwnership ownership, OutboxMessageCodec codec) {
+    this.index = index;
+    this.ownership = ownership;
+    this.codec = codec;
+  }
+
+  @EventListener
+  public void handle(OutboxMessageEntity message) {
+    if (!ownership.isOwner() || codec.registry().payloadTypeOf(message.getMessageTypeId()) != ChapterAdded.class)
+      return;
+
+    var event = (ChapterAdded) codec.decode(message);
+
+    index.index(
+      new SearchDocument(
+        ChaptersSearchIndexRepository.key(event.bookId(), event.number()),
+        List.of(event.title(), event.content())
+      )
+    );
+
+    syncBeforeCommit();
+  }
+
+  private void syncBeforeCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      index.sync();
+      return;
+    }
+
+    if (TransactionSynchronizationManager.hasResource(index))
+      return;
+
+    TransactionSynchronizationManager.bindResource(index, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        index.sync();
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(index);
+      }
+    });
+  }
+}
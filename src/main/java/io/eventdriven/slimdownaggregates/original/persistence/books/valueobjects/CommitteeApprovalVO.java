@@ -5,7 +5,8 @@ import jakarta.persistence.Embeddable;
 @Embeddable
 public class CommitteeApprovalVO {
 
-  private boolean isApproved;
+  // Boxed so the column stays nullable for books not approved yet
+  private Boolean isApproved;
   private String feedback;
 
   // Default constructor for JPA
@@ -19,7 +20,7 @@ public class CommitteeApprovalVO {
   // Getters and setters
 
   public boolean isApproved() {
-    return isApproved;
+    return Boolean.TRUE.equals(isApproved);
   }
 
   public void setApproved(boolean isApproved) {
@@ -8,6 +8,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 
+import java.util.Objects;
 import java.util.UUID;
 
 @Embeddable
@@ -68,5 +69,17 @@ public class TranslationVO {
   public void setTranslator(TranslatorEntity translator) {
     this.translator = translator;
   }
-}
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    TranslationVO that = (TranslationVO) o;
+    return Objects.equals(languageId, that.languageId) && Objects.equals(translatorId, that.translatorId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(languageId, translatorId);
+  }
+}
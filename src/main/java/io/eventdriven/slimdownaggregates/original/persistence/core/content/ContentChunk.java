@@ -0,0 +1,9 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.content;
+
+import java.util.UUID;
+
+/**
+ * Read-only view of a chunk, selected without making the entity managed.
+ */
+public record ContentChunk(UUID contentId, int chunkIndex, byte[] data) {
+}
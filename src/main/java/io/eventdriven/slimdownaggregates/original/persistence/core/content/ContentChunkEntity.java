@@ -0,0 +1,30 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.content;
+
+import jakarta.persistence.*;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "content_chunks")
+@IdClass(ContentChunkId.class)
+public class ContentChunkEntity {
+  @Id
+  @Column(columnDefinition = "uuid")
+  private UUID contentId;
+
+  @Id
+  private int chunkIndex;
+
+  // Deflate compressed slice of the UTF-8 encoded content
+  @Column(nullable = false, columnDefinition = "bytea")
+  private byte[] data;
+
+  // Default constructor required by JPA
+  public ContentChunkEntity() {}
+
+  public ContentChunkEntity(UUID contentId, int chunkIndex, byte[] data) {
+    this.contentId = contentId;
+    this.chunkIndex = chunkIndex;
+    this.data = data;
+  }
+}
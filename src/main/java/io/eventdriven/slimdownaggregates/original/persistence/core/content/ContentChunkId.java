@@ -0,0 +1,32 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.content;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+public class ContentChunkId implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private UUID contentId;
+  private int chunkIndex;
+
+  public ContentChunkId() {}
+
+  public ContentChunkId(UUID contentId, int chunkIndex) {
+    this.contentId = contentId;
+    this.chunkIndex = chunkIndex;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    ContentChunkId that = (ContentChunkId) o;
+    return chunkIndex == that.chunkIndex && Objects.equals(contentId, that.contentId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(contentId, chunkIndex);
+  }
+}
@@ -0,0 +1,171 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.content;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Keeps large texts outside of the rows referencing them, split into fixed size chunks compressed with Deflate.
+ * Stored content is immutable, changing it means saving it again and deleting the previous version.
+ * Works in the caller's transaction.
+ */
+public class ContentStore {
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public StoredContent save(String content) {
+    var hash = hash(content);
+
+    if (content.isEmpty())
+      return new StoredContent(null, hash);
+
+    var id = UUID.randomUUID();
+    var bytes = content.getBytes(StandardCharsets.UTF_8);
+
+    for (int offset = 0, index = 0; offset < bytes.length; offset += CHUNK_SIZE, index++) {
+      var length = Math.min(CHUNK_SIZE, bytes.length - offset);
+      entityManager.persist(new ContentChunkEntity(id, index, compress(bytes, offset, length)));
+    }
+
+    return new StoredContent(id, hash);
+  }
+
+  public String load(UUID id) {
+    return loadAll(List.of(id)).getOrDefault(id, "");
+  }
+
+  /**
+   * Loads the contents with a single query, content without chunks is returned as empty.
+   */
+  public Map<UUID, String> loadAll(Collection<UUID> ids) {
+    if (ids.isEmpty())
+      return Map.of();
+
+    var chunks = entityManager.createQuery(
+        "select new " + ContentChunk.class.getName() + "(c.contentId, c.chunkIndex, c.data) "
+          + "from ContentChunkEntity c where c.contentId in :ids order by c.contentId, c.chunkIndex",
+        ContentChunk.class
+      )
+      .setParameter("ids", ids)
+      .getResultList();
+
+    var contents = new HashMap<UUID, ByteArrayOutputStream>(ids.size());
+    for (var chunk : chunks) {
+      decompress(chunk.data(), contents.computeIfAbsent(chunk.contentId(), id -> new ByteArrayOutputStream()));
+    }
+
+    var result = new HashMap<UUID, String>(ids.size());
+    for (var id : ids) {
+      var content = contents.get(id);
+      result.put(id, content != null ? content.toString(StandardCharsets.UTF_8) : "");
+    }
+    return result;
+  }
+
+  /**
+   * Deletes the content just before the transaction commits, once the rows referencing it were flushed.
+   * A bulk delete right away would auto-flush entities the caller is still in the middle of updating.
+   */
+  public void delete(UUID id) {
+    if (id == null)
+      return;
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      deleteAll(List.of(id));
+      return;
+    }
+
+    pendingDeletes().add(id);
+  }
+
+  private Set<UUID> pendingDeletes() {
+    @SuppressWarnings("unchecked")
+    var pending = (Set<UUID>) TransactionSynchronizationManager.getResource(this);
+
+    if (pending != null)
+      return pending;
+
+    var ids = new LinkedHashSet<UUID>();
+    TransactionSynchronizationManager.bindResource(this, ids);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        entityManager.flush();
+        deleteAll(ids);
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(ContentStore.this);
+      }
+    });
+
+    return ids;
+  }
+
+  private void deleteAll(Collection<UUID> ids) {
+    entityManager.createQuery("delete from ContentChunkEntity c where c.contentId in :ids")
+      .setParameter("ids", ids)
+      .executeUpdate();
+  }
+
+  /**
+   * Hash of the content, lets callers detect changes without loading the stored content.
+   */
+  public static String hash(String content) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static byte[] compress(byte[] bytes, int offset, int length) {
+    var deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(bytes, offset, length);
+      deflater.finish();
+
+      var output = new ByteArrayOutputStream(length / 2 + 64);
+      var buffer = new byte[8192];
+      while (!deflater.finished()) {
+        output.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return output.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static void decompress(byte[] data, ByteArrayOutputStream output) {
+    var inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+
+      var buffer = new byte[8192];
+      while (!inflater.finished()) {
+        var length = inflater.inflate(buffer);
+        if (length == 0 && inflater.needsInput())
+          throw new IllegalStateException("Truncated content chunk");
+        output.write(buffer, 0, length);
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupted content chunk", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.content;
+
+import java.util.UUID;
+
+/**
+ * Reference to content kept in the content store, id is null for empty content as it has no chunks.
+ */
+public record StoredContent(UUID id, String hash) {
+}
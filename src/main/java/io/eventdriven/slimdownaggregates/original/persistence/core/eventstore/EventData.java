@@ -0,0 +1,4 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.eventstore;
+
+public record EventData(String eventType, String data) {
+}
@@ -0,0 +1,26 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.eventstore;
+
+import java.util.List;
+
+public interface EventStore {
+  /**
+   * Version of a stream that doesn't have any events yet.
+   */
+  long NO_STREAM = 0;
+
+  /**
+   * Reads all events of the stream in the order they were appended.
+   */
+  List<RecordedEvent> readStream(String streamId);
+
+  /**
+   * Reads events of the stream appended after the given stream version.
+   */
+  List<RecordedEvent> readStream(String streamId, long afterVersion);
+
+  /**
+   * Appends events to the stream if it's still at the expected version.
+   * Returns the new stream version.
+   */
+  long appendToStream(String streamId, long expectedVersion, List<EventData> events);
+}
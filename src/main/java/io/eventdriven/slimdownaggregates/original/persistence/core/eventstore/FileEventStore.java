@@ -0,0 +1,284 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.eventstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local append-only event store keeping each stream as a newline-delimited JSON file.
+ * Meant for running without a live EventStoreDB, it's safe only for a single process.
+ * An event is stored once its line ends with a newline, a line torn by a crash is cut off
+ * when the stream is first read or appended to.
+ * Where each event line ends is kept in memory, so reading after a snapshot seeks past the older events.
+ */
+public class FileEventStore implements EventStore {
+  private final Path directory;
+  private final ObjectMapper objectMapper;
+  private final ConcurrentHashMap<String, StreamIndex> streams = new ConcurrentHashMap<>();
+
+  public FileEventStore(Path directory, ObjectMapper objectMapper) {
+    this.directory = directory;
+    this.objectMapper = objectMapper;
+
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public List<RecordedEvent> readStream(String streamId) {
+    return readStream(streamId, NO_STREAM);
+  }
+
+  @Override
+  public List<RecordedEvent> readStream(String streamId, long afterVersion) {
+    var stream = stream(streamId);
+
+    if (stream == null)
+      return List.of();
+
+    // Reads only the published events, an append still being written isn't seen
+    var version = stream.version;
+    if (afterVersion >= version)
+      return List.of();
+
+    var lineEnds = stream.lineEnds;
+    var from = afterVersion > 0 ? lineEnds[(int) afterVersion - 1] : 0;
+    var to = lineEnds[(int) version - 1];
+
+    try (var channel = FileChannel.open(streamPath(streamId), StandardOpenOption.READ)) {
+      // Seeks to the line after the given version, older events are neither read nor parsed
+      var buffer = ByteBuffer.allocate(Math.toIntExact(to - from));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, from + buffer.position()) < 0)
+          throw new IOException("Stream " + streamId + " is shorter than its indexed events");
+      }
+
+      return new String(buffer.array(), StandardCharsets.UTF_8).lines()
+        .map(this::deserialize)
+        .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public long appendToStream(String streamId, long expectedVersion, List<EventData> events) {
+    var result = new long[1];
+    var failure = new RuntimeException[1];
+
+    // compute serialises appends to the same stream, different streams are appended in parallel
+    streams.compute(streamId, (id, stream) -> {
+      if (stream == null)
+        stream = load(id);
+
+      var version = stream.version;
+
+      if (version != expectedVersion)
+        throw new OptimisticLockingFailureException(
+          "Stream " + id + " is at version " + version + " but expected " + expectedVersion);
+
+      var content = new StringBuilder();
+      var lineLengths = new long[events.size()];
+      for (int i = 0; i < events.size(); i++) {
+        version++;
+        var line = serialize(new RecordedEvent(id, version, events.get(i).eventType(), events.get(i).data())) + '\n';
+        content.append(line);
+        lineLengths[i] = line.getBytes(StandardCharsets.UTF_8).length;
+      }
+
+      try {
+        write(streamPath(id), content.toString());
+      } catch (RuntimeException e) {
+        // Forgets the stream, the next append indexes it again after cutting off what's left of this one
+        failure[0] = e;
+        return null;
+      }
+
+      stream.append(lineLengths);
+      result[0] = version;
+      return stream;
+    });
+
+    if (failure[0] != null)
+      throw failure[0];
+
+    return result[0];
+  }
+
+  /**
+   * Indexed stream, or null when the stream has no file yet.
+   */
+  private StreamIndex stream(String streamId) {
+    var stream = streams.get(streamId);
+    if (stream != null)
+      return stream;
+
+    if (!Files.exists(streamPath(streamId)))
+      return null;
+
+    return streams.computeIfAbsent(streamId, this::load);
+  }
+
+  /**
+   * Cuts off a line torn by a crash and indexes where each event line of the stream file ends.
+   */
+  private StreamIndex load(String streamId) {
+    var path = streamPath(streamId);
+    var stream = new StreamIndex();
+
+    if (!Files.exists(path))
+      return stream;
+
+    truncateIncompleteLine(path);
+
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // Only newlines are looked for, the events aren't parsed
+      var buffer = ByteBuffer.allocate(64 * 1024);
+      var lineLengths = new long[16];
+      var count = 0;
+      var lineStart = 0L;
+      var position = 0L;
+
+      while (channel.read(buffer.clear(), position) > 0) {
+        buffer.flip();
+        for (int i = 0; i < buffer.limit(); i++) {
+          if (buffer.get(i) != '\n')
+            continue;
+
+          if (count == lineLengths.length)
+            lineLengths = Arrays.copyOf(lineLengths, count * 2);
+          lineLengths[count++] = position + i + 1 - lineStart;
+          lineStart = position + i + 1;
+        }
+        position += buffer.limit();
+      }
+
+      stream.append(Arrays.copyOf(lineLengths, count));
+      return stream;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Appends the content, or cuts the file back to its previous size when the append fails partway,
+   * so none of the events of a failed append is kept.
+   */
+  private void write(Path path, String content) {
+    try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      var previousSize = channel.size();
+      try {
+        append(channel, ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+      } catch (IOException e) {
+        try {
+          channel.truncate(previousSize);
+        } catch (IOException truncateFailure) {
+          e.addSuppressed(truncateFailure);
+        }
+        throw e;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Package-private so tests can fail an append halfway
+  void append(FileChannel channel, ByteBuffer content) throws IOException {
+    while (content.hasRemaining()) {
+      channel.write(content);
+    }
+    channel.force(false);
+  }
+
+  /**
+   * Cuts the stream file after its last newline, so the next append doesn't continue a line torn by a crash.
+   */
+  private static void truncateIncompleteLine(Path path) {
+    if (!Files.exists(path))
+      return;
+
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      var length = channel.size();
+
+      // Scans back from the end, only the torn line is read
+      while (length > 0 && lastByte(channel, length) != '\n') {
+        length--;
+      }
+
+      if (length < channel.size()) {
+        channel.truncate(length);
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static byte lastByte(FileChannel channel, long length) throws IOException {
+    var buffer = ByteBuffer.allocate(1);
+    if (channel.read(buffer, length - 1) != 1)
+      throw new IOException("Cannot read stream file at " + (length - 1));
+    return buffer.get(0);
+  }
+
+  private Path streamPath(String streamId) {
+    return directory.resolve(streamId + ".ndjson");
+  }
+
+  private String serialize(RecordedEvent event) {
+    try {
+      return objectMapper.writeValueAsString(event);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error serializing event", e);
+    }
+  }
+
+  private RecordedEvent deserialize(String line) {
+    try {
+      return objectMapper.readValue(line, RecordedEvent.class);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error deserializing event", e);
+    }
+  }
+
+  /**
+   * Byte offsets where the event lines of a stream end, line n holds the event at stream version n.
+   * Appended to only under the stream's compute, readers see the events up to the published version.
+   */
+  private static final class StreamIndex {
+    private volatile long[] lineEnds = new long[16];
+    private volatile long version;
+
+    void append(long[] lineLengths) {
+      var count = (int) version;
+      var ends = lineEnds;
+      if (count + lineLengths.length > ends.length)
+        ends = Arrays.copyOf(ends, Math.max(ends.length * 2, count + lineLengths.length));
+
+      var end = count > 0 ? ends[count - 1] : 0;
+      for (var length : lineLengths) {
+        end += length;
+        ends[count++] = end;
+      }
+
+      // Publishes the array before the version, so a reader seeing the version sees its line ends
+      lineEnds = ends;
+      version = count;
+    }
+  }
+}
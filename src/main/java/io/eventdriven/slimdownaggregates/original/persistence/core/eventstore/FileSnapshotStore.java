@@ -0,0 +1,70 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.eventstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Keeps the latest snapshot of each stream as a JSON file next to the stream files.
+ */
+public class FileSnapshotStore implements SnapshotStore {
+  private final Path directory;
+  private final ObjectMapper objectMapper;
+
+  public FileSnapshotStore(Path directory, ObjectMapper objectMapper) {
+    this.directory = directory;
+    this.objectMapper = objectMapper;
+
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public Optional<Snapshot> load(String streamId) {
+    var path = snapshotPath(streamId);
+
+    if (!Files.exists(path))
+      return Optional.empty();
+
+    try {
+      return Optional.of(objectMapper.readValue(path.toFile(), Snapshot.class));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void save(Snapshot snapshot) {
+    var path = snapshotPath(snapshot.streamId());
+
+    try {
+      // Write aside and move, so readers never see a partially written snapshot
+      var temp = Files.createTempFile(directory, snapshot.streamId(), ".tmp");
+      objectMapper.writeValue(temp.toFile(), snapshot);
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void delete(String streamId) {
+    try {
+      Files.deleteIfExists(snapshotPath(streamId));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Path snapshotPath(String streamId) {
+    return directory.resolve(streamId + ".snapshot.json");
+  }
+}
@@ -0,0 +1,9 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.eventstore;
+
+public record RecordedEvent(
+  String streamId,
+  long streamPosition,
+  String eventType,
+  String data
+) {
+}
@@ -0,0 +1,9 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.eventstore;
+
+public record Snapshot(
+  String streamId,
+  long streamVersion,
+  int schemaVersion,
+  String data
+) {
+}
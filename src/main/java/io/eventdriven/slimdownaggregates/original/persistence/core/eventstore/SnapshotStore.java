@@ -0,0 +1,20 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.eventstore;
+
+import java.util.Optional;
+
+public interface SnapshotStore {
+  /**
+   * Loads the latest snapshot of the stream.
+   */
+  Optional<Snapshot> load(String streamId);
+
+  /**
+   * Stores the snapshot, replacing the previous one of the same stream.
+   */
+  void save(Snapshot snapshot);
+
+  /**
+   * Removes the snapshot of the stream, e.g. when it was taken with an outdated schema.
+   */
+  void delete(String streamId);
+}
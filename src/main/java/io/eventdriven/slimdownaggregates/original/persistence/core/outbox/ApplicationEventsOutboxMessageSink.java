@@ -0,0 +1,21 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+/**
+ * Default in-process sink, forwarding outbox messages to Spring application event listeners.
+ */
+public class ApplicationEventsOutboxMessageSink implements OutboxMessageSink {
+  private final ApplicationEventPublisher eventPublisher;
+
+  public ApplicationEventsOutboxMessageSink(ApplicationEventPublisher eventPublisher) {
+    this.eventPublisher = eventPublisher;
+  }
+
+  @Override
+  public void deliver(List<OutboxMessageEntity> messages) {
+    messages.forEach(eventPublisher::publishEvent);
+  }
+}
@@ -0,0 +1,88 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox message the sink kept failing on, moved aside so the messages after it are relayed.
+ */
+@Entity
+@Table(name = "outbox_dead_letters")
+public class OutboxDeadLetterEntity {
+  // Position the message had in the outbox
+  @Id
+  private Long position;
+
+  @Column(nullable = false, columnDefinition = "uuid")
+  private UUID messageId;
+
+  @Column(nullable = false)
+  private short messageTypeId;
+
+  private String aggregateId;
+
+  @Column(nullable = false, columnDefinition = "bytea")
+  private byte[] data;
+
+  @Column(nullable = false)
+  private OffsetDateTime scheduled;
+
+  @Column(nullable = false)
+  private int attempts;
+
+  // Failure of the last attempt
+  @Column(columnDefinition = "text")
+  private String error;
+
+  @Column(nullable = false)
+  private OffsetDateTime deadLettered;
+
+  // Default constructor required by JPA
+  public OutboxDeadLetterEntity() {}
+
+  public OutboxDeadLetterEntity(OutboxMessageEntity message, int attempts, String error, OffsetDateTime deadLettered) {
+    this.position = message.getPosition();
+    this.messageId = message.getMessageId();
+    this.messageTypeId = message.getMessageTypeId();
+    this.aggregateId = message.getAggregateId();
+    this.data = message.getData();
+    this.scheduled = message.getScheduled();
+    this.attempts = attempts;
+    this.error = error;
+    this.deadLettered = deadLettered;
+  }
+
+  public Long getPosition() {
+    return position;
+  }
+
+  public UUID getMessageId() {
+    return messageId;
+  }
+
+  public short getMessageTypeId() {
+    return messageTypeId;
+  }
+
+  public String getAggregateId() {
+    return aggregateId;
+  }
+
+  public byte[] getData() {
+    return data;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public OffsetDateTime getDeadLettered() {
+    return deadLettered;
+  }
+}
@@ -0,0 +1,8 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxDeadLetterRepository extends JpaRepository<OutboxDeadLetterEntity, Long> {
+}
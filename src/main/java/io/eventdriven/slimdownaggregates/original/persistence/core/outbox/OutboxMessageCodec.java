@@ -0,0 +1,83 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Encodes outbox messages as CBOR payload records, mapped from the events by the given function,
+ * so the stored format doesn't depend on the shape of domain classes.
+ * Writers and readers are prepared upfront for each registered payload type, so the write path doesn't
+ * resolve serializers reflectively per message.
+ * Decoding fails when a field of the payload record is missing, instead of handing sinks empty values.
+ */
+public class OutboxMessageCodec {
+  private final OutboxMessageTypeRegistry registry;
+  private final Function<Object, ?> toPayload;
+  private final Map<Class<?>, ObjectWriter> writers = new HashMap<>();
+  private final Map<Short, ObjectReader> readers = new HashMap<>();
+
+  public OutboxMessageCodec(OutboxMessageTypeRegistry registry, Function<Object, ?> toPayload) {
+    this.registry = registry;
+    this.toPayload = toPayload;
+
+    var mapper = CBORMapper.builder()
+      .enable(DeserializationFeature.FAIL_ON_MISSING_CREATOR_PROPERTIES)
+      .enable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
+      .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+      .build();
+
+    for (var id : registry.registeredTypes().values()) {
+      var payloadType = registry.payloadTypeOf(id);
+      writers.put(payloadType, mapper.writerFor(payloadType));
+      readers.put(id, mapper.readerFor(payloadType));
+    }
+  }
+
+  public short typeIdOf(Object event) {
+    return registry.idOf(event.getClass());
+  }
+
+  public byte[] encode(Object event) {
+    var payloadType = registry.payloadTypeOf(typeIdOf(event));
+    var payload = toPayload.apply(event);
+
+    if (!payloadType.isInstance(payload))
+      throw new IllegalStateException(
+        "Message type " + event.getClass().getName() + " is registered with payload " + payloadType.getName()
+      );
+
+    try {
+      return writers.get(payloadType).writeValueAsBytes(payload);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Error serializing outbox message", e);
+    }
+  }
+
+  /**
+   * Decodes the payload record the message was stored as.
+   */
+  public Object decode(OutboxMessageEntity message) {
+    var reader = readers.get(message.getMessageTypeId());
+
+    if (reader == null)
+      throw new IllegalStateException("Message type with id " + message.getMessageTypeId() + " is not registered");
+
+    try {
+      return reader.readValue(message.getData());
+    } catch (IOException e) {
+      throw new RuntimeException("Error deserializing outbox message " + message.getPosition(), e);
+    }
+  }
+
+  public OutboxMessageTypeRegistry registry() {
+    return registry;
+  }
+}
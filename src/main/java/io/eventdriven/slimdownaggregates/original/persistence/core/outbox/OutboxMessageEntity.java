@@ -1,54 +1,113 @@
 package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
 
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
 import io.eventdriven.slimdownaggregates.original.infrastructure.events.EventEnvelope;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.EventEnvelope.EventMetadata;
+import io.eventdriven.slimdownaggregates.original.infrastructure.events.TypedEventEnvelope;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.NonEmptyString;
 import jakarta.persistence.*;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Entity
 @Table(name = "outboxmessages")
 public class OutboxMessageEntity {
+  // Each position is taken from the sequence while inserting, after the aggregate was read, so positions of
+  // the same aggregate follow commit order. Blocks taken ahead would be per node and break that order.
+  // Unlike with an identity column the inserts of a transaction are still batched.
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_position")
+  @SequenceGenerator(name = "outbox_position", sequenceName = "outbox_position_seq", allocationSize = 1)
   private Long position;
 
-  @Column(nullable = false)
-  private String messageId;
+  @Column(nullable = false, columnDefinition = "uuid")
+  private UUID messageId;
 
+  // Id from OutboxMessageTypeRegistry instead of the full class name
   @Column(nullable = false)
-  private String messageType;
+  private short messageTypeId;
 
-  @Column(nullable = false)
-  private String data;
+  // Messages of the same aggregate land in the same relay partition and are delivered in order
+  private String aggregateId;
+
+  // CBOR encoded payload
+  @Column(nullable = false, columnDefinition = "bytea")
+  private byte[] data;
 
   @Column(nullable = false)
   private OffsetDateTime scheduled;
 
+  // Set by the relay once the message was handed over to the sink
+  private OffsetDateTime delivered;
+
+  // Failed deliveries of the message on its own, it's dead-lettered after too many
+  @Column(nullable = false)
+  private int attempts;
+
   // Default constructor required by JPA
   public OutboxMessageEntity() {}
 
-  public OutboxMessageEntity(String messageId, String messageType, String data, OffsetDateTime scheduled) {
+  public OutboxMessageEntity(UUID messageId, String aggregateId, short messageTypeId, byte[] data, OffsetDateTime scheduled) {
     this.messageId = messageId;
-    this.messageType = messageType;
+    this.aggregateId = aggregateId;
+    this.messageTypeId = messageTypeId;
     this.data = data;
     this.scheduled = scheduled;
   }
 
-  public static OutboxMessageEntity from(EventEnvelope eventEnvelope, ObjectMapper objectMapper) {
-    try {
-      String serializedData = objectMapper.writeValueAsString(eventEnvelope.event());
+  public Long getPosition() {
+    return position;
+  }
 
-      return new OutboxMessageEntity(
-        UUID.randomUUID().toString(),
-        eventEnvelope.event().getClass().getName(),
-        serializedData,
-        OffsetDateTime.now()
-      );
-    } catch (Exception ex) {
-      throw new RuntimeException("Error serializing eventEnvelope", ex);
-    }
+  public UUID getMessageId() {
+    return messageId;
+  }
+
+  public String getAggregateId() {
+    return aggregateId;
   }
-}
 
+  public short getMessageTypeId() {
+    return messageTypeId;
+  }
+
+  public byte[] getData() {
+    return data;
+  }
+
+  public OffsetDateTime getScheduled() {
+    return scheduled;
+  }
+
+  public OffsetDateTime getDelivered() {
+    return delivered;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public static List<OutboxMessageEntity> from(String aggregateId, List<DomainEvent> events, OutboxMessageCodec codec) {
+    return events.stream()
+      .map(event -> from(
+        aggregateId,
+        new TypedEventEnvelope<>(event, new EventMetadata(new NonEmptyString(UUID.randomUUID().toString()))),
+        codec
+      ))
+      .toList();
+  }
+
+  public static OutboxMessageEntity from(String aggregateId, EventEnvelope eventEnvelope, OutboxMessageCodec codec) {
+    var event = eventEnvelope.event();
+
+    return new OutboxMessageEntity(
+      UUID.fromString(eventEnvelope.metadata().recordId().value()),
+      aggregateId,
+      codec.typeIdOf(event),
+      codec.encode(event),
+      OffsetDateTime.now()
+    );
+  }
+}
@@ -1,11 +1,47 @@
 package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.UUID;
+import java.time.OffsetDateTime;
+import java.util.List;
 
 @Repository
-public interface OutboxMessageRepository extends JpaRepository<OutboxMessageEntity, UUID> {
-}
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessageEntity, Long> {
+  // Locked rows are skipped, so concurrent relays claim disjoint batches instead of waiting on each other
+  @Query(
+    value = """
+      SELECT * FROM outboxmessages
+      WHERE delivered IS NULL
+        AND mod(hashtext(coalesce(aggregate_id, cast(message_id as text))) & 2147483647, :partitions) = :partition
+      ORDER BY position
+      LIMIT :batchSize
+      FOR UPDATE SKIP LOCKED
+      """,
+    nativeQuery = true
+  )
+  List<OutboxMessageEntity> claimBatch(
+    @Param("partition") int partition,
+    @Param("partitions") int partitions,
+    @Param("batchSize") int batchSize
+  );
+
+  // Transaction scoped, released on commit or rollback
+  @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+  boolean tryLockPartition(@Param("key") long key);
+
+  @Modifying
+  @Query("update OutboxMessageEntity m set m.delivered = :delivered where m.position in :positions")
+  void markDelivered(@Param("positions") List<Long> positions, @Param("delivered") OffsetDateTime delivered);
 
+  // Null when the aggregate has no messages left in the outbox
+  @Query("select max(m.position) from OutboxMessageEntity m where m.aggregateId = :aggregateId")
+  Long findLastPosition(@Param("aggregateId") String aggregateId);
+
+  @Modifying
+  @Query("update OutboxMessageEntity m set m.attempts = m.attempts + 1 where m.position = :position")
+  void recordFailedAttempt(@Param("position") long position);
+}
@@ -0,0 +1,12 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import java.util.List;
+
+public interface OutboxMessageSink {
+  /**
+   * Delivers the batch of messages in the outbox order.
+   * Throwing rolls back the claim, the messages are delivered again one at a time and the failing one
+   * is retried until the relay moves it to the dead letters. A message can be delivered more than once.
+   */
+  void deliver(List<OutboxMessageEntity> messages);
+}
@@ -0,0 +1,59 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps event types to the small numeric ids stored in the outbox instead of full class names,
+ * and to the payload type their messages are stored as.
+ * Ids are part of the stored format, so never reuse or change an id once it was registered.
+ */
+public class OutboxMessageTypeRegistry {
+  private final Map<Class<?>, Short> ids = new HashMap<>();
+  private final Map<Short, Class<?>> types = new HashMap<>();
+  private final Map<Short, Class<?>> payloadTypes = new HashMap<>();
+
+  public OutboxMessageTypeRegistry register(int id, Class<?> eventType, Class<?> payloadType) {
+    var typeId = (short) id;
+
+    if (typeId != id || types.containsKey(typeId) || ids.containsKey(eventType))
+      throw new IllegalArgumentException("Message type " + eventType.getName() + " cannot be registered with id " + id);
+
+    ids.put(eventType, typeId);
+    types.put(typeId, eventType);
+    payloadTypes.put(typeId, payloadType);
+
+    return this;
+  }
+
+  public short idOf(Class<?> eventType) {
+    var id = ids.get(eventType);
+
+    if (id == null)
+      throw new IllegalStateException("Message type " + eventType.getName() + " is not registered");
+
+    return id;
+  }
+
+  public Class<?> typeOf(short id) {
+    var type = types.get(id);
+
+    if (type == null)
+      throw new IllegalStateException("Message type with id " + id + " is not registered");
+
+    return type;
+  }
+
+  public Class<?> payloadTypeOf(short id) {
+    var payloadType = payloadTypes.get(id);
+
+    if (payloadType == null)
+      throw new IllegalStateException("Message type with id " + id + " is not registered");
+
+    return payloadType;
+  }
+
+  public Map<Class<?>, Short> registeredTypes() {
+    return Map.copyOf(ids);
+  }
+}
@@ -0,0 +1,289 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Delivers pending outbox messages in batches, one transaction per batch.
+ * Messages are hashed by aggregate id into partitions, each drained by its own worker,
+ * so ordering holds within an aggregate while different aggregates are relayed in parallel.
+ * When a batch fails, its messages are delivered again one at a time, so only the failing message is held back.
+ * It's retried on the next polls and moved to the dead letters once it failed maxAttempts times.
+ */
+public class OutboxRelay implements SmartLifecycle {
+  private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+  // Base of the Postgres advisory lock keys, one lock per partition
+  private static final long PARTITION_LOCK_KEY = 0x6f7574626f78L << 16;
+
+  private final OutboxMessageRepository repository;
+  private final OutboxDeadLetterRepository deadLetterRepository;
+  private final OutboxMessageSink sink;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final boolean deleteDelivered;
+  private final int partitions;
+  private final Duration pollInterval;
+  private final ThreadFactory workerThreadFactory;
+  private final BooleanSupplier startCondition;
+
+  private final Timer[] batchLatency;
+  private final Counter[] relayedMessages;
+  private final AtomicLong[] lagMillis;
+  private final Counter deadLetters;
+
+  private ScheduledExecutorService workers;
+
+  public OutboxRelay(
+    OutboxMessageRepository repository,
+    OutboxDeadLetterRepository deadLetterRepository,
+    OutboxMessageSink sink,
+    TransactionTemplate transactionTemplate,
+    int batchSize,
+    int maxAttempts,
+    boolean deleteDelivered,
+    int partitions,
+    Duration pollInterval,
+    ThreadFactory workerThreadFactory,
+    MeterRegistry meterRegistry
+  ) {
+    this(
+      repository, deadLetterRepository, sink, transactionTemplate, batchSize, maxAttempts, deleteDelivered,
+      partitions, pollInterval, workerThreadFactory, () -> true, meterRegistry
+    );
+  }
+
+  /**
+   * The start condition is checked when the relay is started, after the lifecycle beans of earlier phases,
+   * a relay whose condition doesn't hold stays stopped.
+   */
+  public OutboxRelay(
+    OutboxMessageRepository repository,
+    OutboxDeadLetterRepository deadLetterRepository,
+    OutboxMessageSink sink,
+    TransactionTemplate transactionTemplate,
+    int batchSize,
+    int maxAttempts,
+    boolean deleteDelivered,
+    int partitions,
+    Duration pollInterval,
+    ThreadFactory workerThreadFactory,
+    BooleanSupplier startCondition,
+    MeterRegistry meterRegistry
+  ) {
+    this.repository = repository;
+    this.deadLetterRepository = deadLetterRepository;
+    this.sink = sink;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.deleteDelivered = deleteDelivered;
+    this.partitions = partitions;
+    this.pollInterval = pollInterval;
+    this.workerThreadFactory = workerThreadFactory;
+    this.startCondition = startCondition;
+
+    this.batchLatency = new Timer[partitions];
+    this.relayedMessages = new Counter[partitions];
+    this.lagMillis = new AtomicLong[partitions];
+
+    for (int partition = 0; partition < partitions; partition++) {
+      var tag = String.valueOf(partition);
+      batchLatency[partition] = Timer.builder("outbox.relay.batch.latency")
+        .tag("partition", tag)
+        .register(meterRegistry);
+      relayedMessages[partition] = Counter.builder("outbox.relay.messages")
+        .tag("partition", tag)
+        .register(meterRegistry);
+      lagMillis[partition] = new AtomicLong();
+      Gauge.builder("outbox.relay.lag", lagMillis[partition], AtomicLong::get)
+        .tag("partition", tag)
+        .baseUnit("milliseconds")
+        .description("Age of the oldest undelivered message in the partition")
+        .register(meterRegistry);
+    }
+
+    this.deadLetters = Counter.builder("outbox.relay.dead.letters")
+      .description("Messages moved to the dead letters after failing too many times")
+      .register(meterRegistry);
+  }
+
+  @Override
+  public synchronized void start() {
+    if (workers != null || !startCondition.getAsBoolean())
+      return;
+
+    workers = Executors.newScheduledThreadPool(partitions, workerThreadFactory);
+
+    for (int partition = 0; partition < partitions; partition++) {
+      var drainedPartition = partition;
+      workers.scheduleWithFixedDelay(
+        () -> drain(drainedPartition),
+        0,
+        pollInterval.toMillis(),
+        TimeUnit.MILLISECONDS
+      );
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (workers == null)
+      return;
+
+    workers.shutdown();
+    try {
+      workers.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    workers = null;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return workers != null;
+  }
+
+  private void drain(int partition) {
+    try {
+      // Keep draining while batches come back full, wait for the next poll only when caught up
+      while (relayBatch(partition) == batchSize) {
+      }
+    } catch (RuntimeException e) {
+      // Failed batch was rolled back, it'll be retried on the next poll
+      logger.error("Relaying outbox partition {} failed", partition, e);
+    }
+  }
+
+  /**
+   * Claims, delivers and completes a single batch of the partition, returns the number of relayed messages.
+   */
+  public int relayBatch(int partition) {
+    var claimed = new ArrayList<OutboxMessageEntity>();
+
+    try {
+      return relay(partition, batchSize, claimed);
+    } catch (RuntimeException e) {
+      // Nothing was claimed, e.g. the database is down, there's no message to blame
+      if (claimed.isEmpty())
+        throw e;
+
+      logger.warn("Relaying a batch of outbox partition {} failed, relaying it one message at a time", partition, e);
+      return relayOneByOne(partition, claimed.size());
+    }
+  }
+
+  /**
+   * Relays up to the given number of messages one at a time, stops at the first failing one.
+   */
+  private int relayOneByOne(int partition, int count) {
+    var relayed = 0;
+
+    while (relayed < count) {
+      var claimed = new ArrayList<OutboxMessageEntity>();
+
+      try {
+        var single = relay(partition, 1, claimed);
+        if (single == 0)
+          break;
+        relayed += single;
+      } catch (RuntimeException e) {
+        if (claimed.isEmpty())
+          throw e;
+
+        recordFailure(partition, claimed.get(0), e);
+        break;
+      }
+    }
+
+    return relayed;
+  }
+
+  private int relay(int partition, int limit, List<OutboxMessageEntity> claimed) {
+    var sample = Timer.start();
+
+    var relayed = transactionTemplate.execute(status -> {
+      // Only one relay instance at a time drains a partition, otherwise per aggregate ordering could break
+      if (!repository.tryLockPartition(PARTITION_LOCK_KEY + partition))
+        return 0;
+
+      var messages = repository.claimBatch(partition, partitions, limit);
+
+      if (messages.isEmpty()) {
+        lagMillis[partition].set(0);
+        return 0;
+      }
+
+      lagMillis[partition].set(
+        Duration.between(messages.get(0).getScheduled(), OffsetDateTime.now()).toMillis()
+      );
+
+      claimed.addAll(messages);
+      sink.deliver(messages);
+      complete(messages);
+
+      return messages.size();
+    });
+
+    var count = relayed != null ? relayed : 0;
+
+    if (count > 0) {
+      sample.stop(batchLatency[partition]);
+      relayedMessages[partition].increment(count);
+    }
+
+    return count;
+  }
+
+  /**
+   * Counts the failed attempt of the message, moves it to the dead letters once it failed too many times.
+   */
+  private void recordFailure(int partition, OutboxMessageEntity message, RuntimeException failure) {
+    var attempts = message.getAttempts() + 1;
+
+    transactionTemplate.executeWithoutResult(status -> {
+      if (!repository.tryLockPartition(PARTITION_LOCK_KEY + partition))
+        return;
+
+      if (attempts < maxAttempts) {
+        repository.recordFailedAttempt(message.getPosition());
+        logger.warn("Relaying outbox message {} failed {} times, retrying on the next poll", message.getPosition(), attempts);
+        return;
+      }
+
+      deadLetterRepository.save(new OutboxDeadLetterEntity(message, attempts, failure.toString(), OffsetDateTime.now()));
+      complete(List.of(message));
+      deadLetters.increment();
+      logger.error("Relaying outbox message {} failed {} times, moved it to the dead letters", message.getPosition(), attempts, failure);
+    });
+  }
+
+  private void complete(List<OutboxMessageEntity> messages) {
+    if (deleteDelivered) {
+      repository.deleteAllInBatch(messages);
+    } else {
+      repository.markDelivered(
+        messages.stream().map(OutboxMessageEntity::getPosition).toList(),
+        OffsetDateTime.now()
+      );
+    }
+  }
+}
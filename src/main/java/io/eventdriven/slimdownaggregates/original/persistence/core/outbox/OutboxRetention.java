@@ -0,0 +1,291 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the position range partitions of the outbox (see schema-postgres.sql).
+ * Creates partitions ahead of the current position, and drops whole partitions once all their messages were delivered,
+ * so the table and the relay index don't grow with the total number of messages.
+ * Partitions are attached and detached concurrently, neither blocks writers or the relay on the outbox.
+ * The outbox has no default partition, so partitions ahead are also created on start when runs aren't scheduled.
+ */
+public class OutboxRetention implements SmartLifecycle {
+  private static final Logger logger = LoggerFactory.getLogger(OutboxRetention.class);
+  private static final String PARTITION_PREFIX = "outboxmessages_p";
+  private static final Pattern PARTITION_BOUNDS = Pattern.compile("FROM \\('?(-?\\d+)'?\\) TO \\('?(-?\\d+)'?\\)");
+  // Waiting for transactions still using a partition is given up quickly and finished on the next run
+  private static final String LOCK_TIMEOUT = "1s";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final long partitionSize;
+  private final int partitionsAhead;
+  private final Duration interval;
+  private final boolean scheduled;
+
+  private final AtomicLong tableSizeBytes = new AtomicLong();
+  private final AtomicLong oldestUndeliveredAgeMillis = new AtomicLong();
+  private final AtomicLong partitionsCount = new AtomicLong();
+
+  private ScheduledExecutorService scheduler;
+  private boolean running;
+
+  public OutboxRetention(
+    JdbcTemplate jdbcTemplate,
+    TransactionTemplate transactionTemplate,
+    long partitionSize,
+    int partitionsAhead,
+    Duration interval,
+    boolean scheduled,
+    MeterRegistry meterRegistry
+  ) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.partitionSize = partitionSize;
+    this.partitionsAhead = partitionsAhead;
+    this.interval = interval;
+    this.scheduled = scheduled;
+
+    Gauge.builder("outbox.table.size", tableSizeBytes, AtomicLong::get)
+      .baseUnit("bytes")
+      .register(meterRegistry);
+    Gauge.builder("outbox.undelivered.oldest.age", oldestUndeliveredAgeMillis, AtomicLong::get)
+      .baseUnit("milliseconds")
+      .register(meterRegistry);
+    Gauge.builder("outbox.partitions", partitionsCount, AtomicLong::get)
+      .register(meterRegistry);
+  }
+
+  @Override
+  public synchronized void start() {
+    if (running)
+      return;
+
+    // Writing a message fails without a partition for its position
+    if (isPartitioned())
+      createPartitionsAhead(currentPosition());
+
+    if (scheduled) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "outbox-retention"));
+      scheduler.scheduleWithFixedDelay(this::run, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    running = true;
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (!running)
+      return;
+
+    if (scheduler != null)
+      scheduler.shutdownNow();
+    scheduler = null;
+    running = false;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return running;
+  }
+
+  // Ahead of the web server, requests write to the outbox
+  @Override
+  public int getPhase() {
+    return 0;
+  }
+
+  void run() {
+    try {
+      if (isPartitioned()) {
+        var currentPosition = currentPosition();
+        createPartitionsAhead(currentPosition);
+        dropDeliveredPartitions(currentPosition);
+      }
+      refreshMetrics();
+    } catch (DataAccessException e) {
+      logger.error("Outbox retention failed", e);
+    }
+  }
+
+  private boolean isPartitioned() {
+    var kind = jdbcTemplate.queryForObject(
+      "SELECT coalesce((SELECT relkind::text FROM pg_class WHERE relname = 'outboxmessages'), '')",
+      String.class
+    );
+    return "p".equals(kind);
+  }
+
+  private long currentPosition() {
+    var position = jdbcTemplate.queryForObject(
+      "SELECT pg_sequence_last_value('outbox_position_seq')",
+      Long.class
+    );
+    return position != null ? position : 0;
+  }
+
+  private void createPartitionsAhead(long currentPosition) {
+    var currentStart = (currentPosition / partitionSize) * partitionSize;
+    var end = currentStart + (partitionsAhead + 1) * partitionSize;
+
+    // Continues after the last partition, whatever size it was created with
+    var from = Math.max(currentStart, partitions().stream().mapToLong(Partition::to).max().orElse(currentStart));
+
+    for (; from < end; from += partitionSize) {
+      try {
+        createPartition(from, from + partitionSize);
+      } catch (DataAccessException e) {
+        logger.warn("Cannot create outbox partition for positions {} - {}", from, from + partitionSize, e);
+        return;
+      }
+    }
+  }
+
+  private void createPartition(long from, long to) {
+    var partition = PARTITION_PREFIX + from;
+
+    // Created on its own and attached, unlike creating it as a partition attaching doesn't block writers or the relay
+    transactionTemplate.executeWithoutResult(status -> {
+      jdbcTemplate.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+      jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE outboxmessages INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+      attach(partition, from, to);
+    });
+  }
+
+  private void attach(String partition, long from, long to) {
+    jdbcTemplate.execute(
+      "ALTER TABLE outboxmessages ATTACH PARTITION " + partition + " FOR VALUES FROM (" + from + ") TO (" + to + ")"
+    );
+  }
+
+  private void dropDeliveredPartitions(long currentPosition) {
+    // Only one partition can be pending detach, the one an earlier run gave up on is finished first
+    var partitions = partitions().stream()
+      .sorted(Comparator.comparing(Partition::detachPending).reversed())
+      .toList();
+
+    for (var partition : partitions) {
+      // Range is still being written to
+      if (partition.to() > currentPosition)
+        continue;
+
+      try {
+        dropIfDelivered(partition);
+      } catch (DataAccessException e) {
+        // Detaching the others fails until this one is finished, that's left to the next run
+        logger.warn("Cannot drop outbox partition {}", partition.name(), e);
+        return;
+      }
+    }
+  }
+
+  private void dropIfDelivered(Partition partition) {
+    if (partition.detachPending()) {
+      // An earlier run gave up waiting, the partition is already hidden from the outbox
+      withLockTimeout("ALTER TABLE outboxmessages DETACH PARTITION " + partition.name() + " FINALIZE");
+    } else {
+      if (hasUndelivered(partition.name()))
+        return;
+
+      // Waits for transactions still inserting into the partition, without blocking new ones on the outbox
+      withLockTimeout("ALTER TABLE outboxmessages DETACH PARTITION " + partition.name() + " CONCURRENTLY");
+    }
+
+    // Messages committed while the detach waited are relayed once the partition is attached back
+    if (hasUndelivered(partition.name())) {
+      transactionTemplate.executeWithoutResult(status -> {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+        attach(partition.name(), partition.from(), partition.to());
+      });
+      logger.info("Attached outbox partition {} back, it holds undelivered messages", partition.name());
+      return;
+    }
+
+    // Not a partition anymore, dropping it doesn't lock the outbox
+    jdbcTemplate.execute("DROP TABLE " + partition.name());
+    logger.info("Dropped delivered outbox partition {}", partition.name());
+  }
+
+  private boolean hasUndelivered(String partition) {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+      "SELECT EXISTS (SELECT 1 FROM " + partition + " WHERE delivered IS NULL)",
+      Boolean.class
+    ));
+  }
+
+  // Detaching concurrently can't run in a transaction, so the timeout is set for the session and reset after
+  private void withLockTimeout(String sql) {
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      try (var statement = connection.createStatement()) {
+        statement.execute("SET lock_timeout = '" + LOCK_TIMEOUT + "'");
+        try {
+          statement.execute(sql);
+        } finally {
+          statement.execute("RESET lock_timeout");
+        }
+      }
+      return null;
+    });
+  }
+
+  private List<Partition> partitions() {
+    return jdbcTemplate.query(
+      """
+        SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), i.inhdetachpending FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'outboxmessages'::regclass
+        ORDER BY c.relname
+        """,
+      (rs, rowNum) -> {
+        var bounds = PARTITION_BOUNDS.matcher(rs.getString(2));
+        if (!bounds.find())
+          throw new IllegalStateException("Unexpected bounds of outbox partition " + rs.getString(1) + ": " + rs.getString(2));
+
+        return new Partition(rs.getString(1), Long.parseLong(bounds.group(1)), Long.parseLong(bounds.group(2)), rs.getBoolean(3));
+      }
+    );
+  }
+
+  private void refreshMetrics() {
+    var size = jdbcTemplate.queryForObject(
+      """
+        SELECT pg_total_relation_size('outboxmessages'::regclass)
+          + coalesce((SELECT sum(pg_total_relation_size(inhrelid)) FROM pg_inherits WHERE inhparent = 'outboxmessages'::regclass), 0)
+        """,
+      Long.class
+    );
+    tableSizeBytes.set(size != null ? size : 0);
+
+    var oldest = jdbcTemplate.queryForObject(
+      "SELECT min(scheduled) FROM outboxmessages WHERE delivered IS NULL",
+      OffsetDateTime.class
+    );
+    oldestUndeliveredAgeMillis.set(oldest != null ? Duration.between(oldest, OffsetDateTime.now()).toMillis() : 0);
+
+    var count = jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM pg_inherits WHERE inhparent = 'outboxmessages'::regclass",
+      Long.class
+    );
+    partitionsCount.set(count != null ? count : 0);
+  }
+
+  private record Partition(String name, long from, long to, boolean detachPending) {
+  }
+}
@@ -1,28 +1,45 @@
 package io.eventdriven.slimdownaggregates.original.persistence.core.repositories;
 
-import io.eventdriven.slimdownaggregates.original.infrastructure.events.DomainEvent;
+import io.eventdriven.slimdownaggregates.original.infrastructure.aggregates.Aggregate;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageCodec;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
 import java.util.Optional;
 
 @Repository
-public abstract class JpaEntityRepository<TAggregate, TKey, TEntity> {
+public abstract class JpaEntityRepository<TAggregate extends Aggregate<?>, TKey, TEntity> {
 
-  public JpaEntityRepository(JpaRepository<TEntity, TKey> jpaRepository) {
+  public JpaEntityRepository(
+    JpaRepository<TEntity, TKey> jpaRepository,
+    OutboxMessageRepository outboxMessageRepository,
+    OutboxMessageCodec outboxMessageCodec
+  ) {
     this.jpaRepository = jpaRepository;
+    this.outboxMessageRepository = outboxMessageRepository;
+    this.outboxMessageCodec = outboxMessageCodec;
   }
 
   protected JpaRepository<TEntity, TKey> jpaRepository;
 
+  private final OutboxMessageRepository outboxMessageRepository;
+  private final OutboxMessageCodec outboxMessageCodec;
+
+  private final UnitOfWork<TAggregate, TEntity> unitOfWork = new UnitOfWork<>();
+
   /**
    * Find an aggregate by its ID.
    */
   public Optional<TAggregate> findById(TKey id) {
-    Optional<TEntity> entity = jpaRepository.findById(id);
-    return entity.map(this::mapToAggregate);
+    Optional<TEntity> entity = loadEntity(id);
+    return entity.map(e -> {
+      var aggregate = mapToAggregate(e);
+      unitOfWork.track(aggregate, e);
+      return aggregate;
+    });
   }
 
   /**
@@ -31,20 +48,38 @@ public abstract class JpaEntityRepository<TAggregate, TKey, TEntity> {
   public void add(TAggregate aggregate) {
     TEntity entity = mapToEntity(aggregate);
     jpaRepository.save(entity);
-    // Handle domain events if needed, e.g., publishDomainEvents(aggregate.getDomainEvents());
+    publishDomainEvents(aggregate);
   }
 
   /**
    * Update an existing aggregate.
+   * Reuses the entity loaded by findById in the same transaction, optimistic concurrency
+   * is still checked on flush through the entity version.
    */
   public void update(TAggregate aggregate) {
+    var tracked = unitOfWork.find(aggregate);
+    if (tracked.isPresent()) {
+      // Entity is managed, dirty checking writes the changes on flush.
+      // Calling save would merge it and select every newly added child with an assigned id.
+      updateEntity(tracked.get(), aggregate);
+      publishDomainEvents(aggregate);
+      return;
+    }
+
     var entity = jpaRepository.findById(getId(aggregate));
     if (entity.isEmpty()) {
       throw new EntityNotFoundException("Entity with ID " + getId(aggregate) + " not found.");
     }
     updateEntity(entity.get(), aggregate);
     jpaRepository.save(entity.get());
-    // Handle domain events if needed, e.g., publishDomainEvents(aggregate.getDomainEvents());
+    publishDomainEvents(aggregate);
+  }
+
+  /**
+   * Loads the entity with everything needed to map it to the aggregate.
+   */
+  protected Optional<TEntity> loadEntity(TKey id) {
+    return jpaRepository.findById(id);
   }
 
   /**
@@ -68,10 +103,14 @@ public abstract class JpaEntityRepository<TAggregate, TKey, TEntity> {
   protected abstract TKey getId(TAggregate aggregate);
 
   /**
-   * (Optional) Handles the publishing of domain events.
+   * Stores pending domain events in the outbox within the same transaction as the aggregate.
    */
-  protected void publishDomainEvents(List<DomainEvent> events) {
-    // Implement event publishing logic here if you have any
+  protected void publishDomainEvents(TAggregate aggregate) {
+    var messages = OutboxMessageEntity.from(getId(aggregate).toString(), aggregate.getDomainEvents(), outboxMessageCodec);
+
+    if (!messages.isEmpty())
+      outboxMessageRepository.saveAll(messages);
+
+    aggregate.clearEvents();
   }
 }
-
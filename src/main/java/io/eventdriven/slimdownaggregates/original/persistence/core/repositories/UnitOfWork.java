@@ -0,0 +1,56 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.repositories;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Per-transaction identity map remembering which managed entity each loaded aggregate came from.
+ * Outside of an active transaction nothing is tracked and callers need to load the entity again.
+ */
+public class UnitOfWork<TAggregate, TEntity> {
+
+  /**
+   * Remembers the entity an aggregate was mapped from for the rest of the current transaction.
+   */
+  public void track(TAggregate aggregate, TEntity entity) {
+    var tracked = trackedEntities();
+
+    if (tracked != null)
+      tracked.put(aggregate, entity);
+  }
+
+  /**
+   * Returns the managed entity the aggregate was loaded from in the current transaction.
+   */
+  public Optional<TEntity> find(TAggregate aggregate) {
+    var tracked = trackedEntities();
+
+    return tracked != null ? Optional.ofNullable(tracked.get(aggregate)) : Optional.empty();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<TAggregate, TEntity> trackedEntities() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive())
+      return null;
+
+    var tracked = (Map<TAggregate, TEntity>) TransactionSynchronizationManager.getResource(this);
+
+    if (tracked == null) {
+      var newlyTracked = new IdentityHashMap<TAggregate, TEntity>();
+      TransactionSynchronizationManager.bindResource(this, newlyTracked);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          TransactionSynchronizationManager.unbindResourceIfPossible(UnitOfWork.this);
+        }
+      });
+      tracked = newlyTracked;
+    }
+
+    return tracked;
+  }
+}
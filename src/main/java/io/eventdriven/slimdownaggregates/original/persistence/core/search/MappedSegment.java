@@ -0,0 +1,216 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable segment file, mapped into memory. Document keys and the term dictionary are read on open,
+ * postings are decoded from the mapping only when a query needs them.
+ * <p>
+ * Layout: header (magic, version, field count, doc count), documents (key, field lengths),
+ * term dictionary of each field (term, postings offset), postings (doc freq, then ord, freq, positions).
+ */
+class MappedSegment implements Segment {
+  private static final int MAGIC = 0x53454731;
+  private static final int VERSION = 1;
+
+  private final Path path;
+  private final MappedByteBuffer buffer;
+  private final String[] keys;
+  private final int[][] fieldLengths;
+  private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+  private final int postingsStart;
+
+  private MappedSegment(Path path) throws IOException {
+    this.path = path;
+
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+      throw new IllegalStateException("Unsupported search segment " + path);
+
+    var fieldCount = buffer.getInt();
+    var docCount = buffer.getInt();
+
+    keys = new String[docCount];
+    fieldLengths = new int[docCount][fieldCount];
+
+    for (int ord = 0; ord < docCount; ord++) {
+      keys[ord] = readString(buffer);
+      for (int field = 0; field < fieldCount; field++) {
+        fieldLengths[ord][field] = buffer.getInt();
+      }
+    }
+
+    for (int field = 0; field < fieldCount; field++) {
+      var termCount = buffer.getInt();
+      var dictionary = new HashMap<String, Integer>(termCount * 2);
+
+      for (int i = 0; i < termCount; i++) {
+        dictionary.put(readString(buffer), buffer.getInt());
+      }
+      dictionaries.add(dictionary);
+    }
+
+    postingsStart = buffer.position();
+  }
+
+  static MappedSegment open(Path path) {
+    try {
+      return new MappedSegment(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes the segment aside and moves it in place, so a crash never leaves a partial segment behind.
+   */
+  static MappedSegment write(Path path, Segment segment, int fieldCount) {
+    try {
+      var postings = new ByteArrayOutputStream();
+      var postingsOut = new DataOutputStream(postings);
+      var offsets = new ArrayList<Map<String, Integer>>();
+
+      for (int field = 0; field < fieldCount; field++) {
+        var fieldOffsets = new HashMap<String, Integer>();
+
+        for (var term : segment.terms(field)) {
+          fieldOffsets.put(term, postingsOut.size());
+
+          var termPostings = segment.postings(field, term);
+          postingsOut.writeInt(termPostings.size());
+
+          for (var posting : termPostings) {
+            postingsOut.writeInt(posting.ord());
+            postingsOut.writeInt(posting.positions().length);
+            for (var position : posting.positions()) {
+              postingsOut.writeInt(position);
+            }
+          }
+        }
+        offsets.add(fieldOffsets);
+      }
+
+      var temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+      try (var file = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file)));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(fieldCount);
+        out.writeInt(segment.docCount());
+
+        for (int ord = 0; ord < segment.docCount(); ord++) {
+          writeString(out, segment.key(ord));
+          for (int field = 0; field < fieldCount; field++) {
+            out.writeInt(segment.fieldLength(ord, field));
+          }
+        }
+
+        for (var fieldOffsets : offsets) {
+          out.writeInt(fieldOffsets.size());
+          for (var term : fieldOffsets.entrySet()) {
+            writeString(out, term.getKey());
+            out.writeInt(term.getValue());
+          }
+        }
+
+        postings.writeTo(out);
+        out.flush();
+        file.force(true);
+      }
+
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+      return new MappedSegment(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  Path path() {
+    return path;
+  }
+
+  @Override
+  public int docCount() {
+    return keys.length;
+  }
+
+  @Override
+  public String key(int ord) {
+    return keys[ord];
+  }
+
+  @Override
+  public int fieldLength(int ord, int field) {
+    return fieldLengths[ord][field];
+  }
+
+  @Override
+  public Collection<String> terms(int field) {
+    return dictionaries.get(field).keySet();
+  }
+
+  @Override
+  public List<Posting> postings(int field, String term) {
+    var offset = dictionaries.get(field).get(term);
+
+    if (offset == null)
+      return List.of();
+
+    // Absolute reads, the shared mapping is read by concurrent queries
+    var position = postingsStart + offset;
+    var docFreq = buffer.getInt(position);
+    var postings = new ArrayList<Posting>(docFreq);
+    position += Integer.BYTES;
+
+    for (int i = 0; i < docFreq; i++) {
+      var ord = buffer.getInt(position);
+      var freq = buffer.getInt(position + Integer.BYTES);
+      var positions = new int[freq];
+      position += 2 * Integer.BYTES;
+
+      for (int j = 0; j < freq; j++) {
+        positions[j] = buffer.getInt(position);
+        position += Integer.BYTES;
+      }
+      postings.add(new Posting(ord, positions));
+    }
+
+    return postings;
+  }
+
+  static String readString(ByteBuffer buffer) {
+    var bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static void writeString(DataOutputStream out, String value) throws IOException {
+    var bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
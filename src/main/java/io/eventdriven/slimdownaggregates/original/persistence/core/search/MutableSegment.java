@@ -0,0 +1,82 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory segment collecting recently indexed documents until they're flushed to a file.
+ */
+class MutableSegment implements Segment {
+  private final List<String> keys = new ArrayList<>();
+  private final List<int[]> fieldLengths = new ArrayList<>();
+  private final List<Map<String, List<Posting>>> postings = new ArrayList<>();
+
+  MutableSegment(int fieldCount) {
+    for (int field = 0; field < fieldCount; field++) {
+      postings.add(new HashMap<>());
+    }
+  }
+
+  int add(SearchDocument document) {
+    var lengths = new int[postings.size()];
+    var ord = addDoc(document.key(), lengths);
+
+    for (int field = 0; field < postings.size(); field++) {
+      var tokens = Tokenizer.tokenize(document.fields().get(field));
+      var positions = new HashMap<String, List<Integer>>();
+
+      for (int position = 0; position < tokens.size(); position++) {
+        positions.computeIfAbsent(tokens.get(position), t -> new ArrayList<>()).add(position);
+      }
+      for (var term : positions.entrySet()) {
+        addPosting(field, term.getKey(), new Posting(ord, term.getValue().stream().mapToInt(Integer::intValue).toArray()));
+      }
+      lengths[field] = tokens.size();
+    }
+
+    return ord;
+  }
+
+  int addDoc(String key, int[] lengths) {
+    keys.add(key);
+    fieldLengths.add(lengths);
+    return keys.size() - 1;
+  }
+
+  // Postings have to be added in the ordinal order
+  void addPosting(int field, String term, Posting posting) {
+    postings.get(field).computeIfAbsent(term, t -> new ArrayList<>()).add(posting);
+  }
+
+  int fieldCount() {
+    return postings.size();
+  }
+
+  @Override
+  public int docCount() {
+    return keys.size();
+  }
+
+  @Override
+  public String key(int ord) {
+    return keys.get(ord);
+  }
+
+  @Override
+  public int fieldLength(int ord, int field) {
+    return fieldLengths.get(ord)[field];
+  }
+
+  @Override
+  public Collection<String> terms(int field) {
+    return postings.get(field).keySet();
+  }
+
+  @Override
+  public List<Posting> postings(int field, String term) {
+    return postings.get(field).getOrDefault(term, List.of());
+  }
+}
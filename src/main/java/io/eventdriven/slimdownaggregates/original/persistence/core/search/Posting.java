@@ -0,0 +1,7 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+/**
+ * Occurrences of a term in a single document of a segment.
+ */
+record Posting(int ord, int[] positions) {
+}
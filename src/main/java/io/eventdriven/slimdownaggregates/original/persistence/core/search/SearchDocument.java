@@ -0,0 +1,10 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+import java.util.List;
+
+/**
+ * Document to index, fields are positional and match the field weights the index was opened with.
+ * Indexing a document with an existing key replaces the previous one.
+ */
+public record SearchDocument(String key, List<String> fields) {
+}
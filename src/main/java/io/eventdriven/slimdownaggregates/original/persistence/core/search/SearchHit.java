@@ -0,0 +1,4 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+public record SearchHit(String key, double score) {
+}
@@ -0,0 +1,451 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Incremental inverted index with BM25 ranking and phrase queries, safe only for a single process.
+ * <p>
+ * New documents go to an in-memory segment and a write-ahead log. Once enough of them are collected,
+ * they're flushed to an immutable memory-mapped segment file and the log is truncated, so reopening
+ * the index only maps the segments and replays the log. Replaced documents are masked out of older
+ * segments and dropped when segments are merged.
+ */
+public class SearchIndex implements Closeable {
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final String LOG_FILE = "index.log";
+
+  private final Path directory;
+  private final double[] fieldWeights;
+  private final int flushThreshold;
+  private final int maxSegments;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final List<MappedSegment> segments = new ArrayList<>();
+  private final Map<Segment, BitSet> replaced = new IdentityHashMap<>();
+  private final Map<String, DocRef> live = new HashMap<>();
+  private final long[] totalFieldLengths;
+  private final FileChannel log;
+  private MutableSegment memory;
+  private long generation;
+
+  public SearchIndex(Path directory, double[] fieldWeights, int flushThreshold, int maxSegments) {
+    this.directory = directory;
+    this.fieldWeights = fieldWeights;
+    this.flushThreshold = flushThreshold;
+    this.maxSegments = maxSegments;
+    this.totalFieldLengths = new long[fieldWeights.length];
+    this.memory = new MutableSegment(fieldWeights.length);
+
+    try {
+      Files.createDirectories(directory);
+
+      try (var files = Files.list(directory)) {
+        var paths = files.sorted().toList();
+
+        for (var path : paths) {
+          var name = path.getFileName().toString();
+
+          if (name.endsWith(".tmp")) {
+            Files.delete(path);
+          } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+            var segment = MappedSegment.open(path);
+            segments.add(segment);
+            registerAll(segment);
+            generation = Math.max(generation, segmentGeneration(path));
+          }
+        }
+      }
+
+      log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      replayLog();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Indexes the document, replacing the one with the same key. It's durable only after the next sync.
+   */
+  public void index(SearchDocument document) {
+    if (document.fields().size() != fieldWeights.length)
+      throw new IllegalArgumentException("Document has to have " + fieldWeights.length + " fields");
+
+    lock.writeLock().lock();
+    try {
+      appendToLog(document);
+      register(memory, memory.add(document));
+
+      if (memory.docCount() >= flushThreshold)
+        flush();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Forces the documents indexed so far to disk, call it once per batch instead of per document.
+   */
+  public void sync() {
+    try {
+      log.force(false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the best matching documents, quoted phrases in the query have to match, other terms are optional.
+   */
+  public List<SearchHit> search(String queryText, int limit) {
+    var query = SearchQuery.parse(queryText);
+
+    if (query.isEmpty() || limit <= 0)
+      return List.of();
+
+    lock.readLock().lock();
+    try {
+      if (live.isEmpty())
+        return List.of();
+
+      var termScores = new HashMap<DocRef, Double>();
+      for (var term : new LinkedHashSet<>(query.terms())) {
+        for (int field = 0; field < fieldWeights.length; field++) {
+          addScores(termScores, field, termMatches(field, term));
+        }
+      }
+
+      Map<DocRef, Double> scores = termScores;
+
+      if (!query.phrases().isEmpty()) {
+        Map<DocRef, Double> phraseScores = null;
+
+        for (var phrase : query.phrases()) {
+          var matches = new HashMap<DocRef, Double>();
+          for (int field = 0; field < fieldWeights.length; field++) {
+            addScores(matches, field, phraseMatches(field, phrase));
+          }
+
+          if (phraseScores == null) {
+            phraseScores = matches;
+          } else {
+            phraseScores.keySet().retainAll(matches.keySet());
+            phraseScores.replaceAll((doc, score) -> score + matches.get(doc));
+          }
+        }
+
+        phraseScores.replaceAll((doc, score) -> score + termScores.getOrDefault(doc, 0.0));
+        scores = phraseScores;
+      }
+
+      return topHits(scores, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public boolean isEmpty() {
+    lock.readLock().lock();
+    try {
+      return live.isEmpty();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    lock.writeLock().lock();
+    try {
+      log.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private Map<DocRef, Integer> termMatches(int field, String term) {
+    var matches = new HashMap<DocRef, Integer>();
+
+    for (var segment : allSegments()) {
+      for (var posting : segment.postings(field, term)) {
+        if (!isReplaced(segment, posting.ord()))
+          matches.put(new DocRef(segment, posting.ord()), posting.positions().length);
+      }
+    }
+
+    return matches;
+  }
+
+  private Map<DocRef, Integer> phraseMatches(int field, List<String> phrase) {
+    var matches = new HashMap<DocRef, Integer>();
+
+    for (var segment : allSegments()) {
+      var first = segment.postings(field, phrase.get(0));
+
+      if (first.isEmpty())
+        continue;
+
+      // Positions of the following phrase terms by document, a document lacking any of them can't match
+      var following = new ArrayList<Map<Integer, int[]>>();
+      for (var term : phrase.subList(1, phrase.size())) {
+        var positions = new HashMap<Integer, int[]>();
+        for (var posting : segment.postings(field, term)) {
+          positions.put(posting.ord(), posting.positions());
+        }
+        following.add(positions);
+      }
+
+      for (var posting : first) {
+        if (isReplaced(segment, posting.ord()))
+          continue;
+
+        var occurrences = 0;
+        for (var start : posting.positions()) {
+          var matched = true;
+
+          for (int i = 0; i < following.size() && matched; i++) {
+            var positions = following.get(i).get(posting.ord());
+            matched = positions != null && Arrays.binarySearch(positions, start + i + 1) >= 0;
+          }
+          if (matched)
+            occurrences++;
+        }
+
+        if (occurrences > 0)
+          matches.put(new DocRef(segment, posting.ord()), occurrences);
+      }
+    }
+
+    return matches;
+  }
+
+  private void addScores(Map<DocRef, Double> scores, int field, Map<DocRef, Integer> matches) {
+    if (matches.isEmpty())
+      return;
+
+    var docCount = live.size();
+    var averageLength = Math.max(1.0, (double) totalFieldLengths[field] / docCount);
+    var idf = Math.log(1 + (docCount - matches.size() + 0.5) / (matches.size() + 0.5));
+
+    for (var match : matches.entrySet()) {
+      var doc = match.getKey();
+      var frequency = match.getValue();
+      var length = doc.segment().fieldLength(doc.ord(), field);
+      var score = fieldWeights[field] * idf * frequency * (K1 + 1)
+        / (frequency + K1 * (1 - B + B * length / averageLength));
+
+      scores.merge(doc, score, Double::sum);
+    }
+  }
+
+  private static List<SearchHit> topHits(Map<DocRef, Double> scores, int limit) {
+    var top = new PriorityQueue<Map.Entry<DocRef, Double>>(Map.Entry.comparingByValue());
+
+    for (var entry : scores.entrySet()) {
+      top.add(entry);
+      if (top.size() > limit)
+        top.poll();
+    }
+
+    var hits = new ArrayList<SearchHit>(top.size());
+    while (!top.isEmpty()) {
+      var entry = top.poll();
+      hits.add(new SearchHit(entry.getKey().segment().key(entry.getKey().ord()), entry.getValue()));
+    }
+    Collections.reverse(hits);
+
+    return hits;
+  }
+
+  private List<Segment> allSegments() {
+    var all = new ArrayList<Segment>(segments.size() + 1);
+    all.addAll(segments);
+    all.add(memory);
+    return all;
+  }
+
+  private boolean isReplaced(Segment segment, int ord) {
+    var bits = replaced.get(segment);
+    return bits != null && bits.get(ord);
+  }
+
+  private void registerAll(Segment segment) {
+    for (int ord = 0; ord < segment.docCount(); ord++) {
+      register(segment, ord);
+    }
+  }
+
+  // The latest version of a key wins, the previous one is masked out of its segment
+  private void register(Segment segment, int ord) {
+    var previous = live.put(segment.key(ord), new DocRef(segment, ord));
+
+    if (previous != null) {
+      replaced.computeIfAbsent(previous.segment(), s -> new BitSet()).set(previous.ord());
+      for (int field = 0; field < fieldWeights.length; field++) {
+        totalFieldLengths[field] -= previous.segment().fieldLength(previous.ord(), field);
+      }
+    }
+
+    for (int field = 0; field < fieldWeights.length; field++) {
+      totalFieldLengths[field] += segment.fieldLength(ord, field);
+    }
+  }
+
+  private void flush() {
+    var flushed = MappedSegment.write(nextSegmentPath(), memory, fieldWeights.length);
+
+    // Ordinals are kept, so only the references of the flushed documents move to the file segment
+    for (int ord = 0; ord < memory.docCount(); ord++) {
+      live.computeIfPresent(memory.key(ord), (key, doc) -> doc.segment() == memory ? new DocRef(flushed, doc.ord()) : doc);
+    }
+    var memoryReplaced = replaced.remove(memory);
+    if (memoryReplaced != null)
+      replaced.put(flushed, memoryReplaced);
+
+    segments.add(flushed);
+    memory = new MutableSegment(fieldWeights.length);
+    truncateLog();
+
+    if (segments.size() > maxSegments)
+      merge();
+  }
+
+  // Rewrites all segments into one without the replaced documents, merging everything keeps it simple
+  // at the cost of rewriting the largest segment every maxSegments flushes
+  private void merge() {
+    var merged = new MutableSegment(fieldWeights.length);
+
+    for (var segment : segments) {
+      var ords = new int[segment.docCount()];
+
+      for (int ord = 0; ord < segment.docCount(); ord++) {
+        if (isReplaced(segment, ord)) {
+          ords[ord] = -1;
+          continue;
+        }
+
+        var lengths = new int[fieldWeights.length];
+        for (int field = 0; field < fieldWeights.length; field++) {
+          lengths[field] = segment.fieldLength(ord, field);
+        }
+        ords[ord] = merged.addDoc(segment.key(ord), lengths);
+      }
+
+      for (int field = 0; field < fieldWeights.length; field++) {
+        for (var term : segment.terms(field)) {
+          for (var posting : segment.postings(field, term)) {
+            if (ords[posting.ord()] >= 0)
+              merged.addPosting(field, term, new Posting(ords[posting.ord()], posting.positions()));
+          }
+        }
+      }
+    }
+
+    var mergedSegment = MappedSegment.write(nextSegmentPath(), merged, fieldWeights.length);
+
+    for (int ord = 0; ord < mergedSegment.docCount(); ord++) {
+      live.put(mergedSegment.key(ord), new DocRef(mergedSegment, ord));
+    }
+
+    for (var segment : segments) {
+      replaced.remove(segment);
+      try {
+        Files.deleteIfExists(segment.path());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    segments.clear();
+    segments.add(mergedSegment);
+  }
+
+  private Path nextSegmentPath() {
+    generation++;
+    return directory.resolve(SEGMENT_PREFIX + String.format("%012d", generation) + SEGMENT_SUFFIX);
+  }
+
+  private static long segmentGeneration(Path path) {
+    var name = path.getFileName().toString();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  // Log record: length, key, field count, fields
+  private void appendToLog(SearchDocument document) {
+    try {
+      var bytes = new ByteArrayOutputStream();
+      var out = new DataOutputStream(bytes);
+
+      out.writeInt(0);
+      MappedSegment.writeString(out, document.key());
+      out.writeInt(document.fields().size());
+      for (var field : document.fields()) {
+        MappedSegment.writeString(out, field);
+      }
+
+      var record = ByteBuffer.wrap(bytes.toByteArray());
+      record.putInt(0, record.capacity() - Integer.BYTES);
+
+      log.position(log.size());
+      while (record.hasRemaining()) {
+        log.write(record);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void replayLog() throws IOException {
+    var buffer = ByteBuffer.allocate((int) log.size());
+    log.read(buffer, 0);
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+      var start = buffer.position();
+      var length = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : -1;
+
+      // Torn record of a write that didn't complete before a crash, it's cut off so the next record follows the last whole one
+      if (length < 0 || length > buffer.remaining()) {
+        log.truncate(start);
+        break;
+      }
+
+      var record = buffer.slice(buffer.position(), length);
+      buffer.position(buffer.position() + length);
+
+      var key = MappedSegment.readString(record);
+      var fields = new ArrayList<String>();
+      var fieldCount = record.getInt();
+      for (int i = 0; i < fieldCount; i++) {
+        fields.add(MappedSegment.readString(record));
+      }
+
+      register(memory, memory.add(new SearchDocument(key, fields)));
+    }
+  }
+
+  private void truncateLog() {
+    try {
+      log.truncate(0);
+      log.force(false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private record DocRef(Segment segment, int ord) {
+  }
+}
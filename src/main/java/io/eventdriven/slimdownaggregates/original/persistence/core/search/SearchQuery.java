@@ -0,0 +1,33 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsed query, quoted parts are phrases a document has to contain, the other terms only add to the score.
+ */
+public record SearchQuery(List<String> terms, List<List<String>> phrases) {
+
+  public static SearchQuery parse(String query) {
+    var terms = new ArrayList<String>();
+    var phrases = new ArrayList<List<String>>();
+    var parts = query.split("\"", -1);
+
+    // Parts at odd indexes were enclosed in quotes
+    for (int i = 0; i < parts.length; i++) {
+      var tokens = Tokenizer.tokenize(parts[i]);
+
+      if (i % 2 == 1 && !tokens.isEmpty()) {
+        phrases.add(tokens);
+      } else {
+        terms.addAll(tokens);
+      }
+    }
+
+    return new SearchQuery(terms, phrases);
+  }
+
+  public boolean isEmpty() {
+    return terms.isEmpty() && phrases.isEmpty();
+  }
+}
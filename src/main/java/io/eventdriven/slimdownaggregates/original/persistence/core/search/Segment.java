@@ -0,0 +1,19 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set of documents with their own ordinals and postings, sorted by ordinal for each term.
+ */
+interface Segment {
+  int docCount();
+
+  String key(int ord);
+
+  int fieldLength(int ord, int field);
+
+  Collection<String> terms(int field);
+
+  List<Posting> postings(int field, String term);
+}
@@ -0,0 +1,32 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into lowercase terms on everything that's not a letter or a digit.
+ */
+public final class Tokenizer {
+  private Tokenizer() {
+  }
+
+  public static List<String> tokenize(String text) {
+    var terms = new ArrayList<String>();
+    var term = new StringBuilder();
+
+    text.codePoints().forEach(codePoint -> {
+      if (Character.isLetterOrDigit(codePoint)) {
+        term.appendCodePoint(codePoint);
+      } else if (!term.isEmpty()) {
+        terms.add(term.toString().toLowerCase(Locale.ROOT));
+        term.setLength(0);
+      }
+    });
+
+    if (!term.isEmpty())
+      terms.add(term.toString().toLowerCase(Locale.ROOT));
+
+    return terms;
+  }
+}
@@ -2,10 +2,14 @@ package io.eventdriven.slimdownaggregates.original.persistence.publishers;
 
 import jakarta.persistence.*;
 
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "publishers")
+@Table(
+  name = "publishers",
+  indexes = @Index(name = "publishers_modified_idx", columnList = "modified")
+)
 public class PublisherEntity {
   @Id
   @GeneratedValue(strategy = GenerationType.AUTO)
@@ -13,10 +17,20 @@ public class PublisherEntity {
 
   private String name;
 
+  // Read by the publishers cache to refresh only what changed, rows written outside JPA have to set it too
+  @Column(nullable = false, columnDefinition = "timestamp(6) with time zone not null default now()")
+  private OffsetDateTime modified;
+
   public PublisherEntity() {
     // Default constructor for JPA
   }
 
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    modified = OffsetDateTime.now();
+  }
+
   // Standard getters and setters
 
   public UUID getId() {
@@ -34,4 +48,8 @@ public class PublisherEntity {
   public void setName(String lastName) {
     this.name = lastName;
   }
+
+  public OffsetDateTime getModified() {
+    return modified;
+  }
 }
@@ -2,7 +2,10 @@ package io.eventdriven.slimdownaggregates.original.persistence.publishers;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
-public interface PublisherRepository extends JpaRepository<PublisherEntity, UUID> {}
-
+public interface PublisherRepository extends JpaRepository<PublisherEntity, UUID> {
+  List<PublisherEntity> findByModifiedAfter(OffsetDateTime since);
+}
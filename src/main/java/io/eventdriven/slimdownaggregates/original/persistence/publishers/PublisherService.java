@@ -4,21 +4,104 @@ import io.eventdriven.slimdownaggregates.original.domain.books.entities.Publishe
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.PublisherId;
 import io.eventdriven.slimdownaggregates.original.domain.books.entities.PublisherName;
 import io.eventdriven.slimdownaggregates.original.domain.books.publishers.PublisherProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves publishers from memory. All publishers are loaded on start, then only the ones modified since
+ * the last refresh are read again. A publisher created in between is read on its first lookup.
+ * Publishers are referenced by books, so they're not expected to be deleted.
+ */
 @Service
-@Transactional(readOnly = true)
-public class PublisherService implements PublisherProvider {
+public class PublisherService implements PublisherProvider, SmartLifecycle {
+  private static final Logger logger = LoggerFactory.getLogger(PublisherService.class);
+  // Rows are stamped before their transaction commits, so a refresh reads a bit further back than the newest stamp seen
+  private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
   private final PublisherRepository publisherRepository;
+  private final Duration refreshInterval;
+  private final ConcurrentHashMap<PublisherId, Publisher> publishers = new ConcurrentHashMap<>();
+
+  // Only touched by the refreshing thread, after the initial load
+  private OffsetDateTime lastModified;
+  private ScheduledExecutorService scheduler;
 
-  public PublisherService(PublisherRepository publisherRepository) {
+  public PublisherService(PublisherRepository publisherRepository, Duration refreshInterval) {
     this.publisherRepository = publisherRepository;
+    this.refreshInterval = refreshInterval;
   }
 
   public Publisher getById(PublisherId publisherId) {
+    var cached = publishers.get(publisherId);
+    if (cached != null)
+      return cached;
+
     return publisherRepository.findById(publisherId.value())
-      .map(p -> new Publisher(new PublisherId(p.getId()), new PublisherName(p.getName())))
+      .map(this::cache)
       .orElseThrow(() -> new IllegalStateException("Publisher not found"));
   }
+
+  @Override
+  public synchronized void start() {
+    if (scheduler != null)
+      return;
+
+    // Loaded before serving, later refreshes run in the background
+    load(publisherRepository.findAll());
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "publishers-refresh"));
+    scheduler.scheduleWithFixedDelay(this::refresh, refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (scheduler == null)
+      return;
+
+    scheduler.shutdownNow();
+    scheduler = null;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return scheduler != null;
+  }
+
+  private void refresh() {
+    try {
+      load(
+        lastModified != null
+          ? publisherRepository.findByModifiedAfter(lastModified.minus(REFRESH_OVERLAP))
+          : publisherRepository.findAll()
+      );
+    } catch (DataAccessException e) {
+      logger.error("Publishers refresh failed", e);
+    }
+  }
+
+  private void load(List<PublisherEntity> entities) {
+    for (var entity : entities) {
+      cache(entity);
+
+      if (entity.getModified() != null && (lastModified == null || entity.getModified().isAfter(lastModified)))
+        lastModified = entity.getModified();
+    }
+  }
+
+  private Publisher cache(PublisherEntity entity) {
+    var publisher = new Publisher(new PublisherId(entity.getId()), new PublisherName(entity.getName()));
+    publishers.put(publisher.id(), publisher);
+    return publisher;
+  }
 }
@@ -1,5 +1,6 @@
 package io.eventdriven.slimdownaggregates.original.persistence.reviewers;
 
+import io.eventdriven.slimdownaggregates.original.persistence.books.BookEntity;
 import jakarta.persistence.*;
 
 import java.util.UUID;
@@ -7,19 +8,24 @@ import java.util.UUID;
 @Entity
 @Table(name = "reviewers")
 public class ReviewerEntity {
+  // Assigned from the ReviewerId of the aggregate
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
   private UUID id;
 
   private String name;
 
+  @ManyToOne
+  @JoinColumn(name = "book_id")
+  private BookEntity book;
+
   public ReviewerEntity() {
     // Default constructor for JPA
   }
 
-  public ReviewerEntity(UUID id, String name) {
+  public ReviewerEntity(UUID id, String name, BookEntity book) {
     this.id = id;
     this.name = name;
+    this.book = book;
   }
 
   // Standard getters and setters
@@ -39,4 +45,12 @@ public class ReviewerEntity {
   public void setName(String lastName) {
     this.name = lastName;
   }
+
+  public BookEntity getBook() {
+    return book;
+  }
+
+  public void setBook(BookEntity book) {
+    this.book = book;
+  }
 }
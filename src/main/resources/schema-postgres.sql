@@ -0,0 +1,25 @@
+-- Outbox is range partitioned by position, so delivered ranges are dropped whole instead of deleted row by row.
+-- Partitions are created ahead and dropped by OutboxRetention.
+-- There's no default partition, partitions can't be detached concurrently while one exists.
+-- Increment must match the allocationSize of OutboxMessageEntity.position
+CREATE SEQUENCE IF NOT EXISTS outbox_position_seq INCREMENT BY 1;
+ALTER SEQUENCE outbox_position_seq INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS outboxmessages
+(
+    position        bigint DEFAULT nextval('outbox_position_seq'),
+    message_id      uuid                     NOT NULL,
+    message_type_id smallint                 NOT NULL,
+    aggregate_id    varchar(255),
+    data            bytea                    NOT NULL,
+    scheduled       timestamp(6) with time zone NOT NULL,
+    delivered       timestamp(6) with time zone,
+    attempts        integer                  NOT NULL DEFAULT 0,
+    PRIMARY KEY (position)
+) PARTITION BY RANGE (position);
+
+-- Added after the table was first created
+ALTER TABLE outboxmessages ADD COLUMN IF NOT EXISTS attempts integer NOT NULL DEFAULT 0;
+
+-- Relay only scans undelivered rows, the index stays small no matter how many delivered rows are retained
+CREATE INDEX IF NOT EXISTS outboxmessages_undelivered_idx ON outboxmessages (position) WHERE delivered IS NULL;
@@ -0,0 +1,76 @@
+package io.eventdriven.slimdownaggregates.original.api.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrencyLimitFilterTest {
+  private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+    1,
+    Duration.ZERO,
+    request -> !request.getRequestURI().startsWith("/api/books/commands/")
+  );
+
+  @Test
+  void streamedResponseHoldsThePermitUntilItCompletes() throws Exception {
+    var streamed = new MockHttpServletRequest();
+    streamed.setAsyncSupported(true);
+    FilterChain startsAsync = (request, response) -> request.startAsync();
+    filter.doFilter(streamed, new MockHttpServletResponse(), startsAsync);
+
+    assertEquals(503, send().getStatus());
+
+    ((MockAsyncContext) streamed.getAsyncContext()).complete();
+
+    assertEquals(200, send().getStatus());
+  }
+
+  @Test
+  void permitIsReleasedOnceWhenCompleteFollowsAnError() throws Exception {
+    var streamed = new MockHttpServletRequest();
+    streamed.setAsyncSupported(true);
+    FilterChain startsAsync = (request, response) -> request.startAsync();
+    filter.doFilter(streamed, new MockHttpServletResponse(), startsAsync);
+
+    var context = (MockAsyncContext) streamed.getAsyncContext();
+    for (var listener : context.getListeners()) {
+      listener.onError(null);
+    }
+    context.complete();
+
+    // Only one permit, a second release would let two requests run at once
+    var held = new MockHttpServletRequest();
+    held.setAsyncSupported(true);
+    filter.doFilter(held, new MockHttpServletResponse(), startsAsync);
+    assertEquals(503, send().getStatus());
+  }
+
+  @Test
+  void requestNotUsingTheDatabasePassesWhileThePermitIsHeld() throws Exception {
+    var streamed = new MockHttpServletRequest();
+    streamed.setAsyncSupported(true);
+    FilterChain startsAsync = (request, response) -> request.startAsync();
+    filter.doFilter(streamed, new MockHttpServletResponse(), startsAsync);
+
+    var response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/books/commands/" + UUID.randomUUID()), response, (request, r) -> {
+    });
+
+    assertEquals(200, response.getStatus());
+    assertEquals(503, send().getStatus());
+  }
+
+  private MockHttpServletResponse send() throws Exception {
+    var response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest(), response, (request, r) -> {
+    });
+    return response;
+  }
+}
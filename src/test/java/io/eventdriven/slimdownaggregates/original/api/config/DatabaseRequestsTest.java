@@ -0,0 +1,65 @@
+package io.eventdriven.slimdownaggregates.original.api.config;
+
+import io.eventdriven.slimdownaggregates.original.application.books.BooksQueryService;
+import io.eventdriven.slimdownaggregates.original.application.books.CachingBooksQueryService;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetails;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseRequestsTest {
+  private final CachingBooksQueryService booksQueryService = new CachingBooksQueryService(
+    (BooksQueryService) Proxy.newProxyInstance(
+      BooksQueryService.class.getClassLoader(),
+      new Class<?>[]{BooksQueryService.class},
+      (proxy, method, args) -> Optional.of(details((BookId) args[0]))
+    ),
+    1024 * 1024,
+    Duration.ofSeconds(30),
+    new SimpleMeterRegistry()
+  );
+
+  @Test
+  void cachedDetailsAreReadWithoutTheDatabase() {
+    var requests = new DatabaseRequests(booksQueryService, false);
+    var bookId = UUID.randomUUID();
+
+    assertTrue(requests.test(new MockHttpServletRequest("GET", "/api/books/" + bookId)));
+
+    booksQueryService.findDetailsById(new BookId(bookId));
+
+    assertFalse(requests.test(new MockHttpServletRequest("GET", "/api/books/" + bookId)));
+    assertTrue(requests.test(new MockHttpServletRequest("GET", "/api/books")));
+  }
+
+  @Test
+  void queuedCommandsStatusesAndSearchesSkipTheDatabase() {
+    var bookId = UUID.randomUUID();
+    var queued = new DatabaseRequests(booksQueryService, true);
+    var saved = new DatabaseRequests(booksQueryService, false);
+
+    assertFalse(queued.test(new MockHttpServletRequest("POST", "/api/books/" + bookId + "/chapters")));
+    assertTrue(saved.test(new MockHttpServletRequest("POST", "/api/books/" + bookId + "/chapters")));
+    // Drafts are created right away either way
+    assertTrue(queued.test(new MockHttpServletRequest("POST", "/api/books")));
+
+    assertFalse(saved.test(new MockHttpServletRequest("GET", "/api/books/commands/" + UUID.randomUUID())));
+    assertFalse(saved.test(new MockHttpServletRequest("GET", "/api/books/search/chapters")));
+  }
+
+  private static BookDetails details(BookId bookId) {
+    return new BookDetails(
+      bookId.value(), "WRITING", "Title", null, "Publisher", 1, null, null, null, null, null, null, null, null,
+      new String[0], new BookDetails.ChapterDetails[0], new BookDetails.TranslationDetails[0], new BookDetails.FormatDetails[0]
+    );
+  }
+}
@@ -0,0 +1,84 @@
+package io.eventdriven.slimdownaggregates.original.api.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.application.books.BooksQueryService;
+import io.eventdriven.slimdownaggregates.original.application.books.BooksService;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookSummary;
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BooksControllerStreamingTest extends PersistenceTest {
+  // More than two fetch sizes of the cursor, the last fetch is partial
+  private static final int BOOKS_COUNT = 1_201;
+
+  private final String genre = "Genre " + UUID.randomUUID();
+
+  @Autowired
+  private BooksService booksService;
+
+  @Autowired
+  private BooksQueryService booksQueryService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void deleteBooks() {
+    jdbcTemplate.update("DELETE FROM book_details WHERE genre = ?", genre);
+  }
+
+  @Test
+  void streamsEverySummaryPastTheFirstFetch() throws Exception {
+    jdbcTemplate.update(
+      """
+        INSERT INTO book_details (id, publisher_id, publisher_name, title, current_state, genre, data, last_position)
+        SELECT gen_random_uuid(), gen_random_uuid(), 'Publisher', 'Book ' || i, 'WRITING', ?, '{}', 0
+        FROM generate_series(1, ?) i
+        """,
+      genre,
+      BOOKS_COUNT
+    );
+    var mvc = MockMvcBuilders
+      .standaloneSetup(new BooksController(booksService, booksQueryService, objectMapper, Optional.empty()))
+      .build();
+
+    var started = mvc.perform(get("/api/books").param("genre", genre).accept(MediaType.APPLICATION_NDJSON))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+    var body = mvc.perform(asyncDispatch(started))
+      .andExpect(status().isOk())
+      .andReturn()
+      .getResponse()
+      .getContentAsString();
+
+    var ids = body.lines()
+      .map(line -> {
+        try {
+          return objectMapper.readValue(line, BookSummary.class).id().toString();
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      })
+      .toList();
+    assertEquals(BOOKS_COUNT, ids.size());
+    // Postgres orders uuids by their unsigned bytes, like their text
+    assertEquals(ids.stream().sorted().toList(), ids);
+  }
+}
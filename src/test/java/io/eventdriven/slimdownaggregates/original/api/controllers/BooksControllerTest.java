@@ -0,0 +1,36 @@
+package io.eventdriven.slimdownaggregates.original.api.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.application.books.BooksQueryService;
+import io.eventdriven.slimdownaggregates.original.application.books.BooksService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BooksControllerTest {
+  private final BooksService booksService = mock(BooksService.class);
+  private final MockMvc mvc = MockMvcBuilders
+    .standaloneSetup(new BooksController(booksService, mock(BooksQueryService.class), new ObjectMapper(), Optional.empty()))
+    .build();
+
+  @ParameterizedTest
+  @ValueSource(strings = {"{}", "{\"chapters\": null}", "{\"chapters\": []}", "{\"chapters\": [null]}"})
+  void addingChaptersWithoutChaptersIsBadRequest(String body) throws Exception {
+    mvc.perform(post("/api/books/{id}/chapters/bulk", UUID.randomUUID())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(body))
+      .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(booksService);
+  }
+}
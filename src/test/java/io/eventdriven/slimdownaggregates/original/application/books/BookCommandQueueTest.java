@@ -0,0 +1,219 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.application.books.BookCommandJournal.PendingCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChapterCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CommandStatus;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CreateDraftCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.MoveToEditingCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.persistence.books.commands.BookCommandOutcomeJpaRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.commands.BookCommandOutcomesRepository;
+import io.eventdriven.slimdownaggregates.original.persistence.books.commands.FileBookCommandJournal;
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class BookCommandQueueTest extends PersistenceTest {
+  @Autowired
+  private BooksService booksService;
+
+  @Autowired
+  private BooksRepository booksRepository;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private BookCommandOutcomeJpaRepository bookCommandOutcomeJpaRepository;
+
+  @TempDir
+  Path journalDirectory;
+
+  private final AtomicInteger failedSaves = new AtomicInteger();
+  private BookCommandJournal journal;
+  private BookCommandQueue queue;
+
+  @AfterEach
+  void stop() {
+    if (queue != null)
+      queue.stop();
+  }
+
+  @Test
+  void commandFailingToSaveIsRetried() throws Exception {
+    var bookId = createBook();
+    start(2);
+
+    var commandId = queue.submit(addChapter(bookId, 1));
+
+    assertEquals(CommandStatus.succeeded(commandId), queue.completion(commandId).orElseThrow().get(1, TimeUnit.MINUTES));
+    assertEquals(2, failedSaves.get());
+    assertEquals(1, booksRepository.findById(bookId).orElseThrow().getChapters().size());
+  }
+
+  @Test
+  void commandRejectedByTheBookFails() throws Exception {
+    var bookId = createBook();
+    start(0);
+
+    // A book without chapters can't be edited
+    var commandId = queue.submit(new MoveToEditingCommand(bookId));
+
+    var outcome = queue.completion(commandId).orElseThrow().get(1, TimeUnit.MINUTES);
+    assertEquals(CommandStatus.State.FAILED, outcome.state());
+    assertEquals(0, failedSaves.get());
+  }
+
+  @Test
+  void commandFailingToSaveEveryTimeStaysPending() throws Exception {
+    var bookId = createBook();
+    start(Integer.MAX_VALUE);
+
+    var commandId = queue.submit(addChapter(bookId, 1));
+
+    var deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+    while (failedSaves.get() < 5 && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+    queue.stop();
+
+    assertEquals(5, failedSaves.get());
+    assertEquals(CommandStatus.pending(commandId), queue.status(commandId).orElseThrow());
+    assertEquals(commandId, journal.pending().get(0).commandId());
+  }
+
+  @Test
+  void laterCommandsOfAParkedBookStayPendingBehindIt() throws Exception {
+    var bookId = createBook();
+    var otherBookId = createBook();
+    start(5);
+
+    var parkedId = queue.submit(addChapter(bookId, 1));
+    var deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+    while (failedSaves.get() < 5 && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+    var laterId = queue.submit(addChapter(bookId, 2));
+    var otherId = queue.submit(addChapter(otherBookId, 1));
+
+    assertEquals(CommandStatus.succeeded(otherId), queue.completion(otherId).orElseThrow().get(1, TimeUnit.MINUTES));
+    assertEquals(CommandStatus.pending(laterId), queue.status(laterId).orElseThrow());
+    queue.stop();
+    assertEquals(5, failedSaves.get());
+    assertEquals(List.of(parkedId, laterId), journal.pending().stream().map(PendingCommand::commandId).toList());
+
+    // Both are applied in order after a restart
+    start(0);
+    assertEquals(CommandStatus.succeeded(laterId), queue.completion(laterId).orElseThrow().get(1, TimeUnit.MINUTES));
+    assertEquals(CommandStatus.succeeded(parkedId), queue.status(parkedId).orElseThrow());
+    assertEquals(2, booksRepository.findById(bookId).orElseThrow().getChapters().size());
+  }
+
+  @Test
+  void commandSavedBeforeACrashIsAnsweredWithItsSavedOutcome() throws Exception {
+    var bookId = createBook();
+    start(0, true);
+
+    var commandId = queue.submit(addChapter(bookId, 1));
+    var deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+    while (booksRepository.findById(bookId).orElseThrow().getChapters().isEmpty() && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+    queue.stop();
+
+    // Running it again would fail it, the chapter already exists
+    start(0);
+    assertEquals(CommandStatus.succeeded(commandId), queue.completion(commandId).orElseThrow().get(1, TimeUnit.MINUTES));
+    assertEquals(1, booksRepository.findById(bookId).orElseThrow().getChapters().size());
+
+    var deleteDeadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+    while (bookCommandOutcomeJpaRepository.existsById(commandId) && System.nanoTime() < deleteDeadline) {
+      Thread.sleep(50);
+    }
+    assertFalse(bookCommandOutcomeJpaRepository.existsById(commandId));
+  }
+
+  private void start(int failingSaves) {
+    start(failingSaves, false);
+  }
+
+  private void start(int failingSaves, boolean crashBeforeJournaling) {
+    // Saving fails as if the database was unavailable, the given number of times
+    var repository = (BooksRepository) Proxy.newProxyInstance(
+      BooksRepository.class.getClassLoader(),
+      new Class<?>[]{BooksRepository.class},
+      (proxy, method, args) -> {
+        if (method.getName().equals("update") && failedSaves.get() < failingSaves) {
+          failedSaves.incrementAndGet();
+          throw new TransientDataAccessResourceException("Database unavailable");
+        }
+        try {
+          return method.invoke(booksRepository, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      }
+    );
+
+    var fileJournal = new FileBookCommandJournal(journalDirectory, objectMapper, 100);
+    // Journaling outcomes fails as if the process crashed after the book was saved
+    journal = (BookCommandJournal) Proxy.newProxyInstance(
+      BookCommandJournal.class.getClassLoader(),
+      new Class<?>[]{BookCommandJournal.class},
+      (proxy, method, args) -> {
+        if (method.getName().equals("complete") && crashBeforeJournaling)
+          throw new IllegalStateException("Crashed");
+        try {
+          return method.invoke(fileJournal, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      }
+    );
+    queue = new BookCommandQueue(
+      journal,
+      new BookCommandOutcomesRepository(bookCommandOutcomeJpaRepository),
+      repository,
+      transactionTemplate(),
+      10,
+      new CustomizableThreadFactory("book-commands-test-")
+    );
+    queue.start();
+  }
+
+  private BookId createBook() {
+    var bookId = new BookId(UUID.randomUUID());
+    booksService.createDraft(new CreateDraftCommand(
+      bookId,
+      new Title("Book " + bookId.value()),
+      new AuthorIdOrData(null, new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      new PublisherId(createPublisher()),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    ));
+    return bookId;
+  }
+
+  private static AddChapterCommand addChapter(BookId bookId, int number) {
+    return new AddChapterCommand(bookId, new ChapterTitle("chapter " + number), new ChapterContent("Content of chapter " + number));
+  }
+}
@@ -0,0 +1,50 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetails;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachingBooksQueryServiceTest {
+  @Test
+  void detailsChangedOnAnotherNodeAreReadAgainOnceExpired() {
+    var loads = new AtomicInteger();
+    var inner = (BooksQueryService) Proxy.newProxyInstance(
+      BooksQueryService.class.getClassLoader(),
+      new Class<?>[]{BooksQueryService.class},
+      (proxy, method, args) -> {
+        loads.incrementAndGet();
+        return Optional.of(details((BookId) args[0]));
+      }
+    );
+    var now = new AtomicLong();
+    var service = new CachingBooksQueryService(inner, 1024 * 1024, Duration.ofSeconds(30), now::get, new SimpleMeterRegistry());
+    var bookId = new BookId(UUID.randomUUID());
+
+    service.findDetailsById(bookId);
+    now.addAndGet(Duration.ofSeconds(29).toNanos());
+    service.findDetailsById(bookId);
+    assertEquals(1, loads.get());
+
+    // No invalidation arrives from the node that projected the change
+    now.addAndGet(Duration.ofSeconds(2).toNanos());
+    service.findDetailsById(bookId);
+    assertEquals(2, loads.get());
+  }
+
+  private static BookDetails details(BookId bookId) {
+    return new BookDetails(
+      bookId.value(), "WRITING", "Title", null, "Publisher", 1, null, null, null, null, null, null, null, null,
+      new String[0], new BookDetails.ChapterDetails[0], new BookDetails.TranslationDetails[0], new BookDetails.FormatDetails[0]
+    );
+  }
+}
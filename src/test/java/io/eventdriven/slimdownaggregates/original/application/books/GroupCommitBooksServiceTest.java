@@ -0,0 +1,125 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChapterCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CreateDraftCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitBooksServiceTest extends PersistenceTest {
+  @Autowired
+  private BooksRepository booksRepository;
+
+  @Test
+  void createDraftRunsInTransaction() {
+    var inTransaction = new AtomicBoolean();
+    var inner = (BooksService) Proxy.newProxyInstance(
+      BooksService.class.getClassLoader(),
+      new Class<?>[]{BooksService.class},
+      (proxy, method, args) -> {
+        inTransaction.set(TransactionSynchronizationManager.isActualTransactionActive());
+        return null;
+      }
+    );
+
+    var service = new GroupCommitBooksService(
+      inner,
+      booksRepository,
+      transactionTemplate(),
+      Duration.ofMillis(2),
+      10,
+      new CustomizableThreadFactory("book-group-commit-test-")
+    );
+    try {
+      var bookId = new BookId(UUID.randomUUID());
+      service.createDraft(new CreateDraftCommand(
+        bookId,
+        new Title("Book " + bookId.value()),
+        new AuthorIdOrData(null, new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+        new PublisherId(UUID.randomUUID()),
+        new PositiveInt(1),
+        new Genre("Fiction")
+      ));
+    } finally {
+      service.close();
+    }
+
+    assertTrue(inTransaction.get());
+  }
+
+  @Test
+  void commandsSubmittedWhileClosingDontWaitForever() throws Exception {
+    var service = new GroupCommitBooksService(
+      null,
+      booksRepository,
+      transactionTemplate(),
+      Duration.ofMillis(2),
+      10,
+      new CustomizableThreadFactory("book-group-commit-test-")
+    );
+    var submitters = Executors.newFixedThreadPool(4);
+    try {
+      var submissions = new ArrayList<Future<?>>();
+      for (int i = 0; i < 200; i++) {
+        submissions.add(submitters.submit(() -> {
+          try {
+            service.addChapter(addChapterToMissingBook());
+          } catch (IllegalStateException e) {
+            // The book doesn't exist or group commit is stopped, either way the command is answered
+          }
+        }));
+      }
+      service.close();
+
+      for (var submission : submissions) {
+        submission.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      submitters.shutdownNow();
+    }
+  }
+
+  @Test
+  void commandsAreRejectedOnceTheCommitterIsInterrupted() throws Exception {
+    var committer = new AtomicReference<Thread>();
+    var service = new GroupCommitBooksService(
+      null,
+      booksRepository,
+      transactionTemplate(),
+      Duration.ofMillis(2),
+      10,
+      runnable -> {
+        committer.set(new Thread(runnable, "book-group-commit-test"));
+        return committer.get();
+      }
+    );
+
+    committer.get().interrupt();
+    committer.get().join(TimeUnit.MINUTES.toMillis(1));
+
+    var e = assertThrows(IllegalStateException.class, () -> service.addChapter(addChapterToMissingBook()));
+    assertEquals("Group commit is stopped", e.getMessage());
+  }
+
+  private static AddChapterCommand addChapterToMissingBook() {
+    return new AddChapterCommand(new BookId(UUID.randomUUID()), new ChapterTitle("chapter 1"), new ChapterContent("Content of chapter 1"));
+  }
+}
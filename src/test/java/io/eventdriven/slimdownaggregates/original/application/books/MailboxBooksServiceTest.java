@@ -0,0 +1,119 @@
+package io.eventdriven.slimdownaggregates.original.application.books;
+
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChapterCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CreateDraftCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailboxBooksServiceTest extends PersistenceTest {
+  @Autowired
+  private BooksRepository booksRepository;
+
+  @Autowired
+  private BooksService booksService;
+
+  @Test
+  void createDraftRunsInTransaction() {
+    var inTransaction = new AtomicBoolean();
+    var inner = (BooksService) Proxy.newProxyInstance(
+      BooksService.class.getClassLoader(),
+      new Class<?>[]{BooksService.class},
+      (proxy, method, args) -> {
+        inTransaction.set(TransactionSynchronizationManager.isActualTransactionActive());
+        return null;
+      }
+    );
+
+    var service = new MailboxBooksService(
+      inner,
+      booksRepository,
+      transactionTemplate(),
+      10,
+      2,
+      new CustomizableThreadFactory("book-mailbox-test-")
+    );
+    try {
+      service.createDraft(createDraftCommand());
+    } finally {
+      service.close();
+    }
+
+    assertTrue(inTransaction.get());
+  }
+
+  @Test
+  void commandsOfMoreBooksThanWorkersAreAllApplied() throws Exception {
+    var service = new MailboxBooksService(
+      booksService,
+      booksRepository,
+      transactionTemplate(),
+      10,
+      2,
+      new CustomizableThreadFactory("book-mailbox-test-")
+    );
+    var clients = Executors.newFixedThreadPool(5);
+    try {
+      var bookIds = new ArrayList<BookId>();
+      for (int i = 0; i < 5; i++) {
+        var command = createDraftCommand(createPublisher());
+        service.createDraft(command);
+        bookIds.add(command.bookId());
+      }
+
+      var results = new ArrayList<Future<?>>();
+      // One client per book, chapters of a book have to be added in order
+      for (var bookId : bookIds) {
+        results.add(clients.submit(() -> {
+          for (int number = 1; number <= 20; number++) {
+            var title = new ChapterTitle("chapter " + number);
+            service.addChapter(new AddChapterCommand(bookId, title, new ChapterContent("Content of " + title.value())));
+          }
+        }));
+      }
+      for (var result : results) {
+        result.get(1, TimeUnit.MINUTES);
+      }
+
+      for (var bookId : bookIds) {
+        assertEquals(20, booksRepository.findById(bookId).orElseThrow().getChapters().size());
+      }
+    } finally {
+      clients.shutdownNow();
+      service.close();
+    }
+  }
+
+  private static CreateDraftCommand createDraftCommand() {
+    return createDraftCommand(UUID.randomUUID());
+  }
+
+  private static CreateDraftCommand createDraftCommand(UUID publisherId) {
+    var bookId = new BookId(UUID.randomUUID());
+    return new CreateDraftCommand(
+      bookId,
+      new Title("Book " + bookId.value()),
+      new AuthorIdOrData(null, new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      new PublisherId(publisherId),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    );
+  }
+}
@@ -0,0 +1,39 @@
+package io.eventdriven.slimdownaggregates.original.domain.books;
+
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookTest {
+  @Test
+  void renamedChapterKeepsTitlesUniqueAndInSequence() {
+    var book = Book.createDraft(
+      new BookId(UUID.randomUUID()),
+      new Title("Book"),
+      new Author(new AuthorId(UUID.randomUUID()), new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      genre -> false,
+      new Publisher(new PublisherId(UUID.randomUUID()), new PublisherName("Publisher")),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    );
+    book.addChapter(new ChapterTitle("chapter 1"), new ChapterContent("Content of chapter 1"));
+    book.addChapter(new ChapterTitle("chapter 2"), new ChapterContent("Content of chapter 2"));
+
+    assertThrows(IllegalStateException.class, () -> book.changeChapterTitle(new ChapterNumber(1), new ChapterTitle("chapter 2")));
+
+    // The last chapter is out of sequence once renamed
+    book.changeChapterTitle(new ChapterNumber(2), new ChapterTitle("Epilogue"));
+    assertThrows(IllegalStateException.class, () -> book.addChapter(new ChapterTitle("chapter 3"), new ChapterContent("Content of chapter 3")));
+
+    book.changeChapterTitle(new ChapterNumber(2), new ChapterTitle("chapter 2"));
+    book.addChapter(new ChapterTitle("chapter 3"), new ChapterContent("Content of chapter 3"));
+
+    assertEquals(new ChapterTitle("chapter 2"), book.getChapters().get(1).title());
+    assertEquals(3, book.getChapters().size());
+  }
+}
@@ -0,0 +1,59 @@
+package io.eventdriven.slimdownaggregates.original.domain.books.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChapterContentTest {
+  @Test
+  void lazyContentIsComparedWithoutLoading() {
+    var loads = new AtomicInteger();
+    var eager = new ChapterContent("Once upon a time");
+    var lazy = ChapterContent.lazy(eager.hash(), () -> {
+      loads.incrementAndGet();
+      return "Once upon a time";
+    });
+
+    assertEquals(eager, lazy);
+    assertEquals(eager.hashCode(), lazy.hashCode());
+    assertNotEquals(new ChapterContent("The end"), lazy);
+    assertEquals(0, loads.get());
+    assertFalse(lazy.isLoaded());
+  }
+
+  @Test
+  void lazyContentIsLoadedOnceByConcurrentReaders() throws Exception {
+    var loads = new AtomicInteger();
+    var start = new CountDownLatch(1);
+    var content = ChapterContent.lazy(new ChapterContent("Once upon a time").hash(), () -> {
+      loads.incrementAndGet();
+      return "Once upon a time";
+    });
+
+    var executor = Executors.newFixedThreadPool(8);
+    try {
+      var reads = new ArrayList<Future<String>>();
+      for (int i = 0; i < 8; i++) {
+        reads.add(executor.submit(() -> {
+          start.await();
+          return content.value();
+        }));
+      }
+      start.countDown();
+
+      for (var read : reads) {
+        assertEquals("Once upon a time", read.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, loads.get());
+  }
+}
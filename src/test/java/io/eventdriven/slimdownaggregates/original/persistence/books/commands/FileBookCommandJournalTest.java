@@ -0,0 +1,69 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.commands;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.application.books.BookCommandJournal.PendingCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CommandStatus;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.MoveToEditingCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.BookId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileBookCommandJournalTest {
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void concurrentAppendsAndOutcomesAreReadBackAfterReopening() throws Exception {
+    // Few retained outcomes so the journal is compacted while commands are appended
+    var journal = new FileBookCommandJournal(directory, objectMapper, 10);
+    var completed = new ConcurrentLinkedQueue<UUID>();
+    var appended = new ConcurrentLinkedQueue<UUID>();
+
+    var threads = Executors.newFixedThreadPool(16);
+    try {
+      var results = new ArrayList<Future<?>>();
+      for (int thread = 0; thread < 16; thread++) {
+        results.add(threads.submit(() -> {
+          for (int i = 0; i < 50; i++) {
+            var commandId = UUID.randomUUID();
+            journal.append(commandId, new MoveToEditingCommand(new BookId(UUID.randomUUID())));
+            appended.add(commandId);
+
+            if (i % 2 == 0) {
+              journal.complete(List.of(CommandStatus.succeeded(commandId)));
+              completed.add(commandId);
+            }
+          }
+        }));
+      }
+      for (var result : results) {
+        result.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      threads.shutdownNow();
+    }
+
+    var expectedPending = new HashSet<>(appended);
+    completed.forEach(expectedPending::remove);
+
+    var reopened = new FileBookCommandJournal(directory, objectMapper, 10);
+    var pending = reopened.pending().stream().map(PendingCommand::commandId).toList();
+
+    assertEquals(expectedPending.size(), pending.size());
+    assertEquals(expectedPending, new HashSet<>(pending));
+  }
+}
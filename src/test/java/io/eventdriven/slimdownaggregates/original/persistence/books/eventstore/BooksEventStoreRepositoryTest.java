@@ -0,0 +1,121 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.eventstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.BookDraftCreatedEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.ChapterAddedEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.factories.BookFactory;
+import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.FileEventStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.eventstore.FileSnapshotStore;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageCodec;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageRepository;
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BooksEventStoreRepositoryTest extends PersistenceTest {
+  @TempDir
+  Path directory;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private BookFactory bookFactory;
+
+  @Autowired
+  private PublishingHouse publishingHouse;
+
+  @Autowired
+  private OutboxMessageRepository outboxMessageRepository;
+
+  @Autowired
+  private OutboxMessageCodec outboxMessageCodec;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private BooksEventStoreRepository repository;
+
+  @BeforeEach
+  void createRepository() {
+    repository = new BooksEventStoreRepository(
+      new FileEventStore(directory, objectMapper),
+      new BookEventSerializer(objectMapper),
+      publishingHouse,
+      new FileSnapshotStore(directory.resolve("snapshots"), objectMapper),
+      new BookSnapshotSerializer(objectMapper, bookFactory, publishingHouse),
+      50,
+      outboxMessageRepository,
+      outboxMessageCodec,
+      transactionManager
+    );
+  }
+
+  @Test
+  void appendedEventsAreWrittenToTheOutbox() {
+    var bookId = createDraft();
+
+    var book = repository.findById(bookId).orElseThrow();
+    book.addChapter(new ChapterTitle("chapter 1"), new ChapterContent("Content of chapter 1"));
+    repository.update(book);
+
+    assertEquals(
+      List.of(outboxMessageCodec.registry().idOf(BookDraftCreatedEvent.class), outboxMessageCodec.registry().idOf(ChapterAddedEvent.class)),
+      messageTypes(bookId)
+    );
+  }
+
+  @Test
+  void appendRejectedByTheStreamWritesNoMessages() {
+    var bookId = createDraft();
+    var book = repository.findById(bookId).orElseThrow();
+    var concurrent = repository.findById(bookId).orElseThrow();
+
+    book.addChapter(new ChapterTitle("chapter 1"), new ChapterContent("Content of chapter 1"));
+    repository.update(book);
+
+    concurrent.addChapter(new ChapterTitle("chapter 1"), new ChapterContent("Other content of chapter 1"));
+    assertThrows(OptimisticLockingFailureException.class, () -> repository.update(concurrent));
+
+    assertEquals(2, messageTypes(bookId).size());
+  }
+
+  private BookId createDraft() {
+    var bookId = new BookId(UUID.randomUUID());
+
+    repository.add(Book.createDraft(
+      bookId,
+      new Title("Book " + bookId.value()),
+      new Author(new AuthorId(UUID.randomUUID()), new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      publishingHouse,
+      new Publisher(new PublisherId(createPublisher()), new PublisherName("Publisher")),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    ));
+
+    return bookId;
+  }
+
+  private List<Short> messageTypes(BookId bookId) {
+    return jdbcTemplate.queryForList(
+      "SELECT message_type_id FROM outboxmessages WHERE aggregate_id = ? ORDER BY position",
+      Short.class,
+      bookId.value().toString()
+    );
+  }
+}
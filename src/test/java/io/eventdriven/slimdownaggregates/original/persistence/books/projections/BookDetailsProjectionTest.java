@@ -0,0 +1,216 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.projections;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eventdriven.slimdownaggregates.original.application.books.BooksService;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChapterCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CreateDraftCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
+import io.eventdriven.slimdownaggregates.original.domain.books.dtos.BookDetails;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.ISBNSetEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksQueryRepository;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.*;
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookDetailsProjectionTest extends PersistenceTest {
+  private static final int BATCH_SIZE = 100;
+
+  @Autowired
+  private BooksService booksService;
+
+  @Autowired
+  private BooksQueryRepository booksQueryRepository;
+
+  @Autowired
+  private OutboxMessageRepository outboxMessageRepository;
+
+  @Autowired
+  private OutboxDeadLetterRepository outboxDeadLetterRepository;
+
+  @Autowired
+  private OutboxMessageCodec outboxMessageCodec;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private BookDetailsJpaRepository bookDetailsJpaRepository;
+
+  @Autowired
+  private BookDetailsDeadLetterRepository bookDetailsDeadLetterRepository;
+
+  @Autowired
+  private BooksRepository booksRepository;
+
+  @Autowired
+  private BookDetailsProjection bookDetailsProjection;
+
+  @Test
+  void failingMessageIsDeadLetteredAndDeliveredWithTheRestOfTheBatch() {
+    var broken = outboxMessageRepository.save(new OutboxMessageEntity(
+      UUID.randomUUID(),
+      UUID.randomUUID().toString(),
+      outboxMessageCodec.registry().idOf(ISBNSetEvent.class),
+      // CBOR break byte without anything to end, can't be decoded
+      new byte[]{(byte) 0xff},
+      OffsetDateTime.now()
+    ));
+    var bookId = createDraft();
+    booksService.addChapter(new AddChapterCommand(bookId, new ChapterTitle("chapter 1"), new ChapterContent("Content of chapter 1")));
+
+    relayAll();
+
+    assertNotNull(outboxMessageRepository.findById(broken.getPosition()).orElseThrow().getDelivered());
+    assertTrue(bookDetailsDeadLetterRepository.findById(broken.getPosition()).isPresent());
+    var details = booksQueryRepository.findDetailsById(bookId).orElseThrow();
+    assertArrayEquals(new BookDetails.ChapterDetails[]{new BookDetails.ChapterDetails(1, "chapter 1")}, details.chapters());
+  }
+
+  @Test
+  void transientFailureIsRetried() {
+    var bookId = createDraft();
+    booksService.addChapter(new AddChapterCommand(bookId, new ChapterTitle("chapter 1"), new ChapterContent("Content of chapter 1")));
+
+    // Applying the chapter times out once
+    var published = new AtomicInteger();
+    var projection = projection(event -> {
+      if (published.incrementAndGet() == 2)
+        throw new QueryTimeoutException("Statement timed out");
+    });
+    applyAll(projection, bookId);
+
+    var details = booksQueryRepository.findDetailsById(bookId).orElseThrow();
+    assertArrayEquals(new BookDetails.ChapterDetails[]{new BookDetails.ChapterDetails(1, "chapter 1")}, details.chapters());
+    assertEquals(3, published.get());
+    assertTrue(bookDetailsDeadLetterRepository.findByBookId(bookId.value()).isEmpty());
+  }
+
+  @Test
+  void replayingDeadLettersRebuildsTheirDocuments() {
+    var bookId = createDraft();
+    booksService.addChapter(new AddChapterCommand(bookId, new ChapterTitle("chapter 1"), new ChapterContent("Content of chapter 1")));
+    booksService.addChapter(new AddChapterCommand(bookId, new ChapterTitle("chapter 2"), new ChapterContent("Content of chapter 2")));
+
+    // The first chapter fails for good, the second one is applied after it
+    var published = new AtomicInteger();
+    var projection = projection(event -> {
+      if (published.incrementAndGet() == 2)
+        throw new IllegalStateException("Bug in a listener");
+    });
+    applyAll(projection, bookId);
+
+    assertEquals(1, bookDetailsDeadLetterRepository.findByBookId(bookId.value()).size());
+    assertArrayEquals(
+      new BookDetails.ChapterDetails[]{new BookDetails.ChapterDetails(2, "chapter 2")},
+      booksQueryRepository.findDetailsById(bookId).orElseThrow().chapters()
+    );
+
+    assertTrue(bookDetailsProjection.replayDeadLetters() >= 1);
+
+    assertArrayEquals(
+      new BookDetails.ChapterDetails[]{new BookDetails.ChapterDetails(1, "chapter 1"), new BookDetails.ChapterDetails(2, "chapter 2")},
+      booksQueryRepository.findDetailsById(bookId).orElseThrow().chapters()
+    );
+    assertTrue(bookDetailsDeadLetterRepository.findByBookId(bookId.value()).isEmpty());
+  }
+
+  @Test
+  void rebuiltDocumentMatchesTheAppliedOne() {
+    var bookId = createDraft();
+    booksService.addChapter(new AddChapterCommand(bookId, new ChapterTitle("chapter 1"), new ChapterContent("Content of chapter 1")));
+    relayAll();
+    var applied = booksQueryRepository.findDetailsById(bookId).orElseThrow();
+    var lastPosition = bookDetailsJpaRepository.findById(bookId.value()).orElseThrow().getLastPosition();
+
+    bookDetailsJpaRepository.deleteById(bookId.value());
+    assertTrue(bookDetailsProjection.rebuild(bookId));
+
+    var rebuilt = booksQueryRepository.findDetailsById(bookId).orElseThrow();
+    assertEquals(applied.title(), rebuilt.title());
+    assertEquals(applied.currentState(), rebuilt.currentState());
+    assertEquals(applied.author(), rebuilt.author());
+    assertEquals(applied.publisherName(), rebuilt.publisherName());
+    assertEquals(applied.genre(), rebuilt.genre());
+    assertArrayEquals(applied.chapters(), rebuilt.chapters());
+    // Messages already part of the rebuilt document are skipped when delivered again
+    assertEquals(lastPosition, bookDetailsJpaRepository.findById(bookId.value()).orElseThrow().getLastPosition());
+
+    assertFalse(bookDetailsProjection.rebuild(new BookId(UUID.randomUUID())));
+  }
+
+  private BookDetailsProjection projection(ApplicationEventPublisher eventPublisher) {
+    return new BookDetailsProjection(
+      bookDetailsJpaRepository,
+      bookDetailsDeadLetterRepository,
+      booksRepository,
+      outboxMessageRepository,
+      outboxMessageCodec,
+      objectMapper,
+      eventPublisher,
+      transactionManager,
+      3,
+      new SimpleMeterRegistry()
+    );
+  }
+
+  // The book's messages in outbox order, as the relay delivers them
+  private void applyAll(BookDetailsProjection projection, BookId bookId) {
+    outboxMessageRepository.findAll(Sort.by("position")).stream()
+      .filter(message -> bookId.value().toString().equals(message.getAggregateId()))
+      .forEach(projection::handle);
+  }
+
+  // Single partition relay, delivering everything written so far
+  private void relayAll() {
+    var relay = new OutboxRelay(
+      outboxMessageRepository,
+      outboxDeadLetterRepository,
+      new ApplicationEventsOutboxMessageSink(eventPublisher),
+      transactionTemplate(),
+      BATCH_SIZE,
+      3,
+      false,
+      1,
+      Duration.ofSeconds(1),
+      Executors.defaultThreadFactory(),
+      new SimpleMeterRegistry()
+    );
+
+    while (relay.relayBatch(0) == BATCH_SIZE) {
+    }
+  }
+
+  private BookId createDraft() {
+    var bookId = new BookId(UUID.randomUUID());
+
+    booksService.createDraft(new CreateDraftCommand(
+      bookId,
+      new Title("Book " + bookId.value()),
+      new AuthorIdOrData(null, new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      new PublisherId(createPublisher()),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    ));
+
+    return bookId;
+  }
+}
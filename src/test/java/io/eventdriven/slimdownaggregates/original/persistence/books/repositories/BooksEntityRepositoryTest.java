@@ -0,0 +1,252 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.repositories;
+
+import io.eventdriven.slimdownaggregates.original.application.books.BooksService;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChapterCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChaptersCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddTranslationCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CreateDraftCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.MoveToEditingCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.Book;
+import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
+import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorProvider;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.publishers.PublisherProvider;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.BooksRepository;
+import io.eventdriven.slimdownaggregates.original.domain.books.services.PublishingHouse;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.persistence.authors.AuthorEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.books.BookEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.books.entities.ChapterEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.languages.LanguageEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.publishers.PublisherEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.translators.TranslatorEntity;
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BooksEntityRepositoryTest extends PersistenceTest {
+  // Every collection has its own query, whatever its size
+  private static final int BOOK_LOAD_STATEMENTS = 5;
+
+  @Autowired
+  private BooksService booksService;
+
+  @Autowired
+  private BooksRepository booksRepository;
+
+  @Autowired
+  private AuthorProvider authorProvider;
+
+  @Autowired
+  private PublisherProvider publisherProvider;
+
+  @Autowired
+  private PublishingHouse publishingHouse;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Test
+  void addingChapterInsertsOnlyThatChapter() {
+    var bookId = createBook(10);
+
+    var statistics = statistics();
+    addChapter(bookId, 11);
+
+    var chapters = statistics.getEntityStatistics(ChapterEntity.class.getName());
+    assertEquals(1, chapters.getInsertCount());
+    assertEquals(0, chapters.getUpdateCount());
+    assertEquals(0, chapters.getDeleteCount());
+    assertEquals(0, statistics.getCollectionRecreateCount());
+    assertEquals(0, statistics.getCollectionRemoveCount());
+  }
+
+  @Test
+  void addingChapterRunsTheSameStatementsWhateverTheChaptersCount() {
+    var smallBookId = createBook(2);
+    var largeBookId = createBook(40);
+
+    var statistics = statistics();
+    addChapter(smallBookId, 3);
+    var smallBookStatements = statistics.getPrepareStatementCount();
+
+    statistics = statistics();
+    addChapter(largeBookId, 41);
+    var largeBookStatements = statistics.getPrepareStatementCount();
+
+    assertEquals(smallBookStatements, largeBookStatements);
+  }
+
+  @Test
+  void loadingBookRunsTheSameQueriesWhateverTheCollectionSizes() {
+    var smallBookId = createBook(1);
+    var largeBookId = createBook(40);
+    addTranslations(smallBookId, 1);
+    addTranslations(largeBookId, 5);
+
+    var statistics = statistics();
+    var small = booksRepository.findById(smallBookId).orElseThrow();
+    assertEquals(BOOK_LOAD_STATEMENTS, statistics.getPrepareStatementCount());
+
+    statistics = statistics();
+    var large = booksRepository.findById(largeBookId).orElseThrow();
+    assertEquals(BOOK_LOAD_STATEMENTS, statistics.getPrepareStatementCount());
+
+    assertEquals(1, small.getTranslations().size());
+    assertEquals(40, large.getChapters().size());
+    assertEquals(5, large.getTranslations().size());
+  }
+
+  @Test
+  void addingBookDoesNotSelectAuthorOrPublisher() {
+    // Resolved by the providers before the book is built, as createDraft does
+    var author = authorProvider.getOrCreate(new AuthorIdOrData(null, new AuthorFirstName("Anna"), new AuthorLastName("Writer")));
+    var publisher = publisherProvider.getById(new PublisherId(createPublisher()));
+    var book = Book.createDraft(
+      new BookId(UUID.randomUUID()),
+      new Title("Book"),
+      author,
+      publishingHouse,
+      publisher,
+      new PositiveInt(1),
+      new Genre("Fiction")
+    );
+
+    var statistics = statistics();
+    transactionTemplate().executeWithoutResult(status -> booksRepository.add(book));
+
+    assertEquals(1, statistics.getEntityStatistics(BookEntity.class.getName()).getInsertCount());
+    assertNoAuthorOrPublisherSelected(statistics);
+  }
+
+  @Test
+  void updatingBookDoesNotSelectAuthorOrPublisher() {
+    var bookId = createBook(2);
+
+    var statistics = statistics();
+    transactionTemplate().executeWithoutResult(status -> {
+      var book = booksRepository.findById(bookId).orElseThrow();
+      // Only the save is measured, loading the book fetches its author and publisher with it
+      statistics.clear();
+
+      book.addChapter(chapterTitle(3), chapterContent(3));
+      booksRepository.update(book);
+      entityManager.flush();
+    });
+
+    assertEquals(1, statistics.getEntityStatistics(ChapterEntity.class.getName()).getInsertCount());
+    assertNoAuthorOrPublisherSelected(statistics);
+  }
+
+  @Test
+  void changingChapterContentDeletesThePreviousContentOnCommit() {
+    var bookId = createBook(3);
+    var previousContentId = contentId(bookId, 2);
+
+    var statistics = statistics();
+    transactionTemplate().executeWithoutResult(status -> {
+      var book = booksRepository.findById(bookId).orElseThrow();
+      book.getChapters().get(1).changeContent(new ChapterContent("Rewritten chapter 2"));
+      booksRepository.update(book);
+    });
+
+    var chapters = statistics.getEntityStatistics(ChapterEntity.class.getName());
+    assertEquals(1, chapters.getUpdateCount());
+    assertEquals(0, statistics.getEntityStatistics(BookEntity.class.getName()).getUpdateCount());
+    assertEquals(0, countContentChunks(previousContentId));
+    assertEquals(
+      "Rewritten chapter 2",
+      transactionTemplate().execute(status -> booksRepository.findById(bookId).orElseThrow().getChapters().get(1).content().value())
+    );
+  }
+
+  private static void assertNoAuthorOrPublisherSelected(Statistics statistics) {
+    for (var type : List.of(AuthorEntity.class, PublisherEntity.class)) {
+      var entity = statistics.getEntityStatistics(type.getName());
+      assertEquals(0, entity.getLoadCount(), type.getSimpleName() + " loads");
+      assertEquals(0, entity.getFetchCount(), type.getSimpleName() + " fetches");
+    }
+  }
+
+  private long countContentChunks(UUID contentId) {
+    return transactionTemplate().execute(status ->
+      entityManager.createQuery("select count(c) from ContentChunkEntity c where c.contentId = :id", Long.class)
+        .setParameter("id", contentId)
+        .getSingleResult()
+    );
+  }
+
+  private UUID contentId(BookId bookId, int number) {
+    return transactionTemplate().execute(status ->
+      entityManager.createQuery("select c.contentId from ChapterEntity c where c.bookId = :bookId and c.number = :number", UUID.class)
+        .setParameter("bookId", bookId.value())
+        .setParameter("number", number)
+        .getSingleResult()
+    );
+  }
+
+  private BookId createBook(int chaptersCount) {
+    var bookId = new BookId(UUID.randomUUID());
+
+    booksService.createDraft(new CreateDraftCommand(
+      bookId,
+      new Title("Book " + bookId.value()),
+      new AuthorIdOrData(null, new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      new PublisherId(createPublisher()),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    ));
+
+    if (chaptersCount > 0) {
+      booksService.addChapters(new AddChaptersCommand(
+        bookId,
+        IntStream.rangeClosed(1, chaptersCount)
+          .mapToObj(number -> new AddChaptersCommand.ChapterToAdd(chapterTitle(number), chapterContent(number)))
+          .toList()
+      ));
+    }
+
+    return bookId;
+  }
+
+  private void addTranslations(BookId bookId, int count) {
+    booksService.moveToEditing(new MoveToEditingCommand(bookId));
+
+    for (int i = 1; i <= count; i++) {
+      var language = new LanguageEntity();
+      language.setName("Language " + i);
+      var translator = new TranslatorEntity();
+      translator.setName("Translator " + i);
+      transactionTemplate().executeWithoutResult(status -> {
+        entityManager.persist(language);
+        entityManager.persist(translator);
+      });
+
+      booksService.addTranslation(new AddTranslationCommand(bookId, new Translation(
+        new Language(new LanguageId(language.getId()), new LanguageName(language.getName())),
+        new Translator(new TranslatorId(translator.getId()), new TranslatorName(translator.getName()))
+      )));
+    }
+  }
+
+  private void addChapter(BookId bookId, int number) {
+    booksService.addChapter(new AddChapterCommand(bookId, chapterTitle(number), chapterContent(number)));
+  }
+
+  private static ChapterTitle chapterTitle(int number) {
+    return new ChapterTitle("chapter " + number);
+  }
+
+  private static ChapterContent chapterContent(int number) {
+    return new ChapterContent("Content of chapter " + number);
+  }
+}
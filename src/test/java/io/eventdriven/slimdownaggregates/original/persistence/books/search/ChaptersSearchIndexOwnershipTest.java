@@ -0,0 +1,107 @@
+package io.eventdriven.slimdownaggregates.original.persistence.books.search;
+
+import io.eventdriven.slimdownaggregates.original.application.books.BooksService;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.AddChapterCommand;
+import io.eventdriven.slimdownaggregates.original.application.books.commands.CreateDraftCommand;
+import io.eventdriven.slimdownaggregates.original.domain.books.authors.AuthorIdOrData;
+import io.eventdriven.slimdownaggregates.original.domain.books.entities.*;
+import io.eventdriven.slimdownaggregates.original.domain.books.events.ChapterAddedEvent;
+import io.eventdriven.slimdownaggregates.original.domain.books.repositories.ChaptersSearchRepository;
+import io.eventdriven.slimdownaggregates.original.infrastructure.valueobjects.PositiveInt;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageCodec;
+import io.eventdriven.slimdownaggregates.original.persistence.core.outbox.OutboxMessageEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.core.search.SearchIndex;
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChaptersSearchIndexOwnershipTest extends PersistenceTest {
+  @Autowired
+  private BooksService booksService;
+
+  @Autowired
+  private ChaptersSearchRepository chaptersSearchRepository;
+
+  @Autowired
+  private ChaptersSearchIndexRebuild rebuild;
+
+  @Autowired
+  private SearchIndex chaptersSearchIndex;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private OutboxMessageCodec outboxMessageCodec;
+
+  @Test
+  void secondNodeStartsWithoutServingTheIndex() {
+    var secondNode = new ChaptersSearchIndexOwnership(dataSource, chaptersSearchIndex, rebuild, false);
+
+    secondNode.start();
+    try {
+      assertTrue(secondNode.isRunning());
+      assertFalse(secondNode.isOwner());
+      assertTrue(new ChaptersSearchIndexRepository(chaptersSearchIndex, secondNode).search("chapter", 10).isEmpty());
+    } finally {
+      secondNode.stop();
+    }
+  }
+
+  @Test
+  void secondNodeDoesNotIndexChapters() {
+    var secondNode = new ChaptersSearchIndexOwnership(dataSource, chaptersSearchIndex, rebuild, false);
+    var projection = new ChaptersSearchProjection(chaptersSearchIndex, secondNode, outboxMessageCodec);
+    var bookId = UUID.randomUUID();
+
+    secondNode.start();
+    try {
+      projection.handle(
+        OutboxMessageEntity.from(
+          bookId.toString(),
+          List.of(new ChapterAddedEvent(new BookId(bookId), new Chapter(new ChapterNumber(1), new ChapterTitle("Kilimanjaro"), new ChapterContent("Snow")))),
+          outboxMessageCodec
+        ).get(0)
+      );
+    } finally {
+      secondNode.stop();
+    }
+
+    assertEquals(List.of(), chaptersSearchRepository.search("kilimanjaro", 10).orElseThrow());
+  }
+
+  @Test
+  void rebuildIndexesStoredChapters() {
+    var bookId = createDraft();
+    // Relay is off in tests, the chapter only reaches the index through the rebuild
+    booksService.addChapter(new AddChapterCommand(bookId, new ChapterTitle("Zanzibar"), new ChapterContent("Spice islands")));
+
+    rebuild.rebuild();
+
+    var hits = chaptersSearchRepository.search("zanzibar", 10).orElseThrow();
+    assertEquals(1, hits.size());
+    assertEquals(bookId.value(), hits.get(0).bookId());
+    assertEquals(1, hits.get(0).chapterNumber());
+  }
+
+  private BookId createDraft() {
+    var bookId = new BookId(UUID.randomUUID());
+
+    booksService.createDraft(new CreateDraftCommand(
+      bookId,
+      new Title("Book " + bookId.value()),
+      new AuthorIdOrData(null, new AuthorFirstName("Anna"), new AuthorLastName("Writer")),
+      new PublisherId(createPublisher()),
+      new PositiveInt(1),
+      new Genre("Fiction")
+    ));
+
+    return bookId;
+  }
+}
@@ -0,0 +1,101 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.eventstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileEventStoreTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void lineTornByCrashIsIgnoredAndOverwrittenByNextAppend() throws IOException {
+    var eventStore = new FileEventStore(directory, new ObjectMapper());
+    eventStore.appendToStream("book-1", EventStore.NO_STREAM, List.of(event("first"), event("second")));
+
+    // Crash in the middle of appending the third event
+    Files.writeString(
+      directory.resolve("book-1.ndjson"),
+      "{\"streamId\":\"book-1\",\"streamPosition\":3,\"eventT",
+      StandardCharsets.UTF_8,
+      StandardOpenOption.APPEND
+    );
+
+    var restarted = new FileEventStore(directory, new ObjectMapper());
+    assertEquals(2, restarted.readStream("book-1").size());
+
+    assertEquals(3, restarted.appendToStream("book-1", 2, List.of(event("third"))));
+    var events = restarted.readStream("book-1");
+    assertEquals(List.of(1L, 2L, 3L), events.stream().map(RecordedEvent::streamPosition).toList());
+    assertEquals("third", events.get(2).eventType());
+  }
+
+  @Test
+  void appendFailingHalfwayLeavesNoneOfItsEvents() throws IOException {
+    var failing = new AtomicBoolean();
+    var eventStore = new FileEventStore(directory, new ObjectMapper()) {
+      @Override
+      void append(FileChannel channel, ByteBuffer content) throws IOException {
+        if (failing.get()) {
+          // The first event and half of the second make it to the file
+          channel.write(content.slice(0, content.remaining() * 3 / 4));
+          throw new IOException("No space left on device");
+        }
+        super.append(channel, content);
+      }
+    };
+    eventStore.appendToStream("book-1", EventStore.NO_STREAM, List.of(event("first")));
+    var size = Files.size(directory.resolve("book-1.ndjson"));
+
+    failing.set(true);
+    assertThrows(UncheckedIOException.class, () -> eventStore.appendToStream("book-1", 1, List.of(event("second"), event("third"))));
+    failing.set(false);
+
+    assertEquals(size, Files.size(directory.resolve("book-1.ndjson")));
+    assertEquals(2, eventStore.appendToStream("book-1", 1, List.of(event("second"))));
+    assertEquals(List.of("first", "second"), eventStore.readStream("book-1").stream().map(RecordedEvent::eventType).toList());
+  }
+
+  @Test
+  void readingAfterVersionSeeksPastOlderEvents() throws IOException {
+    var eventStore = new FileEventStore(directory, new ObjectMapper());
+    eventStore.appendToStream("book-1", EventStore.NO_STREAM, List.of(event("\u00a7 1"), event("\u00a7 2")));
+    eventStore.appendToStream("book-1", 2, List.of(event("\u00a7 3"), event("\u00a7 4")));
+
+    assertEquals(List.of("\u00a7 3", "\u00a7 4"), eventTypes(eventStore.readStream("book-1", 2)));
+    assertEquals(List.of(), eventStore.readStream("book-1", 4));
+
+    // Older events aren't parsed, overwriting the first one in place doesn't break reading after it
+    var path = directory.resolve("book-1.ndjson");
+    var content = Files.readString(path);
+    var firstLineLength = content.indexOf('\n');
+    Files.writeString(path, "x".repeat(firstLineLength) + content.substring(firstLineLength));
+
+    var restarted = new FileEventStore(directory, new ObjectMapper());
+    assertEquals(List.of("\u00a7 2", "\u00a7 3", "\u00a7 4"), eventTypes(restarted.readStream("book-1", 1)));
+    assertEquals(5, restarted.appendToStream("book-1", 4, List.of(event("\u00a7 5"))));
+    assertEquals(List.of("\u00a7 4", "\u00a7 5"), eventTypes(restarted.readStream("book-1", 3)));
+  }
+
+  private static List<String> eventTypes(List<RecordedEvent> events) {
+    return events.stream().map(RecordedEvent::eventType).toList();
+  }
+
+  private static EventData event(String eventType) {
+    return new EventData(eventType, "{}");
+  }
+}
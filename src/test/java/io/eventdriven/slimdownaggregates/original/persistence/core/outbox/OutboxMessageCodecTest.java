@@ -0,0 +1,56 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxMessageCodecTest {
+  private final OutboxMessageCodec codec = new OutboxMessageCodec(
+    new OutboxMessageTypeRegistry().register(1, TitleChanged.class, TitleChangedPayload.class),
+    event -> {
+      var changed = (TitleChanged) event;
+      return new TitleChangedPayload(changed.id, changed.title);
+    }
+  );
+
+  @Test
+  void messageIsDecodedToItsPayloadRecord() {
+    var id = UUID.randomUUID();
+
+    var decoded = codec.decode(message(codec.encode(new TitleChanged(id, "Title"))));
+
+    assertEquals(new TitleChangedPayload(id, "Title"), decoded);
+  }
+
+  @Test
+  void payloadMissingAFieldIsRejected() throws Exception {
+    var data = new CBORMapper().writeValueAsBytes(Map.of("id", UUID.randomUUID()));
+
+    var exception = assertThrows(RuntimeException.class, () -> codec.decode(message(data)));
+
+    assertTrue(exception.getCause().getMessage().contains("'title'"), exception.getCause().getMessage());
+  }
+
+  private static OutboxMessageEntity message(byte[] data) {
+    return new OutboxMessageEntity(UUID.randomUUID(), null, (short) 1, data, OffsetDateTime.now());
+  }
+
+  // Domain event with private fields and no getters, only its payload is stored
+  private static class TitleChanged {
+    private final UUID id;
+    private final String title;
+
+    TitleChanged(UUID id, String title) {
+      this.id = id;
+      this.title = title;
+    }
+  }
+
+  record TitleChangedPayload(UUID id, String title) {
+  }
+}
@@ -0,0 +1,48 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxMessageRepositoryTest extends PersistenceTest {
+  private static final int MESSAGES_COUNT = 20;
+
+  @Autowired
+  private OutboxMessageRepository outboxMessageRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  // Test messages have no registered type, relays of other tests mustn't pick them up
+  @AfterEach
+  void deliverTestMessages() {
+    jdbcTemplate.update("UPDATE outboxmessages SET delivered = now() WHERE delivered IS NULL AND message_type_id = 0");
+  }
+
+  @Test
+  void savingMessagesBatchesInserts() {
+    var aggregateId = UUID.randomUUID().toString();
+    var messages = IntStream.range(0, MESSAGES_COUNT)
+      .mapToObj(i -> new OutboxMessageEntity(UUID.randomUUID(), aggregateId, (short) 0, new byte[]{(byte) i}, OffsetDateTime.now()))
+      .toList();
+
+    var statistics = statistics();
+    transactionTemplate().executeWithoutResult(status -> outboxMessageRepository.saveAll(messages));
+    var prepareStatementCount = statistics.getPrepareStatementCount();
+
+    // Each row takes its position from the sequence, but all rows go in one batched insert,
+    // an identity column would need an insert per row
+    assertTrue(
+      prepareStatementCount <= MESSAGES_COUNT + 1,
+      "Expected at most " + (MESSAGES_COUNT + 1) + " statements, was " + prepareStatementCount
+    );
+  }
+}
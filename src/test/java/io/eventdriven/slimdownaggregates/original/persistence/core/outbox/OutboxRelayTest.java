@@ -0,0 +1,126 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxRelayTest extends PersistenceTest {
+  private static final int BATCH_SIZE = 10;
+  private static final int MAX_ATTEMPTS = 3;
+
+  @Autowired
+  private OutboxMessageRepository outboxMessageRepository;
+
+  @Autowired
+  private OutboxDeadLetterRepository outboxDeadLetterRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private final String aggregateId = UUID.randomUUID().toString();
+  private final List<Long> delivered = new ArrayList<>();
+
+  // Test messages have no registered type, relays of other tests mustn't pick them up
+  @AfterEach
+  void deliverTestMessages() {
+    jdbcTemplate.update("UPDATE outboxmessages SET delivered = now() WHERE delivered IS NULL AND message_type_id = 0");
+  }
+
+  @Test
+  void messageFailingEveryTimeIsDeadLetteredAndTheOthersAreRelayed() {
+    var messages = saveMessages(5);
+    var poison = messages.get(2).getPosition();
+    var relay = relay(poison, Integer.MAX_VALUE);
+
+    // Messages before the failing one are relayed, the ones after it wait until it's dead-lettered
+    for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+      relayAll(relay);
+      assertEquals(positions(messages.subList(0, 2)), delivered);
+      assertEquals(attempt, outboxMessageRepository.findById(poison).orElseThrow().getAttempts());
+    }
+
+    relayAll(relay);
+    relayAll(relay);
+
+    assertEquals(positions(List.of(messages.get(0), messages.get(1), messages.get(3), messages.get(4))), delivered);
+    assertNotNull(outboxMessageRepository.findById(poison).orElseThrow().getDelivered());
+    var deadLetter = outboxDeadLetterRepository.findById(poison).orElseThrow();
+    assertEquals(MAX_ATTEMPTS, deadLetter.getAttempts());
+    assertTrue(deadLetter.getError().contains("Cannot deliver"), deadLetter.getError());
+  }
+
+  @Test
+  void messageFailingOnItsOwnOnceIsRelayedOnTheNextPoll() {
+    var messages = saveMessages(3);
+    var failing = messages.get(1).getPosition();
+    // Fails in the batch and once more delivered on its own
+    var relay = relay(failing, 2);
+
+    relayAll(relay);
+    relayAll(relay);
+
+    assertEquals(positions(messages), delivered);
+    assertEquals(1, outboxMessageRepository.findById(failing).orElseThrow().getAttempts());
+    assertTrue(outboxDeadLetterRepository.findById(failing).isEmpty());
+  }
+
+  private List<OutboxMessageEntity> saveMessages(int count) {
+    return outboxMessageRepository.saveAll(
+      IntStream.range(0, count)
+        .mapToObj(i -> new OutboxMessageEntity(UUID.randomUUID(), aggregateId, (short) 0, new byte[]{(byte) i}, OffsetDateTime.now()))
+        .toList()
+    );
+  }
+
+  // Single partition relay whose sink fails the given number of times on batches holding the failing message
+  private OutboxRelay relay(long failingPosition, int failures) {
+    var failed = new int[1];
+
+    OutboxMessageSink sink = messages -> {
+      if (failed[0] < failures && messages.stream().anyMatch(message -> message.getPosition() == failingPosition)) {
+        failed[0]++;
+        throw new IllegalStateException("Cannot deliver " + failingPosition);
+      }
+
+      messages.stream()
+        .filter(message -> aggregateId.equals(message.getAggregateId()))
+        .forEach(message -> delivered.add(message.getPosition()));
+    };
+
+    return new OutboxRelay(
+      outboxMessageRepository,
+      outboxDeadLetterRepository,
+      sink,
+      transactionTemplate(),
+      BATCH_SIZE,
+      MAX_ATTEMPTS,
+      false,
+      1,
+      Duration.ofSeconds(1),
+      Executors.defaultThreadFactory(),
+      new SimpleMeterRegistry()
+    );
+  }
+
+  private static void relayAll(OutboxRelay relay) {
+    while (relay.relayBatch(0) == BATCH_SIZE) {
+    }
+  }
+
+  private static List<Long> positions(List<OutboxMessageEntity> messages) {
+    return messages.stream().map(OutboxMessageEntity::getPosition).toList();
+  }
+}
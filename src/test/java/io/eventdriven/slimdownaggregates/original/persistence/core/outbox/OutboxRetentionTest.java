@@ -0,0 +1,163 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.outbox;
+
+import io.eventdriven.slimdownaggregates.original.testing.PersistenceTest;
+import io.eventdriven.slimdownaggregates.original.testing.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxRetentionTest extends PersistenceTest {
+  private static final long PARTITION_SIZE = 1000;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private OutboxRetention retention;
+
+  @BeforeEach
+  void createRetention() {
+    retention = retention(PARTITION_SIZE);
+  }
+
+  // Test messages have no registered type, relays of other tests mustn't pick them up
+  @AfterEach
+  void deliverTestMessages() {
+    jdbcTemplate.update("UPDATE outboxmessages SET delivered = now() WHERE delivered IS NULL AND message_type_id = 0");
+  }
+
+  // The sequence was moved past the partitions the application created, other tests write after it
+  @AfterEach
+  void createPartitionsAhead() {
+    var application = retention(100_000);
+    application.start();
+    application.stop();
+  }
+
+  @Test
+  void deliveredPartitionIsDropped() {
+    var from = writtenRange();
+    createPartition(from);
+    insertMessage(from, true);
+    insertMessage(from + 1, true);
+
+    retention.run();
+
+    assertFalse(exists(partition(from)));
+  }
+
+  @Test
+  void partitionWithMessageCommittedDuringDetachIsAttachedBack() throws SQLException {
+    var from = writtenRange();
+    // Drops the partitions before it, so the one under test is the one detached
+    retention.run();
+    createPartition(from);
+    insertMessage(from, true);
+
+    try (var connection = TestDatabase.dataSource().getConnection()) {
+      connection.setAutoCommit(false);
+      try (var statement = connection.createStatement()) {
+        statement.execute(insertSql(from + 1, false));
+      }
+
+      // Detach waits for the insert and gives up, leaving it pending
+      retention.run();
+      connection.commit();
+    }
+    assertTrue(isDetachPending(partition(from)));
+
+    // Finishes the detach and finds the committed message
+    retention.run();
+
+    assertTrue(isAttached(partition(from)));
+    assertFalse(isDetachPending(partition(from)));
+    assertEquals(1, jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM outboxmessages WHERE position = ? AND delivered IS NULL", Long.class, from + 1));
+  }
+
+  @Test
+  void partitionsAreCreatedAheadOfTheCurrentPosition() {
+    var from = writtenRange();
+
+    retention.run();
+
+    // The written range needs none, from the current position's partition up to two partitions ahead
+    assertFalse(exists(partition(from)));
+    for (var partitionFrom = from + PARTITION_SIZE; partitionFrom < from + 4 * PARTITION_SIZE; partitionFrom += PARTITION_SIZE)
+      assertTrue(isAttached(partition(partitionFrom)), partition(partitionFrom));
+    assertFalse(exists(partition(from + 4 * PARTITION_SIZE)));
+
+    insertMessage(from + 3 * PARTITION_SIZE, false);
+    assertEquals(1, countUndelivered(partition(from + 3 * PARTITION_SIZE)));
+  }
+
+  // Range after the last partition, the sequence is moved to its end so retention sees it as written
+  private long writtenRange() {
+    var from = jdbcTemplate.queryForObject(
+      """
+        SELECT max(substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \\(''?(\\d+)''?\\)')::bigint) FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'outboxmessages'::regclass
+        """,
+      Long.class
+    );
+    jdbcTemplate.queryForObject("SELECT setval('outbox_position_seq', ?)", Long.class, from + PARTITION_SIZE);
+    return from;
+  }
+
+  private OutboxRetention retention(long partitionSize) {
+    return new OutboxRetention(jdbcTemplate, transactionTemplate(), partitionSize, 2, Duration.ofMinutes(1), false, new SimpleMeterRegistry());
+  }
+
+  private void createPartition(long from) {
+    jdbcTemplate.execute(
+      "CREATE TABLE " + partition(from) + " PARTITION OF outboxmessages FOR VALUES FROM (" + from + ") TO (" + (from + PARTITION_SIZE) + ")"
+    );
+  }
+
+  private void insertMessage(long position, boolean delivered) {
+    jdbcTemplate.execute(insertSql(position, delivered));
+  }
+
+  private static String insertSql(long position, boolean delivered) {
+    return """
+      INSERT INTO outboxmessages (position, message_id, message_type_id, data, scheduled, delivered)
+      VALUES (%d, gen_random_uuid(), 0, decode('00', 'hex'), now(), %s)
+      """.formatted(position, delivered ? "now()" : "NULL");
+  }
+
+  private boolean exists(String table) {
+    return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+  }
+
+  private boolean isAttached(String partition) {
+    return jdbcTemplate.queryForObject(
+      "SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = to_regclass(?) AND inhparent = 'outboxmessages'::regclass)",
+      Boolean.class,
+      partition
+    );
+  }
+
+  private boolean isDetachPending(String partition) {
+    return jdbcTemplate.queryForObject(
+      "SELECT coalesce((SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass(?)), false)",
+      Boolean.class,
+      partition
+    );
+  }
+
+  private long countUndelivered(String table) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE delivered IS NULL", Long.class);
+  }
+
+  private static String partition(long from) {
+    return "outboxmessages_p" + from;
+  }
+}
@@ -0,0 +1,165 @@
+package io.eventdriven.slimdownaggregates.original.persistence.core.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchIndexTest {
+  private static final double[] FIELD_WEIGHTS = {2.0, 1.0};
+  private static final int FLUSH_THRESHOLD = 100;
+
+  @TempDir
+  Path directory;
+
+  // Part of the length, a negative length and one past the end of the log
+  @ParameterizedTest
+  @ValueSource(strings = {"0000", "ffffffff00", "7fffffff00"})
+  void recordTornByCrashIsCutOffAndOverwrittenByNextIndex(String tail) throws IOException {
+    try (var index = open()) {
+      index.index(new SearchDocument("book/1", List.of("Dragons", "Fire and dragons")));
+      index.sync();
+    }
+    var log = directory.resolve("index.log");
+    var logSize = Files.size(log);
+    Files.write(log, HexFormat.of().parseHex(tail), StandardOpenOption.APPEND);
+
+    try (var index = open()) {
+      assertEquals(logSize, Files.size(log));
+      index.index(new SearchDocument("book/2", List.of("Knights", "Knights and dragons")));
+      index.sync();
+    }
+
+    try (var index = open()) {
+      assertEquals(List.of("book/2"), keys(index.search("knights", 10)));
+      assertEquals(2, index.search("dragons", 10).size());
+    }
+  }
+
+  @Test
+  void titleMatchScoresTwiceTheSameContentMatch() throws IOException {
+    try (var index = open()) {
+      index.index(new SearchDocument("book/1", List.of("Knights", "Dragons")));
+      index.index(new SearchDocument("book/2", List.of("Dragons", "Knights")));
+
+      var hits = index.search("dragons", 10);
+
+      assertEquals(List.of("book/2", "book/1"), keys(hits));
+      // One of two documents matches in each field, all fields are one term long
+      var idf = Math.log(2);
+      assertEquals(2 * idf, hits.get(0).score(), 1e-9);
+      assertEquals(idf, hits.get(1).score(), 1e-9);
+    }
+  }
+
+  @Test
+  void frequentTermsInShortFieldsRankFirst() throws IOException {
+    try (var index = open()) {
+      index.index(new SearchDocument("book/1", List.of("Tale", "Dragons and knights, castles, towers and a long road")));
+      index.index(new SearchDocument("book/2", List.of("Tale", "Dragons and dragons")));
+      index.index(new SearchDocument("book/3", List.of("Tale", "Dragons and knights")));
+      index.index(new SearchDocument("book/4", List.of("Tale", "Knights")));
+
+      assertEquals(List.of("book/2", "book/3", "book/1"), keys(index.search("dragons", 10)));
+      // The rarer term outweighs the dragons of the shorter field
+      assertEquals("book/1", keys(index.search("dragons castles", 10)).get(0));
+    }
+  }
+
+  @Test
+  void quotedPhraseHasToMatchInOrder() throws IOException {
+    try (var index = open()) {
+      index.index(new SearchDocument("book/1", List.of("Tale", "The red dragon sleeps")));
+      index.index(new SearchDocument("book/2", List.of("Tale", "The dragon sleeps in red")));
+      index.index(new SearchDocument("book/3", List.of("Red dragon", "It sleeps")));
+
+      assertEquals(List.of("book/1", "book/3"), keys(index.search("\"red dragon\"", 10)).stream().sorted().toList());
+      // Terms outside the quotes only add to the score of the documents matching the phrase
+      assertEquals(List.of("book/1", "book/3"), keys(index.search("\"red dragon\" sleeps", 10)).stream().sorted().toList());
+      assertEquals(List.of("book/1"), keys(index.search("\"red dragon\" \"dragon sleeps\"", 10)));
+      assertEquals(List.of(), index.search("\"dragon red\"", 10));
+    }
+  }
+
+  @Test
+  void documentIndexedAgainReplacesThePreviousVersion() throws IOException {
+    try (var index = open(2, 10)) {
+      index.index(new SearchDocument("book/1", List.of("Dragons", "Fire")));
+      index.index(new SearchDocument("book/2", List.of("Dragons", "Ice")));
+      // The first version is flushed to a segment already
+      index.index(new SearchDocument("book/1", List.of("Knights", "Fire")));
+
+      assertEquals(List.of("book/2"), keys(index.search("dragons", 10)));
+      assertEquals(List.of("book/1"), keys(index.search("knights", 10)));
+      assertEquals(2, index.search("fire ice", 10).size());
+    }
+  }
+
+  @Test
+  void reopenedIndexServesFlushedSegmentsAndTheLog() throws IOException {
+    try (var index = open(2, 10)) {
+      index.index(new SearchDocument("book/1", List.of("Dragons", "Fire")));
+      index.index(new SearchDocument("book/2", List.of("Dragons", "Ice")));
+      // Flushed, the new version is only in the log
+      index.index(new SearchDocument("book/1", List.of("Knights", "Fire")));
+      index.sync();
+    }
+
+    try (var index = open(2, 10)) {
+      assertEquals(1, segmentFiles().size());
+      assertEquals(List.of("book/2"), keys(index.search("dragons", 10)));
+      assertEquals(List.of("book/1"), keys(index.search("knights", 10)));
+    }
+  }
+
+  @Test
+  void reopenedIndexServesMergedSegment() throws IOException {
+    try (var index = open(2, 2)) {
+      for (int book = 1; book <= 4; book++) {
+        index.index(new SearchDocument("book/" + book, List.of("Dragons", "Chapter " + book)));
+      }
+      index.index(new SearchDocument("book/1", List.of("Knights", "Chapter 1")));
+      // Third flush, the segments are merged into one
+      index.index(new SearchDocument("book/5", List.of("Dragons", "Chapter 5")));
+    }
+
+    assertEquals(1, segmentFiles().size());
+    assertEquals(0, Files.size(directory.resolve("index.log")));
+
+    try (var index = open(2, 2)) {
+      assertEquals(
+        List.of("book/2", "book/3", "book/4", "book/5"),
+        keys(index.search("dragons", 10)).stream().sorted().toList()
+      );
+      assertEquals(List.of("book/1"), keys(index.search("knights", 10)));
+      assertEquals(5, index.search("chapter", 10).size());
+    }
+  }
+
+  private SearchIndex open() {
+    return open(FLUSH_THRESHOLD, 10);
+  }
+
+  private SearchIndex open(int flushThreshold, int maxSegments) {
+    return new SearchIndex(directory, FIELD_WEIGHTS, flushThreshold, maxSegments);
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.filter(path -> path.getFileName().toString().endsWith(".seg")).toList();
+    }
+  }
+
+  private static List<String> keys(List<SearchHit> hits) {
+    return hits.stream().map(SearchHit::key).toList();
+  }
+}
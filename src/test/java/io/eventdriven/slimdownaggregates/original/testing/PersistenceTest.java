@@ -0,0 +1,83 @@
+package io.eventdriven.slimdownaggregates.original.testing;
+
+import io.eventdriven.slimdownaggregates.original.api.PublishingHouseApplication;
+import io.eventdriven.slimdownaggregates.original.persistence.publishers.PublisherEntity;
+import io.eventdriven.slimdownaggregates.original.persistence.publishers.PublisherRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.UUID;
+
+/**
+ * Runs the application without the web server against the test database, background jobs are off
+ * so statements counted by the Hibernate statistics come only from the test.
+ */
+@SpringBootTest(
+  classes = PublishingHouseApplication.class,
+  webEnvironment = SpringBootTest.WebEnvironment.NONE,
+  properties = {
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "outbox.relay.enabled=false",
+    "outbox.retention.enabled=false"
+  }
+)
+public abstract class PersistenceTest {
+  private static final String SEARCH_DIRECTORY = temporaryDirectory("search");
+  private static final String EVENT_STORE_DIRECTORY = temporaryDirectory("eventstore");
+
+  @Autowired
+  protected PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private PublisherRepository publisherRepository;
+
+  @DynamicPropertySource
+  static void database(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", TestDatabase::jdbcUrl);
+    registry.add("spring.datasource.username", () -> TestDatabase.USER);
+    registry.add("spring.datasource.password", () -> "");
+    registry.add("books.search.directory", () -> SEARCH_DIRECTORY);
+    registry.add("eventstore.file.directory", () -> EVENT_STORE_DIRECTORY);
+  }
+
+  /**
+   * Statistics reset before returning, read them after the measured operation.
+   */
+  protected Statistics statistics() {
+    var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    return statistics;
+  }
+
+  protected TransactionTemplate transactionTemplate() {
+    return new TransactionTemplate(transactionManager);
+  }
+
+  protected UUID createPublisher() {
+    var publisher = new PublisherEntity();
+    publisher.setName("Publisher " + UUID.randomUUID());
+    return publisherRepository.save(publisher).getId();
+  }
+
+  private static String temporaryDirectory(String prefix) {
+    try {
+      return Files.createTempDirectory(prefix).toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package io.eventdriven.slimdownaggregates.original.testing;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Postgres started in-process on first use and shared by all tests of the run, stopped with the JVM.
+ */
+public final class TestDatabase {
+  public static final String USER = "postgres";
+
+  private static EmbeddedPostgres postgres;
+
+  private TestDatabase() {
+  }
+
+  public static synchronized String jdbcUrl() {
+    return "jdbc:postgresql://localhost:%d/postgres?reWriteBatchedInserts=true".formatted(postgres().getPort());
+  }
+
+  public static synchronized DataSource dataSource() {
+    return postgres().getPostgresDatabase();
+  }
+
+  private static EmbeddedPostgres postgres() {
+    if (postgres != null)
+      return postgres;
+
+    try {
+      var started = EmbeddedPostgres.start();
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          started.close();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }));
+      postgres = started;
+      return postgres;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}